@@ -0,0 +1,228 @@
+// Jatri Ovijog load scenarios. Run through docker compose (see ../README.md)
+// or directly: k6 run -e BASE_URL=http://localhost:8080 loadtest/k6/scenarios.js
+//
+// Four traffic shapes run concurrently, each tagged with its scenario name so
+// the summary breaks latency percentiles and throughput down per shape:
+//   feed_browsing      passengers scrolling the community feed
+//   complaint_burst    waves of complaint submissions (AI analysis + dedup)
+//   sos_storm          a short spike of SOS reports with photos
+//   dashboard_polling  police dashboards refreshing every few seconds
+
+import http from 'k6/http';
+import { check, sleep, group } from 'k6';
+import { Counter, Trend } from 'k6/metrics';
+import { textSummary } from 'https://jslib.k6.io/k6-summary/0.1.0/index.js';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const SCALE = parseFloat(__ENV.LOAD_SCALE || '1');
+const SUMMARY_DIR = __ENV.K6_SUMMARY_DIR || '.';
+const SEEDED_COMPLAINTS = parseInt(__ENV.SEEDED_COMPLAINTS || '20000', 10);
+
+const scaled = (n) => Math.max(1, Math.round(n * SCALE));
+
+export const options = {
+    summaryTrendStats: ['avg', 'min', 'med', 'p(90)', 'p(95)', 'p(99)', 'max'],
+    scenarios: {
+        feed_browsing: {
+            executor: 'constant-vus',
+            exec: 'feedBrowsing',
+            vus: scaled(40),
+            duration: '5m',
+        },
+        complaint_burst: {
+            executor: 'ramping-arrival-rate',
+            exec: 'complaintSubmission',
+            startRate: 0,
+            timeUnit: '1s',
+            preAllocatedVUs: scaled(50),
+            maxVUs: scaled(200),
+            stages: [
+                { target: scaled(2), duration: '1m' },
+                { target: scaled(20), duration: '20s' },   // rush-hour burst
+                { target: scaled(20), duration: '40s' },
+                { target: scaled(2), duration: '20s' },
+                { target: scaled(2), duration: '1m' },
+                { target: scaled(30), duration: '10s' },   // second, sharper burst
+                { target: scaled(2), duration: '30s' },
+            ],
+        },
+        sos_storm: {
+            executor: 'ramping-arrival-rate',
+            exec: 'sosReport',
+            startTime: '2m',
+            startRate: 0,
+            timeUnit: '1s',
+            preAllocatedVUs: scaled(50),
+            maxVUs: scaled(300),
+            stages: [
+                { target: scaled(50), duration: '10s' },
+                { target: scaled(50), duration: '30s' },
+                { target: 0, duration: '10s' },
+            ],
+        },
+        dashboard_polling: {
+            executor: 'constant-vus',
+            exec: 'dashboardPolling',
+            vus: scaled(15),
+            duration: '5m',
+        },
+    },
+    thresholds: {
+        'http_req_failed{scenario:feed_browsing}': ['rate<0.01'],
+        'http_req_duration{scenario:feed_browsing}': ['p(95)<500'],
+        'http_req_duration{scenario:dashboard_polling}': ['p(95)<1500'],
+        'http_req_failed{scenario:sos_storm}': ['rate<0.001'],
+        'http_req_duration{scenario:sos_storm}': ['p(99)<3000'],
+        'http_req_failed{scenario:complaint_burst}': ['rate<0.02'],
+    },
+};
+
+const complaintsCreated = new Counter('complaints_created');
+const sosCreated = new Counter('sos_created');
+const dashboardPayload = new Trend('dashboard_payload_bytes');
+
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+const BUSES = ['Raida', 'Bihanga', 'Projapoti', 'Shikhor', 'Akik', 'Victor Classic'];
+const THANAS = ['Mirpur', 'Dhanmondi', 'Gulshan', 'Motijheel', 'Uttara', 'Tejgaon'];
+const DESCRIPTIONS = [
+    'ড্রাইভার খুব জোরে বাস চালাচ্ছিল, দুইবার প্রায় দুর্ঘটনা হয়েছে',
+    'Bhai conductor 10 taka extra bhara chaise, dite na chaile gali dise',
+    'Bus did not stop at Shewrapara, passengers had to jump off',
+    'মহিলা সিটে পুরুষ যাত্রী বসে ছিল, কন্ডাক্টর কিছু বলেনি',
+    'Helper pushed an old man off the door at Farmgate',
+];
+const SEARCH_TERMS = ['driver', 'ভাড়া', 'bhara', 'Raida', 'conductor', 'মহিলা'];
+
+// ~6 KB JPEG-sized base64 blob, like a compressed phone photo thumbnail
+const PHOTO = 'data:image/jpeg;base64,' + '/9j/4AAQSkZJRgABAQAAAQABAAD'.repeat(220);
+
+const pick = (arr) => arr[Math.floor(Math.random() * arr.length)];
+const randomComplaintId = () => 1 + Math.floor(Math.random() * SEEDED_COMPLAINTS);
+const clientId = () => `k6-${__VU}-${Math.floor(Math.random() * 1e6)}`;
+
+export function setup() {
+    // Police account for the dashboard scenario (seeded by postgres/seed.sql)
+    const res = http.post(`${BASE_URL}/api/auth/login`,
+        JSON.stringify({ email: 'user1@loadtest.local', password: 'password123' }), JSON_HEADERS);
+    const token = res.status === 200 ? res.json('token') : null;
+    if (!token) {
+        console.warn(`login failed (${res.status}); dashboard runs unauthenticated`);
+    }
+    return { token };
+}
+
+export function feedBrowsing() {
+    group('feed', () => {
+        const feed = http.get(`${BASE_URL}/api/complaints/summary`, { tags: { name: 'GET /api/complaints/summary' } });
+        check(feed, { 'feed 200': (r) => r.status === 200 });
+
+        // open a handful of cards
+        for (let i = 0; i < 3; i++) {
+            const id = randomComplaintId();
+            http.get(`${BASE_URL}/api/complaints/${id}/comments`, { tags: { name: 'GET /api/complaints/{id}/comments' } });
+            http.get(`${BASE_URL}/api/complaints/${id}/reactions?clientId=${clientId()}`,
+                { tags: { name: 'GET /api/complaints/{id}/reactions' } });
+            sleep(0.5 + Math.random());
+        }
+
+        if (Math.random() < 0.3) {
+            const res = http.post(`${BASE_URL}/api/complaints/${randomComplaintId()}/reactions`,
+                JSON.stringify({ reactionType: pick(['support', 'angry', 'watch']), clientId: clientId() }),
+                Object.assign({ tags: { name: 'POST /api/complaints/{id}/reactions' } }, JSON_HEADERS));
+            check(res, { 'reaction 200': (r) => r.status === 200 });
+        }
+        if (Math.random() < 0.05) {
+            http.post(`${BASE_URL}/api/complaints/${randomComplaintId()}/comments`,
+                JSON.stringify({ author_name: 'k6', body: 'Same happened to me yesterday' }),
+                Object.assign({ tags: { name: 'POST /api/complaints/{id}/comments' } }, JSON_HEADERS));
+        }
+        if (Math.random() < 0.2) {
+            http.get(`${BASE_URL}/api/search/complaints?q=${encodeURIComponent(pick(SEARCH_TERMS))}`,
+                { tags: { name: 'GET /api/search/complaints' } });
+        }
+    });
+    sleep(1 + Math.random() * 2);
+}
+
+export function complaintSubmission() {
+    const bus = pick(BUSES);
+    const payload = {
+        description: pick(DESCRIPTIONS),
+        category: 'Other',
+        thana: pick(THANAS),
+        route: `Route ${1 + Math.floor(Math.random() * 40)}`,
+        busName: bus,
+        busNumber: `DHAKA-METRO-${1000 + Math.floor(Math.random() * 400)}`,
+        reporterType: 'passenger',
+        landmark: `Stop ${Math.floor(Math.random() * 120)}`,
+        latitude: 23.7 + Math.random() / 10,
+        longitude: 90.35 + Math.random() / 10,
+        accuracy: 10,
+        // As the web client (report.js) sends it
+        createdAt: new Date().toISOString(),
+    };
+    if (Math.random() < 0.3) {
+        payload.imageUrl = PHOTO;
+    }
+    const res = http.post(`${BASE_URL}/api/complaints`, JSON.stringify(payload),
+        Object.assign({ tags: { name: 'POST /api/complaints' }, timeout: '60s' }, JSON_HEADERS));
+    if (check(res, { 'complaint 200': (r) => r.status === 200 })) {
+        complaintsCreated.add(1);
+    }
+}
+
+export function sosReport() {
+    const payload = {
+        latitude: 23.7 + Math.random() / 10,
+        longitude: 90.35 + Math.random() / 10,
+        accuracy: 5 + Math.random() * 20,
+        userId: 1 + Math.floor(Math.random() * 500),
+        image: Math.random() < 0.5 ? PHOTO : undefined,
+    };
+    const res = http.post(`${BASE_URL}/api/emergencies`, JSON.stringify(payload),
+        Object.assign({ tags: { name: 'POST /api/emergencies' }, timeout: '60s' }, JSON_HEADERS));
+    if (check(res, { 'sos 200': (r) => r.status === 200 })) {
+        sosCreated.add(1);
+    }
+}
+
+// ETags per VU, so polling revalidates the way the browser does
+const etags = {};
+
+export function dashboardPolling(data) {
+    const urls = [
+        [`${BASE_URL}/api/complaints/summary`, 'GET /api/complaints/summary'],
+        [`${BASE_URL}/api/emergencies/summary`, 'GET /api/emergencies/summary'],
+        [`${BASE_URL}/api/buses/risky?limit=10`, 'GET /api/buses/risky'],
+    ];
+    group('dashboard', () => {
+        const responses = http.batch(urls.map(([url, name]) => {
+            const headers = {};
+            if (data.token) {
+                headers.Authorization = `Bearer ${data.token}`;
+            }
+            if (etags[url]) {
+                headers['If-None-Match'] = etags[url];
+            }
+            return ['GET', url, null, { headers, tags: { name } }];
+        }));
+        responses.forEach((r, i) => {
+            check(r, { 'dashboard 200/304': (res) => res.status === 200 || res.status === 304 });
+            if (r.headers.Etag) {
+                etags[urls[i][0]] = r.headers.Etag;
+            }
+            if (r.body) {
+                dashboardPayload.add(r.body.length);
+            }
+        });
+    });
+    sleep(5);
+}
+
+export function handleSummary(data) {
+    return {
+        stdout: textSummary(data, { indent: ' ', enableColors: true }),
+        [`${SUMMARY_DIR}/summary.json`]: JSON.stringify(data, null, 2),
+        [`${SUMMARY_DIR}/summary.txt`]: textSummary(data, { indent: ' ', enableColors: false }),
+    };
+}
@@ -0,0 +1,132 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the Groq (OpenAI-compatible) and Gemini APIs used by
+ * AiAnalysisService and ImageAnalysisService. Single file, no dependencies:
+ *
+ *   java LlmMock.java
+ *
+ * Environment:
+ *   PORT                 listen port (8090)
+ *   LLM_LATENCY_MS       mean added latency per call (800)
+ *   LLM_LATENCY_JITTER   +/- uniform jitter in ms (400)
+ *   LLM_ERROR_RATE       fraction of calls answered with HTTP 503 (0.0)
+ *   LLM_TIMEOUT_RATE     fraction of calls that hang for 30s (0.0)
+ *
+ * The canned answer is picked from the system prompt, so each caller gets a
+ * response its parser accepts.
+ */
+public class LlmMock {
+
+    private static final int PORT = intEnv("PORT", 8090);
+    private static final int LATENCY_MS = intEnv("LLM_LATENCY_MS", 800);
+    private static final int JITTER_MS = intEnv("LLM_LATENCY_JITTER", 400);
+    private static final double ERROR_RATE = doubleEnv("LLM_ERROR_RATE", 0.0);
+    private static final double TIMEOUT_RATE = doubleEnv("LLM_TIMEOUT_RATE", 0.0);
+
+    private static final AtomicLong calls = new AtomicLong();
+    private static final AtomicLong errors = new AtomicLong();
+
+    public static void main(String[] args) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(PORT), 512);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/openai/v1/chat/completions", ex -> handle(ex, false));
+        server.createContext("/v1beta/models/", ex -> handle(ex, true));
+        server.createContext("/stats", ex -> respond(ex, 200,
+                "{\"calls\":" + calls.get() + ",\"errors\":" + errors.get() + "}"));
+        server.start();
+        System.out.printf("LLM mock on :%d latency=%d+/-%dms errorRate=%.2f timeoutRate=%.2f%n",
+                PORT, LATENCY_MS, JITTER_MS, ERROR_RATE, TIMEOUT_RATE);
+    }
+
+    private static void handle(HttpExchange ex, boolean gemini) throws IOException {
+        calls.incrementAndGet();
+        String request = read(ex.getRequestBody());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        try {
+            double roll = random.nextDouble();
+            if (roll < TIMEOUT_RATE) {
+                Thread.sleep(30_000);
+            } else {
+                int jitter = JITTER_MS > 0 ? random.nextInt(-JITTER_MS, JITTER_MS + 1) : 0;
+                Thread.sleep(Math.max(0, LATENCY_MS + jitter));
+            }
+            if (roll >= TIMEOUT_RATE && roll < TIMEOUT_RATE + ERROR_RATE) {
+                errors.incrementAndGet();
+                respond(ex, 503, "{\"error\":{\"message\":\"mock overloaded\"}}");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (gemini) {
+            respond(ex, 200, "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":"
+                    + quote("Mock image analysis: a crowded bus interior, no visible weapons.") + "}]}}]}");
+        } else {
+            respond(ex, 200, "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":"
+                    + quote(chatAnswer(request)) + "}}]}");
+        }
+    }
+
+    private static String chatAnswer(String request) {
+        if (request.contains("Complaint Analyzer")) {
+            String[] priorities = { "High", "Medium", "Low" };
+            String priority = priorities[ThreadLocalRandom.current().nextInt(priorities.length)];
+            return "{\"translated_text\":\"The driver was driving recklessly.\",\"category\":\"Reckless / Speeding / Racing\","
+                    + "\"priority\":\"" + priority + "\",\"is_fake\":false}";
+        }
+        if (request.contains("Complaint Parser")) {
+            return "{\"incidentType\":\"Fare Dispute / Overcharging\",\"busName\":\"Raida\",\"busNumber\":\"DHAKA-METRO-1010\","
+                    + "\"location\":\"Mirpur 10\",\"thana\":\"Mirpur\",\"description\":\"Conductor demanded extra fare.\"}";
+        }
+        if (request.contains("Incident Clustering")) {
+            return "{\"match_id\": -1}";
+        }
+        if (request.contains("{{bus}}")) {
+            return "Dear Citizen, your complaint about bus {{bus}} has been resolved. Action taken: {{action}}. "
+                    + "Please report again if needed.";
+        }
+        return "Dear Citizen, thank you for your report. The matter has been reviewed and appropriate action was taken.";
+    }
+
+    private static void respond(HttpExchange ex, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static int intEnv(String name, int fallback) {
+        String v = System.getenv(name);
+        return v == null || v.isBlank() ? fallback : Integer.parseInt(v.trim());
+    }
+
+    private static double doubleEnv(String name, double fallback) {
+        String v = System.getenv(name);
+        return v == null || v.isBlank() ? fallback : Double.parseDouble(v.trim());
+    }
+}
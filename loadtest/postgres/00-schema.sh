@@ -0,0 +1,13 @@
+#!/bin/bash
+# Applies the Flyway migrations in version order, then the load-test
+# supplement (columns and tables that live only in the hosted Supabase schema).
+set -euo pipefail
+
+for f in $(ls /migrations/V*__*.sql | sort -V); do
+    echo "applying $f"
+    psql -v ON_ERROR_STOP=1 -U "$POSTGRES_USER" -d "$POSTGRES_DB" -f "$f"
+done
+
+psql -v ON_ERROR_STOP=1 -U "$POSTGRES_USER" -d "$POSTGRES_DB" -f /loadtest/schema-supplement.sql
+psql -v ON_ERROR_STOP=1 -U "$POSTGRES_USER" -d "$POSTGRES_DB" -f /loadtest/postgrest-roles.sql
+psql -v ON_ERROR_STOP=1 -U "$POSTGRES_USER" -d "$POSTGRES_DB" -f /loadtest/seed.sql
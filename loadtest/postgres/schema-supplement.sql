@@ -0,0 +1,43 @@
+-- Columns and tables the application uses that exist in the hosted Supabase
+-- project but not (yet) in db/migration. Load tests only.
+
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS priority TEXT DEFAULT 'Low';
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS verification_note TEXT;
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS latitude DOUBLE PRECISION;
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS longitude DOUBLE PRECISION;
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS accuracy DOUBLE PRECISION;
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS reporter_name TEXT;
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS reporter_email TEXT;
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS reporter_phone TEXT;
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS company_name TEXT;
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS landmark TEXT;
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS seat_info TEXT;
+ALTER TABLE complaints ALTER COLUMN thana DROP NOT NULL;
+ALTER TABLE complaints ALTER COLUMN route DROP NOT NULL;
+
+ALTER TABLE emergency_reports ADD COLUMN IF NOT EXISTS image_url TEXT;
+ALTER TABLE emergency_reports ADD COLUMN IF NOT EXISTS description TEXT;
+ALTER TABLE emergency_reports ADD COLUMN IF NOT EXISTS label TEXT;
+ALTER TABLE emergency_reports ADD COLUMN IF NOT EXISTS notes TEXT;
+
+CREATE TABLE IF NOT EXISTS complaint_comments (
+    id BIGSERIAL PRIMARY KEY,
+    complaint_id BIGINT NOT NULL REFERENCES complaints(id) ON DELETE CASCADE,
+    user_id BIGINT REFERENCES users(id),
+    author_name TEXT,
+    body TEXT,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_complaint_comments_complaint ON complaint_comments (complaint_id);
+
+CREATE TABLE IF NOT EXISTS complaint_reactions (
+    id BIGSERIAL PRIMARY KEY,
+    complaint_id BIGINT NOT NULL REFERENCES complaints(id) ON DELETE CASCADE,
+    user_id BIGINT REFERENCES users(id),
+    client_id TEXT NOT NULL,
+    reaction_type TEXT NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (complaint_id, client_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_complaints_bus_number ON complaints (bus_number);
@@ -0,0 +1,50 @@
+-- Baseline data so feed and dashboard scenarios read realistic volumes.
+-- Sizes are controlled by the psql variables below (override with -v).
+\set users 500
+\set complaints 20000
+\set emergencies 2000
+
+-- id 1 is the fallback user_id for anonymous complaints
+INSERT INTO users (name, email, password, role)
+SELECT 'Load User ' || g,
+       'user' || g || '@loadtest.local',
+       -- BCrypt of "password123"
+       '$2a$10$8est3DWkHxuIglFhxS3JFeF/VqpADcuk1o9T6jla7LJ4KGmngMu9i',
+       CASE WHEN g <= 10 THEN 'police' ELSE 'user' END
+FROM generate_series(1, :users) g;
+
+INSERT INTO complaints (category, status, priority, thana, route, bus_name, bus_number,
+                        reporter_type, description, latitude, longitude, accuracy, landmark,
+                        created_at, user_id)
+SELECT (ARRAY['Fare Dispute / Overcharging', 'Harassment (verbal/physical)', 'Reckless / Speeding / Racing',
+              'Overcrowding / Door Hanging', 'Skipping Stops', 'Other'])[1 + g % 6],
+       (ARRAY['new', 'new', 'working', 'resolved', 'fake'])[1 + g % 5],
+       (ARRAY['High', 'Medium', 'Low'])[1 + g % 3],
+       (ARRAY['Mirpur', 'Dhanmondi', 'Gulshan', 'Motijheel', 'Uttara', 'Tejgaon'])[1 + g % 6],
+       'Route ' || (1 + g % 40),
+       (ARRAY['Raida', 'Bihanga', 'Projapoti', 'Shikhor', 'Akik', 'Victor Classic'])[1 + g % 6],
+       'DHAKA-METRO-' || (1000 + g % 400),
+       CASE WHEN g % 3 = 0 THEN 'witness' ELSE 'passenger' END,
+       CASE WHEN g % 2 = 0
+            THEN 'ড্রাইভার খুব জোরে বাস চালাচ্ছিল, report ' || g
+            ELSE 'Bhai conductor extra bhara chaise, report ' || g END,
+       23.70 + random() / 10,
+       90.35 + random() / 10,
+       5 + (g % 40),
+       'Stop ' || (g % 120),
+       now() - (g % 4320) * interval '10 minutes',
+       1 + g % :users
+FROM generate_series(1, :complaints) g;
+
+INSERT INTO emergency_reports (latitude, longitude, accuracy, description, created_at, user_id)
+SELECT 23.70 + random() / 10, 90.35 + random() / 10, 5 + (g % 30), 'SOS ' || g,
+       now() - (g % 1440) * interval '1 minute', 1 + g % :users
+FROM generate_series(1, :emergencies) g;
+
+INSERT INTO complaint_comments (complaint_id, user_id, author_name, body)
+SELECT 1 + g % :complaints, 1 + g % :users, 'Load User', 'Same thing happened to me'
+FROM generate_series(1, :complaints) g;
+
+INSERT INTO complaint_reactions (complaint_id, client_id, reaction_type)
+SELECT 1 + g % 2000, 'seed-' || g, (ARRAY['support', 'angry', 'watch'])[1 + g % 3]
+FROM generate_series(1, 30000) g;
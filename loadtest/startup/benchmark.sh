@@ -0,0 +1,66 @@
+#!/usr/bin/env bash
+# Time-to-ready of the app container: the standard image (Dockerfile's
+# default target) against the fast-startup target (Spring AOT + AppCDS).
+#
+#   loadtest/startup/benchmark.sh [runs]
+#
+# Each run starts a fresh container and polls /actuator/health/readiness
+# until it answers 200. Upstreams are not needed to become ready, so the
+# containers get placeholder settings and no network peers.
+set -euo pipefail
+
+RUNS=${1:-5}
+ROOT=$(cd "$(dirname "$0")/../.." && pwd)
+PORT=${STARTUP_PORT:-18080}
+JAVA_VERSION=${APP_JAVA_VERSION:-17}
+
+ENV_ARGS=(
+  -e SUPABASE_URL=http://127.0.0.1:9
+  -e SUPABASE_APIKEY=startup
+  -e JWT_SECRET=c3RhcnR1cC1iZW5jaG1hcmstand0LXNlY3JldC1ub3QtZm9yLXByb2R1Y3Rpb24=
+  -e GOOGLE_CLIENT_ID=startup
+  -e GROQ_API_KEY=startup
+  -e GEMINI_API_KEY=startup
+  -e MAIL_USERNAME=startup
+  -e MAIL_PASSWORD=startup
+  -e JAVA_TOOL_OPTIONS="${APP_JAVA_OPTS:--Xmx1g}"
+)
+
+now_ms() { date +%s%3N; }
+
+measure() {
+  local image=$1 start ready id
+  start=$(now_ms)
+  id=$(docker run -d --rm -p "$PORT:8080" "${ENV_ARGS[@]}" "$image")
+  until curl -sf -o /dev/null "http://localhost:$PORT/actuator/health/readiness"; do
+    if ! docker inspect "$id" >/dev/null 2>&1; then
+      echo "container for $image exited before becoming ready" >&2
+      return 1
+    fi
+    sleep 0.05
+  done
+  ready=$(now_ms)
+  # Spring's own figure, which leaves out JVM and container start
+  local started
+  started=$(docker logs "$id" 2>&1 | grep -o 'Started JatriOvijogApplication in [0-9.]* seconds' \
+    | grep -o '[0-9.]*' | head -1)
+  docker stop -t 5 "$id" >/dev/null
+  echo "$((ready - start)) ${started:-?}"
+}
+
+for target in runtime fast-startup; do
+  image="jatri-ovijog:$target"
+  echo "Building $image (JAVA_VERSION=$JAVA_VERSION)..."
+  docker build -q --build-arg JAVA_VERSION="$JAVA_VERSION" --target "$target" -t "$image" "$ROOT" >/dev/null
+done
+
+printf '\n%-14s %5s %14s %16s\n' target run ready_ms spring_started_s
+for target in runtime fast-startup; do
+  total=0
+  for run in $(seq "$RUNS"); do
+    read -r ms started < <(measure "jatri-ovijog:$target")
+    total=$((total + ms))
+    printf '%-14s %5d %14d %16s\n' "$target" "$run" "$ms" "$started"
+  done
+  printf '%-14s %5s %14d\n' "$target" avg $((total / RUNS))
+done
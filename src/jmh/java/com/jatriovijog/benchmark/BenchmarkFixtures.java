@@ -0,0 +1,121 @@
+package com.jatriovijog.benchmark;
+
+import com.jatriovijog.model.ComplaintReaction;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic test data shaped like the real tables and request bodies.
+ * Images are inlined as base64 data URLs, the way the frontend uploads them.
+ */
+final class BenchmarkFixtures {
+
+    private static final String[] STATUSES = { "new", "working", "resolved", "fake" };
+    private static final String[] PRIORITIES = { "High", "Medium", "Low" };
+    private static final String[] CATEGORIES = { "Reckless Driving", "Harassment", "Overcharging", "Other" };
+    private static final String[] THANAS = { "Mirpur", "Dhanmondi", "Gulshan", "Motijheel", "Uttara" };
+    private static final String[] BUSES = { "Raida", "Bihanga", "Projapoti", "Shikhor", "Akik" };
+    private static final String[] REACTIONS = { "support", "angry", "watch" };
+    private static final String[] NULL_COLUMNS = { "translated_text", "verification_note", "reporter_name",
+            "reporter_email", "reporter_phone", "company_name", "landmark", "seat_info" };
+
+    private BenchmarkFixtures() {
+    }
+
+    static String base64Image(Random random, int bytes) {
+        if (bytes <= 0) {
+            return null;
+        }
+        byte[] raw = new byte[bytes];
+        random.nextBytes(raw);
+        return "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(raw);
+    }
+
+    /** Rows as returned by {@code select=*} on the complaints table. */
+    static List<Map<String, Object>> complaintRows(int count, int imageBytes) {
+        Random random = new Random(42);
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", (long) i);
+            row.put("status", STATUSES[random.nextInt(STATUSES.length)]);
+            row.put("priority", PRIORITIES[random.nextInt(PRIORITIES.length)]);
+            row.put("category", CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            row.put("description", "ড্রাইভার খুব জোরে বাস চালাচ্ছিল, driver was racing another bus near stop " + i);
+            row.put("thana", THANAS[random.nextInt(THANAS.length)]);
+            row.put("route", "Mirpur 10 - Motijheel");
+            row.put("latitude", 23.7 + random.nextDouble() / 10);
+            row.put("longitude", 90.3 + random.nextDouble() / 10);
+            row.put("accuracy", 5 + random.nextInt(40));
+            row.put("created_at", "2024-05-" + String.format("%02d", 1 + i % 28) + "T10:15:30.123456+00:00");
+            row.put("bus_name", BUSES[random.nextInt(BUSES.length)]);
+            row.put("bus_number", "DHAKA-METRO-" + (1000 + random.nextInt(500)));
+            row.put("reporter_type", random.nextBoolean() ? "passenger" : "witness");
+            row.put("image_url", base64Image(random, imageBytes));
+            row.put("user_id", (long) (1 + random.nextInt(500)));
+            // Columns PostgREST returns as null for most rows
+            for (String column : NULL_COLUMNS) {
+                row.put(column, null);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /** Rows as selected by getReactions (reaction_type, client_id). */
+    static List<ComplaintReaction> reactionRows(int count) {
+        Random random = new Random(7);
+        List<ComplaintReaction> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new ComplaintReaction(null, null, null, "client-" + i,
+                    REACTIONS[random.nextInt(REACTIONS.length)], null));
+        }
+        return rows;
+    }
+
+    /** Body of POST /api/complaints as sent by the passenger app. */
+    static Map<String, Object> complaintPayload(int imageBytes) {
+        Random random = new Random(3);
+        Map<String, Object> p = new HashMap<>();
+        p.put("description", "কন্ডাক্টর অতিরিক্ত ভাড়া চাইছে, conductor asked double fare");
+        p.put("category", "Overcharging");
+        p.put("thana", "Mirpur");
+        p.put("route", "Mirpur 10 - Motijheel");
+        p.put("busName", "Raida");
+        p.put("busNumber", "DHAKA-METRO-1234");
+        p.put("imageUrl", base64Image(random, imageBytes));
+        p.put("reporterType", "passenger");
+        p.put("createdAt", "2024-05-01T10:15:30Z");
+        p.put("reporterName", "Anonymous");
+        p.put("landmark", "Shewrapara");
+        p.put("seatInfo", "B4");
+        p.put("latitude", 23.79);
+        p.put("longitude", 90.37);
+        p.put("accuracy", 12);
+        // fields a client must not be able to set
+        p.put("id", 99);
+        p.put("verification_note", "approved");
+        return p;
+    }
+
+    /** Body of POST /api/emergencies. */
+    static Map<String, Object> emergencyPayload(int imageBytes) {
+        Random random = new Random(5);
+        Map<String, Object> p = new HashMap<>();
+        p.put("image", base64Image(random, imageBytes));
+        p.put("audio", base64Image(random, imageBytes));
+        p.put("userId", 17);
+        p.put("latitude", 23.79);
+        p.put("longitude", 90.37);
+        p.put("accuracy", 8);
+        p.put("notes", "help");
+        p.put("status", "resolved");
+        return p;
+    }
+}
@@ -0,0 +1,79 @@
+package com.jatriovijog.benchmark;
+
+import com.jatriovijog.config.BlockingCalls;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of {@code concurrency} blocking calls, each parked for
+ * {@code latencyMs} like a slow LLM or SMTP round trip, through
+ * {@link BlockingCalls} in platform (boundedElastic) and virtual mode.
+ * Reports the time until the whole burst has finished.
+ *
+ * The virtual mode needs a Java 21 JVM; on older JVMs it fails in setup and
+ * only the platform results are reported.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockingCallsBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"100", "1000"})
+    public int concurrency;
+
+    @Param({"20"})
+    public long latencyMs;
+
+    private BlockingCalls blockingCalls;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark",
+                Map.of("spring.threads.virtual.enabled", mode.equals("virtual"))));
+        blockingCalls = new BlockingCalls(environment);
+        if (mode.equals("virtual") && !blockingCalls.isVirtual()) {
+            throw new IllegalStateException("Virtual threads need Java 21, running on "
+                    + System.getProperty("java.version"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        blockingCalls.destroy();
+    }
+
+    @Benchmark
+    public Long burst() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> blockingCalls.call(() -> {
+                    Thread.sleep(latencyMs);
+                    return i;
+                }), concurrency)
+                .count()
+                .block();
+    }
+}
@@ -0,0 +1,118 @@
+package com.jatriovijog.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.jatriovijog.model.Complaint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A list endpoint's JSON work on a PostgREST complaints response: decoding
+ * it (plain ObjectMapper and the WebClient's Jackson decoder) and writing it
+ * back out as the API response. Rows are either generic maps or
+ * {@link Complaint} records, and the records run with and without Blackbird,
+ * as registered by JacksonConfig. With {@code imageBytes > 0} every row
+ * carries a base64 image, like {@code select=*} does today.
+ *
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ComplaintJsonDecodeBenchmark {
+
+    private static final TypeReference<List<Map<String, Object>>> LIST_OF_MAP = new TypeReference<>() {
+    };
+    private static final TypeReference<List<Complaint>> LIST_OF_COMPLAINT = new TypeReference<>() {
+    };
+    private static final ResolvableType LIST_OF_MAP_TYPE = ResolvableType.forType(
+            new ParameterizedTypeReference<List<Map<String, Object>>>() {
+            });
+    private static final ResolvableType LIST_OF_COMPLAINT_TYPE = ResolvableType.forClassWithGenerics(List.class,
+            Complaint.class);
+
+    @Param({ "10000" })
+    public int rows;
+
+    @Param({ "0", "4096" })
+    public int imageBytes;
+
+    private ObjectMapper mapper;
+    private ObjectMapper blackbird;
+    private Jackson2JsonDecoder decoder;
+    private Jackson2JsonDecoder blackbirdDecoder;
+    private byte[] json;
+    private List<Map<String, Object>> decodedMaps;
+    private List<Complaint> decodedRecords;
+
+    @Setup
+    public void setup() throws Exception {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        blackbird = Jackson2ObjectMapperBuilder.json().modulesToInstall(new BlackbirdModule()).build();
+        decoder = new Jackson2JsonDecoder(mapper);
+        decoder.setMaxInMemorySize(-1);
+        blackbirdDecoder = new Jackson2JsonDecoder(blackbird);
+        blackbirdDecoder.setMaxInMemorySize(-1);
+        json = mapper.writeValueAsBytes(BenchmarkFixtures.complaintRows(rows, imageBytes));
+        decodedMaps = mapper.readValue(json, LIST_OF_MAP);
+        decodedRecords = mapper.readValue(json, LIST_OF_COMPLAINT);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> objectMapper() throws Exception {
+        return mapper.readValue(json, LIST_OF_MAP);
+    }
+
+    @Benchmark
+    public List<Complaint> objectMapperRecords() throws Exception {
+        return mapper.readValue(json, LIST_OF_COMPLAINT);
+    }
+
+    @Benchmark
+    public List<Complaint> objectMapperRecordsBlackbird() throws Exception {
+        return blackbird.readValue(json, LIST_OF_COMPLAINT);
+    }
+
+    @Benchmark
+    public Object webClientDecoder() {
+        return decoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(json), LIST_OF_MAP_TYPE, null, null);
+    }
+
+    @Benchmark
+    public Object webClientDecoderRecordsBlackbird() {
+        return blackbirdDecoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(json), LIST_OF_COMPLAINT_TYPE,
+                null, null);
+    }
+
+    @Benchmark
+    public byte[] encodeMaps() throws Exception {
+        return mapper.writeValueAsBytes(decodedMaps);
+    }
+
+    @Benchmark
+    public byte[] encodeRecordsBlackbird() throws Exception {
+        return blackbird.writeValueAsBytes(decodedRecords);
+    }
+}
@@ -0,0 +1,55 @@
+package com.jatriovijog.benchmark;
+
+import com.jatriovijog.controller.ComplaintController;
+import com.jatriovijog.controller.EmergencyController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mass-assignment whitelisting of complaint and SOS request bodies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadWhitelistBenchmark {
+
+    @Param({ "0", "65536" })
+    public int imageBytes;
+
+    private Map<String, Object> complaint;
+    private Map<String, Object> emergency;
+
+    @Setup
+    public void setup() {
+        complaint = BenchmarkFixtures.complaintPayload(imageBytes);
+        emergency = BenchmarkFixtures.emergencyPayload(imageBytes);
+    }
+
+    @Benchmark
+    public Map<String, Object> complaintFields() {
+        Map<String, Object> fixed = new HashMap<>();
+        ComplaintController.copyStandardFields(complaint, fixed);
+        return fixed;
+    }
+
+    @Benchmark
+    public Map<String, Object> emergencyFields() {
+        return EmergencyController.whitelist(emergency);
+    }
+}
@@ -0,0 +1,48 @@
+package com.jatriovijog.benchmark;
+
+import com.jatriovijog.model.ComplaintReaction;
+import com.jatriovijog.service.SupabaseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reaction counting behind GET /api/feed/complaints/{id}/reactions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReactionTallyBenchmark {
+
+    @Param({ "50", "5000" })
+    public int reactions;
+
+    private List<ComplaintReaction> rows;
+    private String clientId;
+
+    @Setup
+    public void setup() {
+        rows = BenchmarkFixtures.reactionRows(reactions);
+        clientId = "client-" + (reactions / 2);
+    }
+
+    @Benchmark
+    public Map<String, Object> tally() {
+        return SupabaseService.tallyReactions(rows, clientId);
+    }
+}
@@ -2,6 +2,7 @@ package com.jatriovijog;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Entry point for the Spring Boot backend. This class simply boots the
@@ -9,6 +10,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * automatically picked up thanks to component scanning.
  */
 @SpringBootApplication
+@EnableScheduling
 public class JatriOvijogApplication {
 
     public static void main(String[] args) {
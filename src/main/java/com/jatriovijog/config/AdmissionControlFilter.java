@@ -0,0 +1,198 @@
+package com.jatriovijog.config;
+
+import com.jatriovijog.util.GradientLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive admission control for {@code /api}. The number of requests in
+ * flight is capped by a {@link GradientLimit}, which shrinks when response
+ * times climb (upstreams struggling) and grows back when they settle.
+ * Requests are admitted by priority:
+ * <ul>
+ * <li>{@code CRITICAL}: SOS reports ({@code POST /api/emergencies}), never shed</li>
+ * <li>{@code NORMAL}: complaint submissions and other writes, and the
+ * emergency lists police dispatch from; admitted up to the limit</li>
+ * <li>{@code LOW}: feed, dashboard, search and analytics reads; admitted up
+ * to {@code admission.low-priority-share} of the limit</li>
+ * </ul>
+ * A shed request gets an immediate 503 with {@code Retry-After}, instead of
+ * queueing behind requests that are already timing out.
+ *
+ * Bulk exports hold their slot while they run but do not feed their response
+ * time to the limit: a minutes-long download says nothing about upstream
+ * health.
+ */
+@Component
+// After the observation filter so shed requests are counted, and before
+// rate limiting so they are refused as cheaply as possible
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    static final String EXPORT_PATH = "/api/complaints/export";
+
+    enum Priority {
+        CRITICAL, NORMAL, LOW
+    }
+
+    private final GradientLimit limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final boolean enabled;
+    private final double lowPriorityShare;
+    private final Map<Priority, Counter> shed = new EnumMap<>(Priority.class);
+
+    public AdmissionControlFilter(MeterRegistry meterRegistry,
+            @Value("${admission.enabled:true}") boolean enabled,
+            @Value("${admission.initial-limit:100}") int initialLimit,
+            @Value("${admission.min-limit:20}") int minLimit,
+            @Value("${admission.max-limit:1000}") int maxLimit,
+            @Value("${admission.tolerance:1.5}") double tolerance,
+            @Value("${admission.low-priority-share:0.6}") double lowPriorityShare) {
+        this.limit = new GradientLimit(initialLimit, minLimit, maxLimit, tolerance);
+        this.enabled = enabled;
+        this.lowPriorityShare = lowPriorityShare;
+
+        Gauge.builder("admission.limit", limit, GradientLimit::limit)
+                .description("Current adaptive concurrency limit for /api")
+                .register(meterRegistry);
+        Gauge.builder("admission.in_flight", inFlight, AtomicInteger::get)
+                .register(meterRegistry);
+        for (Priority p : Priority.values()) {
+            shed.put(p, Counter.builder("admission.shed")
+                    .tag("priority", p.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Priority priority = priority(request);
+        long start = System.nanoTime();
+        boolean sample = !request.getRequestURI().equals(EXPORT_PATH);
+        if (!admit(priority)) {
+            shed.get(priority).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "2");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Server is busy, please try again shortly\"}");
+            return;
+        }
+
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Mono results finish on another thread; release the slot then
+                async = true;
+                request.getAsyncContext().addListener(new Release(start, sample));
+            }
+        } finally {
+            if (!async) {
+                release(start, sample);
+            }
+        }
+    }
+
+    /**
+     * Take a slot for the request, or refuse it. The check and the increment
+     * are one compare-and-set, so requests arriving together cannot all see
+     * the last free slot and overshoot the limit.
+     */
+    private boolean admit(Priority priority) {
+        while (true) {
+            int current = inFlight.get();
+            boolean room = switch (priority) {
+                case CRITICAL -> true;
+                case NORMAL -> current < limit.limit();
+                case LOW -> current < limit.limit() * lowPriorityShare;
+            };
+            if (!room) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(long start, boolean sample) {
+        long now = System.nanoTime();
+        int current = inFlight.getAndDecrement();
+        if (sample) {
+            limit.onSample(now, now - start, current);
+        }
+    }
+
+    static Priority priority(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        if (path.equals("/api/emergencies") || path.startsWith("/api/emergencies/")) {
+            return read ? Priority.NORMAL : Priority.CRITICAL;
+        }
+        return read ? Priority.LOW : Priority.NORMAL;
+    }
+
+    private class Release implements AsyncListener {
+        private final long start;
+        private final boolean sample;
+        private boolean released;
+
+        Release(long start, boolean sample) {
+            this.start = start;
+            this.sample = sample;
+        }
+
+        private synchronized void once() {
+            if (!released) {
+                released = true;
+                release(start, sample);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            once();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            once();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            once();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
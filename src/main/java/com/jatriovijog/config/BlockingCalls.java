@@ -0,0 +1,82 @@
+package com.jatriovijog.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The one place blocking work is run from reactive code: LLM calls through
+ * RestTemplate, BCrypt, Google token verification, JDBC and SMTP. Running it
+ * here keeps it off the Reactor Netty event loops that WebClient responses
+ * arrive on.
+ *
+ * Two modes, following Spring Boot's {@code spring.threads.virtual.enabled}:
+ * <ul>
+ * <li>platform (default): Reactor's {@code boundedElastic} pool, capped at
+ * ten threads per core with a queue behind it</li>
+ * <li>virtual (Java 21, {@code -Pjava21}): a new virtual thread per call, so
+ * a slow upstream parks cheap threads instead of exhausting the pool</li>
+ * </ul>
+ * The mail and drafting worker pools take their threads from
+ * {@link #threadFactory} and keep their own size caps in both modes.
+ */
+@Component
+public class BlockingCalls implements DisposableBean {
+
+    private final boolean virtual;
+    private final Scheduler scheduler;
+
+    public BlockingCalls(Environment environment) {
+        this.virtual = Threading.VIRTUAL.isActive(environment);
+        this.scheduler = virtual
+                ? Schedulers.fromExecutor(new VirtualThreadTaskExecutor("blocking-"))
+                : Schedulers.boundedElastic();
+        System.out.println("🧵 Blocking calls run on " + (virtual ? "virtual threads" : "boundedElastic"));
+    }
+
+    /** Run {@code call} on the blocking scheduler when the Mono is subscribed. */
+    public <T> Mono<T> call(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Threads for a dedicated worker pool: virtual in virtual mode,
+     * otherwise daemon platform threads named {@code prefix-N}.
+     */
+    public ThreadFactory threadFactory(String prefix) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(prefix + "-").getVirtualThreadFactory();
+        }
+        AtomicInteger threadId = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + threadId.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @Override
+    public void destroy() {
+        // boundedElastic is shared and disposed by Reactor itself
+        if (virtual) {
+            scheduler.dispose();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.jatriovijog.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers Blackbird with the application ObjectMapper. Blackbird swaps
+ * Jackson's reflective getter, setter and constructor calls for generated
+ * lambdas. Spring Boot adds every {@link Module} bean to the mapper behind
+ * the MVC message converters and the WebClient codecs, so both the
+ * PostgREST decoding and the API responses pick it up.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,37 @@
+package com.jatriovijog.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Connection pool for the direct JDBC data store ({@code jatri.datastore=jdbc}).
+ * Spring Boot's own DataSource auto-configuration is switched off in
+ * application.properties so the default PostgREST mode needs no database
+ * credentials at all.
+ */
+@Configuration
+@ConditionalOnProperty(name = "jatri.datastore", havingValue = "jdbc")
+public class JdbcDataStoreConfig {
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource dataSource(
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username}") String username,
+            @Value("${spring.datasource.password}") String password,
+            @Value("${jatri.jdbc.max-pool-size:10}") int maxPoolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("jatri-jdbc");
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(maxPoolSize);
+        // Let Postgres infer types for string parameters (ISO timestamps, numeric ids from JSON)
+        config.addDataSourceProperty("stringtype", "unspecified");
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,75 @@
+package com.jatriovijog.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * The HTTP client under {@code PostgrestTableRepository}, with its own
+ * connection pool instead of Reactor Netty's shared default:
+ * <ul>
+ * <li>{@code supabase.http.max-connections} caps open connections; further
+ * requests wait for one, at most {@code pending-acquire-max} of them and for
+ * at most {@code pending-acquire-timeout}, and then fail instead of queueing
+ * without bound</li>
+ * <li>idle connections are closed after {@code max-idle-time} by a background
+ * sweep, and every connection is replaced after {@code max-life-time}, so
+ * connections the proxy has silently dropped are not reused</li>
+ * <li>{@code supabase.http.protocol=h2} negotiates HTTP/2 (ALPN over TLS,
+ * falling back to HTTP/1.1); many requests then share a few connections</li>
+ * </ul>
+ * Pool state is exported as {@code reactor.netty.connection.provider.*}
+ * (total, active, idle and pending connections, tagged {@code name=postgrest}).
+ */
+@Configuration
+@ConditionalOnProperty(name = "jatri.datastore", havingValue = "postgrest", matchIfMissing = true)
+public class PostgrestHttpClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider postgrestConnectionProvider(
+            @Value("${supabase.http.max-connections:200}") int maxConnections,
+            @Value("${supabase.http.pending-acquire-max:1000}") int pendingAcquireMax,
+            @Value("${supabase.http.pending-acquire-timeout:5s}") Duration pendingAcquireTimeout,
+            @Value("${supabase.http.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${supabase.http.max-life-time:5m}") Duration maxLifeTime) {
+        System.out.println("🔌 PostgREST pool: up to " + maxConnections + " connections, "
+                + pendingAcquireMax + " waiting");
+        return ConnectionProvider.builder("postgrest")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(maxIdleTime.dividedBy(2))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public HttpClient postgrestHttpClient(ConnectionProvider postgrestConnectionProvider,
+            @Value("${supabase.url}") String baseUrl,
+            @Value("${supabase.http.protocol:http1.1}") String protocol,
+            @Value("${supabase.http.connect-timeout:3s}") Duration connectTimeout) {
+        HttpClient client = HttpClient.create(postgrestConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis());
+
+        if ("h2".equalsIgnoreCase(protocol)) {
+            boolean tls = baseUrl.startsWith("https:");
+            // h2c (cleartext) upgrades an HTTP/1.1 connection; over TLS it is agreed by ALPN
+            client = tls
+                    ? client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure()
+                    : client.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        } else if (!"http1.1".equalsIgnoreCase(protocol)) {
+            throw new IllegalArgumentException("supabase.http.protocol must be http1.1 or h2: " + protocol);
+        }
+        System.out.println("🔌 PostgREST client speaks " + protocol);
+        return client;
+    }
+}
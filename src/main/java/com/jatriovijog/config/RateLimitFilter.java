@@ -0,0 +1,148 @@
+package com.jatriovijog.config;
+
+import com.jatriovijog.service.RateLimiter;
+import com.jatriovijog.service.RateLimiter.Limit;
+import com.jatriovijog.util.JwtUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits for the endpoints that cost an LLM call or a write, checked
+ * before the request reaches the controller. Each request takes a token
+ * from up to three buckets, and is refused with 429 and {@code Retry-After}
+ * as soon as one is empty:
+ * <ul>
+ * <li>the signed-in user, from the bearer token</li>
+ * <li>the browser, from {@code X-Client-Id} or {@code ?clientId=} (the id
+ * feed.js keeps in localStorage)</li>
+ * <li>the remote address, with {@code rate-limit.ip-multiplier} times the
+ * capacity since many riders can share one carrier NAT address</li>
+ * </ul>
+ * Limits are {@code capacity/period} strings, e.g. {@code rate-limit.reactions=30/1m}.
+ *
+ * Behind a reverse proxy set {@code server.forward-headers-strategy} so the
+ * remote address is the client's rather than the proxy's.
+ */
+@Component
+// After the observation filter, so 429s still show up in http.server.requests
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    // Longer ids are cut, so a client cannot make the key table hold huge keys
+    private static final int MAX_CLIENT_ID_LENGTH = 64;
+
+    private record Rule(String name, RequestMatcher matcher, Limit limit) {
+    }
+
+    private final RateLimiter limiter;
+    private final JwtUtil jwtUtil;
+    private final boolean enabled;
+    private final int ipMultiplier;
+    private final List<Rule> rules;
+
+    public RateLimitFilter(RateLimiter limiter, JwtUtil jwtUtil,
+            @Value("${rate-limit.enabled:true}") boolean enabled,
+            @Value("${rate-limit.ip-multiplier:4}") int ipMultiplier,
+            @Value("${rate-limit.complaints:5/10m}") String complaints,
+            @Value("${rate-limit.parse-chat:20/10m}") String parseChat,
+            @Value("${rate-limit.reactions:30/1m}") String reactions) {
+        this.limiter = limiter;
+        this.jwtUtil = jwtUtil;
+        this.enabled = enabled;
+        this.ipMultiplier = ipMultiplier;
+        this.rules = List.of(
+                new Rule("complaints", post("/api/complaints"), Limit.parse(complaints)),
+                new Rule("parse-chat", post("/api/complaints/parse-chat"), Limit.parse(parseChat)),
+                new Rule("reactions", post("/api/complaints/*/reactions"), Limit.parse(reactions)));
+    }
+
+    private static RequestMatcher post(String pattern) {
+        return new AntPathRequestMatcher(pattern, HttpMethod.POST.name());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || rule(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Rule rule = rule(request);
+
+        long wait = 0;
+        Long userId = userId(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (userId != null) {
+            wait = limiter.tryAcquire(rule.name(), "user", userId.toString(), rule.limit());
+        }
+        String clientId = clientId(request);
+        if (wait == 0 && clientId != null) {
+            wait = limiter.tryAcquire(rule.name(), "client", clientId, rule.limit());
+        }
+        if (wait == 0) {
+            wait = limiter.tryAcquire(rule.name(), "ip", request.getRemoteAddr(), rule.limit().times(ipMultiplier));
+        }
+
+        if (wait > 0) {
+            long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Too many requests, please try again in "
+                    + seconds + " seconds\"}");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private Rule rule(HttpServletRequest request) {
+        for (Rule rule : rules) {
+            if (rule.matcher().matches(request)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private static String clientId(HttpServletRequest request) {
+        String id = request.getHeader(CLIENT_ID_HEADER);
+        if (id == null || id.isBlank()) {
+            id = request.getParameter("clientId");
+        }
+        if (id == null || id.isBlank()) {
+            return null;
+        }
+        id = id.trim();
+        return id.length() > MAX_CLIENT_ID_LENGTH ? id.substring(0, MAX_CLIENT_ID_LENGTH) : id;
+    }
+
+    private Long userId(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer "))
+            return null;
+        try {
+            Object uid = jwtUtil.validateToken(authHeader.substring("Bearer ".length()).trim()).get("userId");
+            return uid == null ? null : Long.valueOf(String.valueOf(uid));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -2,11 +2,18 @@ package com.jatriovijog.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.DelegatingRequestMatcherHeaderWriter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 /**
  * Basic Spring Security configuration. In this simple setup we disable
@@ -19,10 +26,22 @@ import org.springframework.security.web.SecurityFilterChain;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    // List endpoints set their own Cache-Control (no-cache plus an ETag, see
+    // ListSync); the default no-store would stop browsers from revalidating
+    private static final RequestMatcher CONDITIONAL_LISTS = new OrRequestMatcher(
+            new AntPathRequestMatcher("/api/complaints", HttpMethod.GET.name()),
+            new AntPathRequestMatcher("/api/complaints/summary", HttpMethod.GET.name()),
+            new AntPathRequestMatcher("/api/emergencies", HttpMethod.GET.name()),
+            new AntPathRequestMatcher("/api/emergencies/summary", HttpMethod.GET.name()));
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
+                .headers(headers -> headers
+                        .cacheControl(cache -> cache.disable())
+                        .addHeaderWriter(new DelegatingRequestMatcherHeaderWriter(
+                                new NegatedRequestMatcher(CONDITIONAL_LISTS), new CacheControlHeadersWriter())))
                 .authorizeHttpRequests(authz -> authz
                         .anyRequest().permitAll());
         return http.build();
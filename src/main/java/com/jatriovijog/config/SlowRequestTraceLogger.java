@@ -0,0 +1,135 @@
+package com.jatriovijog.config;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Span exporter that prints the whole span tree of any request slower than
+ * {@code tracing.slow-request-ms}, e.g.
+ *
+ * <pre>
+ * 🐢 Slow request (3412 ms) trace 4bf92f3577b34da6a3ce929d0e0e4736
+ *    +0 ms     3412 ms  http post /api/complaints
+ *    +2 ms       45 ms    select complaints [bus_name=eq,bus_number=eq,status=in]
+ *    +3 ms       41 ms      http get
+ *    +48 ms    2100 ms    groq duplicate_check
+ * </pre>
+ *
+ * Spring Boot registers every {@link SpanExporter} bean with the tracer, so
+ * this runs next to the OTLP exporter when one is configured. Spans are held
+ * per trace until the local root span ends; traces whose root never arrives
+ * are dropped once more than {@code tracing.slow-request-max-pending} are
+ * waiting.
+ */
+@Component
+public class SlowRequestTraceLogger implements SpanExporter {
+
+    private static final AttributeKey<String> DB_QUERY = AttributeKey.stringKey("db.query");
+
+    private final long thresholdNanos;
+    private final Map<String, List<SpanData>> pending;
+
+    public SlowRequestTraceLogger(@Value("${tracing.slow-request-ms:2000}") long thresholdMs,
+            @Value("${tracing.slow-request-max-pending:5000}") int maxPending) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.pending = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<SpanData>> eldest) {
+                return size() > maxPending;
+            }
+        };
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        List<SpanData> roots = new ArrayList<>();
+        for (SpanData span : spans) {
+            boolean root = !span.getParentSpanContext().isValid() || span.getParentSpanContext().isRemote();
+            if (root) {
+                roots.add(span);
+            } else {
+                pending.computeIfAbsent(span.getTraceId(), t -> new ArrayList<>()).add(span);
+            }
+        }
+
+        for (SpanData root : roots) {
+            List<SpanData> children = pending.remove(root.getTraceId());
+            long duration = root.getEndEpochNanos() - root.getStartEpochNanos();
+            if (duration >= thresholdNanos) {
+                System.out.println(render(root, children == null ? List.of() : children));
+            }
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    private static String render(SpanData root, List<SpanData> spans) {
+        Map<String, List<SpanData>> byParent = new HashMap<>();
+        for (SpanData span : spans) {
+            byParent.computeIfAbsent(span.getParentSpanId(), p -> new ArrayList<>()).add(span);
+        }
+
+        StringBuilder out = new StringBuilder()
+                .append("🐢 Slow request (")
+                .append(millis(root.getEndEpochNanos() - root.getStartEpochNanos()))
+                .append(" ms) trace ")
+                .append(root.getTraceId());
+        append(out, root, root.getStartEpochNanos(), 0, byParent);
+        return out.toString();
+    }
+
+    private static void append(StringBuilder out, SpanData span, long origin, int depth,
+            Map<String, List<SpanData>> byParent) {
+        String offset = "+" + millis(span.getStartEpochNanos() - origin) + " ms";
+        String duration = millis(span.getEndEpochNanos() - span.getStartEpochNanos()) + " ms";
+        out.append('\n')
+                .append(String.format("   %-10s%9s  ", offset, duration))
+                .append("  ".repeat(depth))
+                .append(span.getName());
+
+        String query = span.getAttributes().get(DB_QUERY);
+        if (query != null) {
+            out.append(" [").append(query).append(']');
+        }
+        if (span.getStatus().getStatusCode() == StatusCode.ERROR) {
+            out.append(" ❌");
+        }
+
+        List<SpanData> children = byParent.get(span.getSpanId());
+        if (children == null) {
+            return;
+        }
+        children.sort(Comparator.comparingLong(SpanData::getStartEpochNanos));
+        for (SpanData child : children) {
+            append(out, child, origin, depth + 1, byParent);
+        }
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        pending.clear();
+        return CompletableResultCode.ofSuccess();
+    }
+}
@@ -0,0 +1,124 @@
+package com.jatriovijog.controller;
+
+import com.jatriovijog.model.ActivityRollup;
+import com.jatriovijog.service.SupabaseService;
+import com.jatriovijog.util.TimeBounds;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trend data read from the pre-aggregated {@code activity_rollups} table
+ * instead of the raw complaint and SOS tables.
+ */
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private static final Set<String> COMPLAINT_DIMENSIONS = Set.of("total", "status", "category", "thana", "priority");
+    private static final Duration MAX_HOURLY_RANGE = Duration.ofDays(31);
+    private static final Duration MAX_DAILY_RANGE = Duration.ofDays(400);
+
+    private final SupabaseService supabaseService;
+
+    public AnalyticsController(SupabaseService supabaseService) {
+        this.supabaseService = supabaseService;
+    }
+
+    /**
+     * Counts per bucket from {@code from} (inclusive) to {@code to}
+     * (exclusive), one entry per bucket including empty ones. Bounds are
+     * ISO instants or dates (start of that Dhaka day); by default the last
+     * 48 hours or 30 days.
+     */
+    @GetMapping("/timeseries")
+    public Mono<ResponseEntity<Map<String, Object>>> getTimeseries(
+            @RequestParam(defaultValue = "complaints") String source,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(defaultValue = "total") String dimension,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+
+        if (!"complaints".equals(source) && !"emergencies".equals(source)) {
+            return badRequest("source must be complaints or emergencies");
+        }
+        if (!"hour".equals(granularity) && !"day".equals(granularity)) {
+            return badRequest("granularity must be hour or day");
+        }
+        boolean hourly = "hour".equals(granularity);
+        if ("emergencies".equals(source) ? !"total".equals(dimension) : !COMPLAINT_DIMENSIONS.contains(dimension)) {
+            return badRequest("dimension must be one of " + ("emergencies".equals(source)
+                    ? "total" : "total, status, category, thana, priority"));
+        }
+
+        Instant end;
+        Instant start;
+        try {
+            end = to == null ? bucketStart(Instant.now(), hourly, 1) : TimeBounds.parse(to);
+            start = from == null ? bucketStart(end, hourly, hourly ? -48 : -30) : TimeBounds.parse(from);
+        } catch (Exception e) {
+            return badRequest("from and to must be ISO instants or dates");
+        }
+        start = bucketStart(start, hourly, 0);
+        if (!start.isBefore(end)) {
+            return badRequest("from must be before to");
+        }
+        if (Duration.between(start, end).compareTo(hourly ? MAX_HOURLY_RANGE : MAX_DAILY_RANGE) > 0) {
+            return badRequest("range too long for " + granularity + " buckets");
+        }
+
+        Instant rangeStart = start;
+        return supabaseService.getRollups(source, granularity, dimension, start.toString(), end.toString())
+                .map(rows -> {
+                    // bucket start -> value -> count
+                    Map<Instant, Map<String, Long>> counts = new HashMap<>();
+                    for (ActivityRollup row : rows) {
+                        if (row.count() == null || row.count() <= 0) {
+                            continue;
+                        }
+                        counts.computeIfAbsent(OffsetDateTime.parse(row.bucketStart()).toInstant(),
+                                k -> new LinkedHashMap<>()).put(row.value(), row.count());
+                    }
+
+                    List<Map<String, Object>> buckets = new ArrayList<>();
+                    for (Instant b = rangeStart; b.isBefore(end); b = bucketStart(b, hourly, 1)) {
+                        Map<String, Object> bucket = new LinkedHashMap<>();
+                        bucket.put("start", b.toString());
+                        bucket.put("counts", counts.getOrDefault(b, Map.of()));
+                        buckets.add(bucket);
+                    }
+
+                    Map<String, Object> out = new LinkedHashMap<>();
+                    out.put("source", source);
+                    out.put("granularity", granularity);
+                    out.put("dimension", dimension);
+                    out.put("from", rangeStart.toString());
+                    out.put("to", end.toString());
+                    out.put("buckets", buckets);
+                    return ResponseEntity.ok(out);
+                });
+    }
+
+    /** Start of the bucket {@code offset} buckets away from the one containing {@code at}. */
+    private static Instant bucketStart(Instant at, boolean hourly, int offset) {
+        if (hourly) {
+            return at.truncatedTo(ChronoUnit.HOURS).plus(offset, ChronoUnit.HOURS);
+        }
+        return at.atZone(TimeBounds.DHAKA).truncatedTo(ChronoUnit.DAYS).plusDays(offset).toInstant();
+    }
+
+    private static Mono<ResponseEntity<Map<String, Object>>> badRequest(String error) {
+        return Mono.just(ResponseEntity.badRequest().body(Map.of("error", error)));
+    }
+}
@@ -4,6 +4,7 @@ import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.gson.GsonFactory;
+import com.jatriovijog.config.BlockingCalls;
 import com.jatriovijog.service.SupabaseService;
 import com.jatriovijog.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Value;
@@ -26,16 +27,19 @@ public class AuthController {
     private final SupabaseService supabaseService;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final BlockingCalls blockingCalls;
 
     @Value("${google.client.id}")
     private String googleClientId;
 
     public AuthController(SupabaseService supabaseService,
                           PasswordEncoder passwordEncoder,
-                          JwtUtil jwtUtil) {
+                          JwtUtil jwtUtil,
+                          BlockingCalls blockingCalls) {
         this.supabaseService = supabaseService;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.blockingCalls = blockingCalls;
     }
 
     @PostMapping("/signup")
@@ -57,13 +61,16 @@ public class AuthController {
                                 .body(Map.of("error", "Email already in use")));
                     }
 
-                    Map<String, Object> payload = new HashMap<>();
-                    payload.put("name", name);
-                    payload.put("email", email);
-                    payload.put("password", passwordEncoder.encode(password));
-                    payload.put("role", role);
-
-                    return supabaseService.createUser(payload)
+                    // BCrypt is deliberately slow; hash off the request thread
+                    return blockingCalls.call(() -> passwordEncoder.encode(password))
+                            .flatMap(hashed -> {
+                                Map<String, Object> payload = new HashMap<>();
+                                payload.put("name", name);
+                                payload.put("email", email);
+                                payload.put("password", hashed);
+                                payload.put("role", role);
+                                return supabaseService.createUser(payload);
+                            })
                             .map(user -> {
                                 user.remove("password");
                                 return ResponseEntity.ok().body(user);
@@ -92,12 +99,16 @@ public class AuthController {
                     Map<String, Object> user = (Map<String, Object>) users.get(0);
                     String hashed = (String) user.get("password");
 
-                    if (hashed == null || !passwordEncoder.matches(password, hashed)) {
+                    if (hashed == null) {
                         return Mono.just(ResponseEntity.status(401)
                                 .body(Map.of("error", "Invalid credentials")));
                     }
 
-                    return generateResponse(user, email);
+                    return blockingCalls.call(() -> passwordEncoder.matches(password, hashed))
+                            .flatMap(matches -> matches
+                                    ? generateResponse(user, email)
+                                    : Mono.just(ResponseEntity.status(401)
+                                            .body(Map.of("error", "Invalid credentials"))));
                 });
     }
 
@@ -106,7 +117,8 @@ public class AuthController {
         String idTokenString = request.get("credential");
         String role = request.getOrDefault("role", "user");
 
-        return Mono.fromCallable(() -> {
+        // Verification may fetch Google's signing keys, so it runs through BlockingCalls
+        return blockingCalls.call(() -> {
             // 1. Verify Google Token
             GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(new NetHttpTransport(), new GsonFactory())
                     .setAudience(Collections.singletonList(googleClientId))
@@ -135,11 +147,14 @@ public class AuthController {
                             Map<String, Object> newPayload = new HashMap<>();
                             newPayload.put("name", name);
                             newPayload.put("email", email);
-                            // Generate random password so DB doesn't complain
-                            newPayload.put("password", passwordEncoder.encode(UUID.randomUUID().toString()));
                             newPayload.put("role", role);
 
-                            return supabaseService.createUser(newPayload)
+                            // Generate random password so DB doesn't complain
+                            return blockingCalls.call(() -> passwordEncoder.encode(UUID.randomUUID().toString()))
+                                    .flatMap(hashed -> {
+                                        newPayload.put("password", hashed);
+                                        return supabaseService.createUser(newPayload);
+                                    })
                                     .flatMap(createdUser -> generateResponse(createdUser, email));
                         }
                     });
@@ -0,0 +1,41 @@
+package com.jatriovijog.controller;
+
+import com.jatriovijog.service.BusIncidentIndex;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-bus incident profiles served straight from {@link BusIncidentIndex}.
+ */
+@RestController
+@RequestMapping("/api/buses")
+public class BusController {
+
+    private final BusIncidentIndex busIncidentIndex;
+
+    public BusController(BusIncidentIndex busIncidentIndex) {
+        this.busIncidentIndex = busIncidentIndex;
+    }
+
+    @GetMapping("/{busNumber}/profile")
+    public ResponseEntity<Map<String, Object>> getProfile(@PathVariable String busNumber) {
+        if (!busIncidentIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        Map<String, Object> profile = busIncidentIndex.profile(busNumber);
+        return profile == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(profile);
+    }
+
+    @GetMapping("/risky")
+    public ResponseEntity<List<Map<String, Object>>> getRiskyBuses(
+            @RequestParam(defaultValue = "10") int limit) {
+        if (!busIncidentIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(busIncidentIndex.topRisky(Math.max(1, Math.min(limit, 100))));
+    }
+}
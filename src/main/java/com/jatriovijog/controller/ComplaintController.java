@@ -1,15 +1,33 @@
 package com.jatriovijog.controller;
 
+import com.jatriovijog.config.BlockingCalls;
+import com.jatriovijog.model.ColumnarRows;
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.ComplaintDuplicate;
+import com.jatriovijog.model.ComplaintSummary;
 import com.jatriovijog.service.AiAnalysisService;
-import com.jatriovijog.service.EmailService;
+import com.jatriovijog.service.BusIncidentIndex;
+import com.jatriovijog.service.ChangeLog;
+import com.jatriovijog.service.ComplaintExporter;
+import com.jatriovijog.service.EmailOutboxService;
+import com.jatriovijog.service.ResolutionReportService;
 import com.jatriovijog.service.SupabaseService;
 import com.jatriovijog.util.JwtUtil;
+import com.jatriovijog.util.TimeBounds;
 import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -20,35 +38,169 @@ public class ComplaintController {
     private final SupabaseService supabaseService;
     private final JwtUtil jwtUtil;
     private final AiAnalysisService aiAnalysisService;
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
+    private final ResolutionReportService resolutionReportService;
+    private final BusIncidentIndex busIncidentIndex;
+    private final ChangeLog changeLog;
+    private final BlockingCalls blockingCalls;
+    private final ComplaintExporter complaintExporter;
 
     // ✅ CONSTRUCTOR WITH DEBUG LOG
     public ComplaintController(SupabaseService supabaseService, JwtUtil jwtUtil, AiAnalysisService aiAnalysisService,
-            EmailService emailService) {
+            EmailOutboxService emailOutboxService, ResolutionReportService resolutionReportService,
+            BusIncidentIndex busIncidentIndex, ChangeLog changeLog, BlockingCalls blockingCalls,
+            ComplaintExporter complaintExporter) {
         this.supabaseService = supabaseService;
         this.jwtUtil = jwtUtil;
         this.aiAnalysisService = aiAnalysisService;
-        this.emailService = emailService;
+        this.emailOutboxService = emailOutboxService;
+        this.resolutionReportService = resolutionReportService;
+        this.busIncidentIndex = busIncidentIndex;
+        this.changeLog = changeLog;
+        this.blockingCalls = blockingCalls;
+        this.complaintExporter = complaintExporter;
 
         // 👇 THIS PROVES THE NEW CODE IS RUNNING
         System.out.println("🔥 COMPLAINT CONTROLLER LOADED WITH AI SERVICE! 🔥");
     }
 
+    // Full list with an ETag, or with ?since=<cursor> only what changed (see ListSync)
     @GetMapping
-    public Mono<List<Map<String, Object>>> getAllComplaints() {
-        return supabaseService.getComplaints();
+    public Mono<ResponseEntity<?>> getAllComplaints(
+            @RequestParam(required = false) String since,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (since != null) {
+            return ListSync.delta(changeLog, ChangeLog.COMPLAINTS, since,
+                    supabaseService::getComplaints, supabaseService::getComplaintsByIds);
+        }
+        return ListSync.list(changeLog, ChangeLog.COMPLAINTS, "full", ifNoneMatch, supabaseService::getComplaints);
     }
 
     @GetMapping("/summary")
-    public Mono<List<Map<String, Object>>> getComplaintsSummary() {
-        return supabaseService.getComplaintsSummary();
+    public Mono<ResponseEntity<?>> getComplaintsSummary(
+            @RequestParam(required = false) String since,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (since != null) {
+            return ListSync.delta(changeLog, ChangeLog.COMPLAINTS, since,
+                    supabaseService::getComplaintsSummary, supabaseService::getComplaintSummariesByIds);
+        }
+        return ListSync.list(changeLog, ChangeLog.COMPLAINTS, "summary", ifNoneMatch,
+                supabaseService::getComplaintsSummary);
+    }
+
+    // Same rows, column by column, for clients that send Accept: ColumnarRows.MEDIA_TYPE
+    @GetMapping(value = "/summary", produces = ColumnarRows.MEDIA_TYPE)
+    public Mono<ResponseEntity<?>> getComplaintsSummaryColumnar(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ListSync.list(changeLog, ChangeLog.COMPLAINTS, "summary-columnar", ifNoneMatch,
+                () -> supabaseService.getComplaintsSummary()
+                        .map(rows -> new ColumnarRows<>(ComplaintSummary.class, rows)));
     }
 
     @GetMapping("/bus/{busNumber}")
-    public Mono<List<Map<String, Object>>> getComplaintHistory(@PathVariable String busNumber) {
+    public Mono<List<Complaint>> getComplaintHistory(@PathVariable String busNumber) {
+        // Primary-key lookup of the ids the bus index already knows about
+        if (busIncidentIndex.isReady()) {
+            return supabaseService.getComplaintsByIds(busIncidentIndex.complaintIds(busNumber));
+        }
         return supabaseService.getHistoryByBus(busNumber);
     }
 
+    /**
+     * Every matching complaint as CSV or gzipped JSON Lines, streamed page by
+     * page (see {@link ComplaintExporter}). {@code columns} picks and orders
+     * the columns; photos are left out unless {@code includeMedia=true}.
+     * {@code from} / {@code to} bound created_at like the analytics endpoints.
+     * The rows carry reporters' names, emails and phone numbers, so police
+     * only.
+     *
+     * Written on the request thread rather than as a Mono or async body, so a
+     * long export is not cut off by the async request timeout. Errors come
+     * back as a ResponseEntity; once the file is written the method returns
+     * null, which tells Spring the response is already handled.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<Map<String, Object>> exportComplaints(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) List<String> columns,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String thana,
+            @RequestParam(defaultValue = "false") boolean includeMedia,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            HttpServletResponse response) throws IOException {
+
+        Claims claims = claims(authHeader);
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!"police".equals(claims.get("role"))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        ComplaintExporter.Format exportFormat;
+        try {
+            exportFormat = ComplaintExporter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return exportBadRequest("format must be csv or jsonl");
+        }
+
+        List<String> selected = new ArrayList<>();
+        for (String column : columns == null ? ComplaintExporter.COLUMNS : columns) {
+            String c = column.trim();
+            if (!ComplaintExporter.COLUMNS.contains(c)) {
+                return exportBadRequest("columns must be from " + String.join(", ", ComplaintExporter.COLUMNS));
+            }
+            // Photos are inline base64: only when asked for, by name or includeMedia
+            if (!selected.contains(c) && (columns != null || !ComplaintExporter.MEDIA_COLUMN.equals(c))) {
+                selected.add(c);
+            }
+        }
+        if (includeMedia && !selected.contains(ComplaintExporter.MEDIA_COLUMN)) {
+            selected.add(ComplaintExporter.MEDIA_COLUMN);
+        }
+        if (selected.isEmpty()) {
+            return exportBadRequest("no columns selected");
+        }
+
+        String fromBound;
+        String toBound;
+        try {
+            fromBound = from == null ? null : TimeBounds.parse(from).toString();
+            toBound = to == null ? null : TimeBounds.parse(to).toString();
+        } catch (Exception e) {
+            return exportBadRequest("from and to must be ISO instants or dates");
+        }
+        String thanaFilter = thana == null || thana.isBlank() ? null : thana.trim();
+
+        boolean csv = exportFormat == ComplaintExporter.Format.CSV;
+        String fileName = "complaints-" + LocalDate.now(TimeBounds.DHAKA) + (csv ? ".csv" : ".jsonl.gz");
+        response.setContentType(csv ? "text/csv; charset=UTF-8" : "application/gzip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        long started = System.currentTimeMillis();
+        long rows = complaintExporter.export(exportFormat, selected, fromBound, toBound, thanaFilter,
+                response.getOutputStream());
+        System.out.println("📤 Exported " + rows + " complaints as " + fileName + " in "
+                + (System.currentTimeMillis() - started) + " ms");
+        return null;
+    }
+
+    private static ResponseEntity<Map<String, Object>> exportBadRequest(String error) {
+        return ResponseEntity.badRequest().body(Map.of("error", error));
+    }
+
+    private Claims claims(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtUtil.validateToken(authHeader.substring("Bearer ".length()).trim());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     @PostMapping
     public Mono<Map<String, Object>> createComplaint(
             @RequestBody Map<String, Object> payload,
@@ -68,37 +220,41 @@ public class ComplaintController {
         // DUPLICATE DETECTION AND MERGING
         // ---------------------------------------------------------
         if (busName != null && busNumber != null && description != null) {
-            // A. Find open complaints for this bus
-            return supabaseService.getOpenComplaintsByBus(busName, busNumber)
+            // A. Find open complaints for this bus (via the bus index when it is built)
+            Mono<List<Complaint>> openComplaints = busIncidentIndex.isReady()
+                    ? supabaseService.getComplaintsByIds(busIncidentIndex.openComplaintIds(busName, busNumber))
+                    : supabaseService.getOpenComplaintsByBus(busName, busNumber);
+
+            return openComplaints
                     .flatMap(existingList -> {
-                        // B. Check Duplicate via AI (Blocking call wrapped in Mono)
-                        if (!existingList.isEmpty()) {
-                            long matchId = aiAnalysisService.checkDuplicate(description, existingList);
-
-                            if (matchId != -1) {
-                                System.out.println("🔄 Duplicate Complaint Detected! Matching ID: " + matchId);
-
-                                // Find the specific parent complaint
-                                Map<String, Object> parent = existingList.stream()
-                                        .filter(c -> ((Number) c.get("id")).longValue() == matchId)
-                                        .findFirst()
-                                        .orElse(null);
-
-                                if (parent != null) {
-                                    String oldDesc = (String) parent.get("description");
-                                    // Append new info
-                                    String newDesc = oldDesc + "\n\n[Duplicate Report " + java.time.LocalDateTime.now()
-                                            + "]: " + description;
-
-                                    Map<String, Object> updatePayload = new HashMap<>();
-                                    updatePayload.put("description", newDesc);
-
-                                    return supabaseService.updateComplaint(matchId, updatePayload);
-                                }
-                            }
+                        if (existingList.isEmpty()) {
+                            return finalizeAndCreateComplaint(fixed, payload, authHeader);
                         }
-                        // No duplicate found, proceed to create new
-                        return finalizeAndCreateComplaint(fixed, payload, authHeader);
+                        // B. Check Duplicate via AI (blocking call, run through BlockingCalls)
+                        return blockingCalls.call(() -> aiAnalysisService.checkDuplicate(description, existingList))
+                                .flatMap(matchId -> {
+                                    if (matchId != -1) {
+                                        System.out.println("🔄 Duplicate Complaint Detected! Matching ID: " + matchId);
+
+                                        // Find the specific parent complaint
+                                        Complaint parent = existingList.stream()
+                                                .filter(c -> matchId.equals(c.id()))
+                                                .findFirst()
+                                                .orElse(null);
+
+                                        if (parent != null) {
+                                            // Link the report to its parent; the parent row itself stays as it is
+                                            Map<String, Object> link = new HashMap<>();
+                                            link.put("description", description);
+                                            link.put("reporter_type", payload.get("reporterType"));
+                                            link.put("user_id", resolveUserId(payload, authHeader));
+
+                                            return supabaseService.linkDuplicateReport(matchId, link);
+                                        }
+                                    }
+                                    // No duplicate found, proceed to create new
+                                    return finalizeAndCreateComplaint(fixed, payload, authHeader);
+                                });
                     });
         }
 
@@ -107,6 +263,13 @@ public class ComplaintController {
 
     private Mono<Map<String, Object>> finalizeAndCreateComplaint(Map<String, Object> fixed, Map<String, Object> payload,
             String authHeader) {
+        // The AI analysis blocks on Groq, so the row is built off the request thread
+        return blockingCalls.call(() -> buildComplaintRow(fixed, payload, authHeader))
+                .flatMap(supabaseService::createComplaint);
+    }
+
+    private Map<String, Object> buildComplaintRow(Map<String, Object> fixed, Map<String, Object> payload,
+            String authHeader) {
         String description = (String) fixed.get("description");
 
         // --- START AI INTEGRATION ---
@@ -128,6 +291,12 @@ public class ComplaintController {
                 // Boolean.parseBoolean returns false if null, so this is safe
                 isFake = Boolean.parseBoolean(analysis.get("is_fake"));
 
+                // Keep the English translation for search (only when it differs)
+                String translated = analysis.get("translated_text");
+                if (translated != null && !translated.isBlank() && !translated.equals(description)) {
+                    fixed.put("translated_text", translated);
+                }
+
                 if (isFake) {
                     // ⛔ IF FAKE: Force status to 'fake', priority 'Low', category 'Spam'
                     System.out.println("⛔ Detected FAKE complaint. Marking as Spam.");
@@ -171,21 +340,15 @@ public class ComplaintController {
             fixed.put("status", payload.getOrDefault("status", "new"));
         }
 
-        fixed.put("thana", payload.get("thana"));
-        fixed.put("route", payload.get("route"));
-        fixed.put("bus_name", payload.get("busName"));
-        fixed.put("bus_number", payload.get("busNumber"));
-        fixed.put("image_url", payload.get("imageUrl"));
-        fixed.put("reporter_type", payload.get("reporterType"));
-        fixed.put("created_at", payload.get("createdAt"));
-        fixed.put("reporter_name", payload.get("reporterName"));
-        fixed.put("reporter_email", payload.get("reporterEmail"));
-        fixed.put("reporter_phone", payload.get("reporterPhone"));
-        fixed.put("company_name", payload.get("companyName"));
-        fixed.put("landmark", payload.get("landmark"));
-        fixed.put("seat_info", payload.get("seatInfo"));
+        copyStandardFields(payload, fixed);
+
+        fixed.put("user_id", resolveUserId(payload, authHeader));
 
-        // User ID Logic
+        return fixed;
+    }
+
+    // User ID Logic: the token's user, else the one in the body, else user 1
+    private Object resolveUserId(Map<String, Object> payload, String authHeader) {
         Object userId = null;
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             try {
@@ -198,7 +361,30 @@ public class ComplaintController {
         if (userId == null) {
             userId = payload.getOrDefault("userId", 1);
         }
-        fixed.put("user_id", userId);
+        return userId;
+    }
+
+    /**
+     * Copy the client-settable complaint columns from the request body
+     * (camelCase) into the insert row (snake_case). Anything else in the
+     * body is ignored. Without a createdAt the database stamps the row.
+     */
+    public static void copyStandardFields(Map<String, Object> payload, Map<String, Object> fixed) {
+        fixed.put("thana", payload.get("thana"));
+        fixed.put("route", payload.get("route"));
+        fixed.put("bus_name", payload.get("busName"));
+        fixed.put("bus_number", payload.get("busNumber"));
+        fixed.put("image_url", payload.get("imageUrl"));
+        fixed.put("reporter_type", payload.get("reporterType"));
+        // created_at is NOT NULL with a default; an explicit null would fail the insert
+        if (payload.get("createdAt") != null)
+            fixed.put("created_at", payload.get("createdAt"));
+        fixed.put("reporter_name", payload.get("reporterName"));
+        fixed.put("reporter_email", payload.get("reporterEmail"));
+        fixed.put("reporter_phone", payload.get("reporterPhone"));
+        fixed.put("company_name", payload.get("companyName"));
+        fixed.put("landmark", payload.get("landmark"));
+        fixed.put("seat_info", payload.get("seatInfo"));
 
         // Location fields
         if (payload.containsKey("latitude"))
@@ -207,8 +393,12 @@ public class ComplaintController {
             fixed.put("longitude", payload.get("longitude"));
         if (payload.containsKey("accuracy"))
             fixed.put("accuracy", payload.get("accuracy"));
+    }
 
-        return supabaseService.createComplaint(fixed);
+    /** Reports merged into this complaint as duplicates, newest first. */
+    @GetMapping("/{id}/duplicates")
+    public Mono<List<ComplaintDuplicate>> getDuplicateReports(@PathVariable("id") long id) {
+        return supabaseService.getDuplicateReports(id);
     }
 
     @PatchMapping("/{id}/status")
@@ -251,8 +441,8 @@ public class ComplaintController {
             return Mono.just(Map.of("error", "No text provided"));
         }
 
-        // Wrap the blocking Service call in Mono so it works with WebFlux
-        return Mono.fromCallable(() -> aiAnalysisService.parseComplaintFromChat(chatText));
+        // Blocking Groq call, run through BlockingCalls
+        return blockingCalls.call(() -> aiAnalysisService.parseComplaintFromChat(chatText));
     }
 
     // ✅ NEW ENDPOINT: RESOLVE COMPLAINT + AUTO EMAIL
@@ -261,14 +451,9 @@ public class ComplaintController {
             @PathVariable("id") long id,
             @RequestBody Map<String, String> body) {
         String actionTaken = body.get("actionTaken");
-        String busName = body.get("busName");
-        String category = body.get("category");
-
-        // 1. Generate Professional Email Content via AI
-        // (We do this eagerly, though ideally could be async too)
-        String emailBody = aiAnalysisService.generateActionReport(category, busName, actionTaken);
 
-        // 2. Update Status in Database & THEN Send Email using the returned data
+        // 1. Update Status in Database. The AI-written email is drafted in the
+        // background by ResolutionReportService, so this stays a fast write.
         return supabaseService.updateComplaintStatus(id, "resolved", actionTaken)
                 .flatMap(updatedComplaint -> {
                     // Extract email from the DB record
@@ -276,18 +461,21 @@ public class ComplaintController {
                     String dbEmail = (String) updatedComplaint.get("reporter_email");
 
                     if (dbEmail != null && !dbEmail.isEmpty()) {
-                        System.out.println("📧 Found reporter email: " + dbEmail + ". Sending update...");
-                        // Send Email asynchronously
-                        new Thread(() -> {
-                            emailService.sendResolutionEmail(
-                                    dbEmail,
-                                    "Complaint Resolved: Jatri Ovijog #" + id,
-                                    emailBody);
-                        }).start();
-                    } else {
-                        System.err.println("⚠️ No reporter_email found for complaint #" + id + ". Email not sent.");
+                        String busName = body.getOrDefault("busName", (String) updatedComplaint.get("bus_name"));
+                        String category = body.getOrDefault("category", (String) updatedComplaint.get("category"));
+
+                        System.out.println("📧 Found reporter email: " + dbEmail + ". Queueing update...");
+                        // 2. Queue the email; drafting and delivery happen off the request path
+                        return resolutionReportService.queueResolutionEmail(id, dbEmail, category, busName, actionTaken)
+                                .thenReturn(updatedComplaint)
+                                .onErrorResume(e -> {
+                                    System.err.println("❌ Failed to queue email for complaint #" + id + ": "
+                                            + e.getMessage());
+                                    return Mono.just(updatedComplaint);
+                                });
                     }
 
+                    System.err.println("⚠️ No reporter_email found for complaint #" + id + ". Email not sent.");
                     return Mono.just(updatedComplaint);
                 });
     }
@@ -303,15 +491,12 @@ public class ComplaintController {
         }
 
         // 1. Generate the content using AI (Blocking call wrapped in Mono)
-        return Mono.fromCallable(() -> {
-            String emailBody = aiAnalysisService.generateProjectEmail("Antigravity Research", details);
-
-            // 2. Send the email using your configured EmailService
-            emailService.sendResolutionEmail(
-                    recipient,
-                    "Project Update: Antigravity Research",
-                    emailBody);
-            return "Email sent successfully.";
-        });
+        return blockingCalls.call(() -> aiAnalysisService.generateProjectEmail("Antigravity Research", details))
+                // 2. Hand the email to the outbox for delivery
+                .flatMap(emailBody -> emailOutboxService.enqueue(
+                        recipient,
+                        "Project Update: Antigravity Research",
+                        emailBody))
+                .thenReturn("Email queued for delivery.");
     }
 }
\ No newline at end of file
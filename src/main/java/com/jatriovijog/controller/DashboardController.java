@@ -1,5 +1,9 @@
 package com.jatriovijog.controller;
 
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.ComplaintComment;
+import com.jatriovijog.model.ComplaintReaction;
+import com.jatriovijog.model.EmergencyReport;
 import com.jatriovijog.service.SupabaseService;
 import com.jatriovijog.util.JwtUtil;
 import io.jsonwebtoken.Claims;
@@ -12,7 +16,6 @@ import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * Personal dashboard endpoints. These are USER-SCOPED (filtered by user_id).
@@ -44,7 +47,7 @@ public class DashboardController {
     }
 
     @GetMapping("/my-complaints")
-    public Mono<ResponseEntity<List<Map<String, Object>>>> getMyComplaints(
+    public Mono<ResponseEntity<List<Complaint>>> getMyComplaints(
             @RequestHeader(name = "Authorization", required = false) String authHeader
     ) {
         Long userId = extractUserId(authHeader);
@@ -53,7 +56,7 @@ public class DashboardController {
     }
 
     @GetMapping("/my-emergencies")
-    public Mono<ResponseEntity<List<Map<String, Object>>>> getMyEmergencies(
+    public Mono<ResponseEntity<List<EmergencyReport>>> getMyEmergencies(
             @RequestHeader(name = "Authorization", required = false) String authHeader
     ) {
         Long userId = extractUserId(authHeader);
@@ -62,7 +65,7 @@ public class DashboardController {
     }
 
     @GetMapping("/my-comments")
-    public Mono<ResponseEntity<List<Map<String, Object>>>> getMyComments(
+    public Mono<ResponseEntity<List<ComplaintComment>>> getMyComments(
             @RequestHeader(name = "Authorization", required = false) String authHeader
     ) {
         Long userId = extractUserId(authHeader);
@@ -71,7 +74,7 @@ public class DashboardController {
     }
 
     @GetMapping("/my-reactions")
-    public Mono<ResponseEntity<List<Map<String, Object>>>> getMyReactions(
+    public Mono<ResponseEntity<List<ComplaintReaction>>> getMyReactions(
             @RequestHeader(name = "Authorization", required = false) String authHeader
     ) {
         Long userId = extractUserId(authHeader);
@@ -1,12 +1,17 @@
 package com.jatriovijog.controller;
 
+import com.jatriovijog.config.BlockingCalls;
+import com.jatriovijog.model.ColumnarRows;
+import com.jatriovijog.model.EmergencySummary;
+import com.jatriovijog.service.ChangeLog;
 import com.jatriovijog.service.SupabaseService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -15,68 +20,54 @@ public class EmergencyController {
 
     private final SupabaseService supabaseService;
     private final com.jatriovijog.service.ImageAnalysisService imageAnalysisService;
+    private final ChangeLog changeLog;
+    private final BlockingCalls blockingCalls;
 
     public EmergencyController(SupabaseService supabaseService,
-            com.jatriovijog.service.ImageAnalysisService imageAnalysisService) {
+            com.jatriovijog.service.ImageAnalysisService imageAnalysisService, ChangeLog changeLog,
+            BlockingCalls blockingCalls) {
         this.supabaseService = supabaseService;
         this.imageAnalysisService = imageAnalysisService;
+        this.changeLog = changeLog;
+        this.blockingCalls = blockingCalls;
     }
 
+    // Full list with an ETag, or with ?since=<cursor> only the new reports (see ListSync)
     @GetMapping
-    public Mono<List<Map<String, Object>>> getAllEmergencies() {
-        return supabaseService.getEmergencies();
+    public Mono<ResponseEntity<?>> getAllEmergencies(
+            @RequestParam(required = false) String since,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (since != null) {
+            return ListSync.delta(changeLog, ChangeLog.EMERGENCIES, since,
+                    supabaseService::getEmergencies, supabaseService::getEmergenciesByIds);
+        }
+        return ListSync.list(changeLog, ChangeLog.EMERGENCIES, "full", ifNoneMatch, supabaseService::getEmergencies);
     }
 
     @GetMapping("/summary")
-    public Mono<List<Map<String, Object>>> getEmergenciesSummary() {
-        return supabaseService.getEmergenciesSummary();
+    public Mono<ResponseEntity<?>> getEmergenciesSummary(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ListSync.list(changeLog, ChangeLog.EMERGENCIES, "summary", ifNoneMatch,
+                supabaseService::getEmergenciesSummary);
+    }
+
+    // Same rows, column by column, for clients that send Accept: ColumnarRows.MEDIA_TYPE
+    @GetMapping(value = "/summary", produces = ColumnarRows.MEDIA_TYPE)
+    public Mono<ResponseEntity<?>> getEmergenciesSummaryColumnar(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ListSync.list(changeLog, ChangeLog.EMERGENCIES, "summary-columnar", ifNoneMatch,
+                () -> supabaseService.getEmergenciesSummary()
+                        .map(rows -> new ColumnarRows<>(EmergencySummary.class, rows)));
     }
 
     @PostMapping
     public Mono<Map<String, Object>> createEmergency(@Valid @RequestBody Map<String, Object> payload) {
-        return Mono.fromCallable(() -> {
-            // ✅ whitelist fields to prevent mass-assignment
-            Map<String, Object> fixed = new HashMap<>();
-
-            // map known camelCase keys to snake_case (only if present)
-            if (payload.containsKey("audioUrl"))
-                fixed.put("audio_url", payload.get("audioUrl"));
-            // FIX: Frontend sends 'audio' (Base64), map it to 'audio_url' column
-            if (payload.containsKey("audio"))
-                fixed.put("audio_url", payload.get("audio"));
-
-            // Image support
-            if (payload.containsKey("imageUrl"))
-                fixed.put("image_url", payload.get("imageUrl"));
-            if (payload.containsKey("image"))
-                fixed.put("image_url", payload.get("image"));
-
-            if (payload.containsKey("userId"))
-                fixed.put("user_id", payload.get("userId"));
-
-            // allow common geo fields if present
-            if (payload.containsKey("latitude"))
-                fixed.put("latitude", payload.get("latitude"));
-            if (payload.containsKey("longitude"))
-                fixed.put("longitude", payload.get("longitude"));
-            if (payload.containsKey("accuracy"))
-                fixed.put("accuracy", payload.get("accuracy"));
-
-            // optional metadata fields (only include if you actually have these columns)
-            if (payload.containsKey("label"))
-                fixed.put("label", payload.get("label"));
-            if (payload.containsKey("notes"))
-                fixed.put("notes", payload.get("notes"));
-
-            return fixed;
-        })
-                .subscribeOn(reactor.core.scheduler.Schedulers.boundedElastic())
+        return blockingCalls.call(() -> whitelist(payload))
                 .flatMap(fixed -> {
                     String imageUrl = (String) fixed.get("image_url");
                     if (imageUrl != null && !imageUrl.isBlank()) {
                         // If there's an image, analyze it
-                        return Mono.fromCallable(() -> imageAnalysisService.analyzeImage(imageUrl))
-                                .subscribeOn(reactor.core.scheduler.Schedulers.boundedElastic())
+                        return blockingCalls.call(() -> imageAnalysisService.analyzeImage(imageUrl))
                                 .map(analysis -> {
                                     // Add the analysis result to the payload
                                     // Note: Ensure your Database table 'emergency_reports' has a 'description'
@@ -95,4 +86,45 @@ public class EmergencyController {
                 })
                 .flatMap(supabaseService::createEmergency);
     }
+
+    /**
+     * Keep only the known SOS fields from the request body, mapped to their
+     * column names.
+     */
+    public static Map<String, Object> whitelist(Map<String, Object> payload) {
+        // ✅ whitelist fields to prevent mass-assignment
+        Map<String, Object> fixed = new HashMap<>();
+
+        // map known camelCase keys to snake_case (only if present)
+        if (payload.containsKey("audioUrl"))
+            fixed.put("audio_url", payload.get("audioUrl"));
+        // FIX: Frontend sends 'audio' (Base64), map it to 'audio_url' column
+        if (payload.containsKey("audio"))
+            fixed.put("audio_url", payload.get("audio"));
+
+        // Image support
+        if (payload.containsKey("imageUrl"))
+            fixed.put("image_url", payload.get("imageUrl"));
+        if (payload.containsKey("image"))
+            fixed.put("image_url", payload.get("image"));
+
+        if (payload.containsKey("userId"))
+            fixed.put("user_id", payload.get("userId"));
+
+        // allow common geo fields if present
+        if (payload.containsKey("latitude"))
+            fixed.put("latitude", payload.get("latitude"));
+        if (payload.containsKey("longitude"))
+            fixed.put("longitude", payload.get("longitude"));
+        if (payload.containsKey("accuracy"))
+            fixed.put("accuracy", payload.get("accuracy"));
+
+        // optional metadata fields (only include if you actually have these columns)
+        if (payload.containsKey("label"))
+            fixed.put("label", payload.get("label"));
+        if (payload.containsKey("notes"))
+            fixed.put("notes", payload.get("notes"));
+
+        return fixed;
+    }
 }
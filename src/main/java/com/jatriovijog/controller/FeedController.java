@@ -1,8 +1,13 @@
 package com.jatriovijog.controller;
 
+import com.jatriovijog.model.ComplaintComment;
+import com.jatriovijog.service.ReactionWriteBuffer;
 import com.jatriovijog.service.SupabaseService;
 import com.jatriovijog.util.JwtUtil;
 import io.jsonwebtoken.Claims;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
@@ -16,15 +21,17 @@ import java.util.Map;
 public class FeedController {
 
     private final SupabaseService supabase;
+    private final ReactionWriteBuffer reactions;
     private final JwtUtil jwtUtil;
 
-    public FeedController(SupabaseService supabase, JwtUtil jwtUtil) {
+    public FeedController(SupabaseService supabase, ReactionWriteBuffer reactions, JwtUtil jwtUtil) {
         this.supabase = supabase;
+        this.reactions = reactions;
         this.jwtUtil = jwtUtil;
     }
 
     @GetMapping("/complaints/{id}/comments")
-    public Mono<List<Map<String, Object>>> getComments(@PathVariable Long id) {
+    public Mono<List<ComplaintComment>> getComments(@PathVariable Long id) {
         return supabase.listComments(id);
     }
 
@@ -53,7 +60,7 @@ public class FeedController {
             return supabase.getUserById(userId)
                     .flatMap(users -> {
                         if (!users.isEmpty()) {
-                            String realName = (String) users.get(0).get("name");
+                            String realName = users.get(0).name();
                             if (realName != null && !realName.isBlank()) {
                                 fixed.put("author_name", realName);
                             }
@@ -69,36 +76,34 @@ public class FeedController {
     public Mono<Map<String, Object>> getReactionCounts(
             @PathVariable Long id,
             @RequestParam(required = false) String clientId) {
-        return supabase.getReactionCounts(id, clientId);
+        return reactions.counts(id, clientId);
     }
 
     @PostMapping("/complaints/{id}/reactions")
-    public Mono<Map<String, Object>> toggleReaction(
+    public Mono<ResponseEntity<Map<String, Object>>> toggleReaction(
             @PathVariable Long id,
             @RequestBody Map<String, Object> payload,
             @RequestHeader(value = "Authorization", required = false) String authHeader) {
         // ✅ whitelist fields (and enforce clientId)
-        Map<String, Object> fixed = new HashMap<>();
-        fixed.put("complaint_id", id);
-
         Object reactionType = payload.get("reactionType");
         if (reactionType == null) {
             return Mono.error(new RuntimeException("reactionType is required"));
         }
-        fixed.put("reactionType", String.valueOf(reactionType));
 
         Object clientId = payload.get("clientId");
         if (clientId == null || String.valueOf(clientId).isBlank()) {
             return Mono.error(new RuntimeException("clientId is required"));
         }
-        fixed.put("clientId", String.valueOf(clientId));
-
-        Long userId = extractUserId(authHeader);
-        if (userId != null) {
-            fixed.put("user_id", userId);
-        }
 
-        return supabase.toggleReaction(fixed);
+        // Buffered and written in bulk shortly after (see ReactionWriteBuffer).
+        // A full buffer is a 503 with Retry-After, like a shed request
+        return reactions.submit(id, String.valueOf(clientId), String.valueOf(reactionType),
+                        extractUserId(authHeader))
+                .map(ResponseEntity::ok)
+                .onErrorResume(ReactionWriteBuffer.BufferFullException.class, e -> Mono.just(
+                        ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.retryAfterSeconds()))
+                                .body(Map.of("error", e.getMessage()))));
     }
 
     private Long extractUserId(String authHeader) {
@@ -0,0 +1,67 @@
+package com.jatriovijog.controller;
+
+import com.jatriovijog.service.ComplaintSearchIndex;
+import com.jatriovijog.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-side complaint search backed by {@link ComplaintSearchIndex}.
+ */
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private final ComplaintSearchIndex searchIndex;
+    private final JwtUtil jwtUtil;
+
+    public SearchController(ComplaintSearchIndex searchIndex, JwtUtil jwtUtil) {
+        this.searchIndex = searchIndex;
+        this.jwtUtil = jwtUtil;
+    }
+
+    @GetMapping("/complaints")
+    public Map<String, Object> searchComplaints(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "50") int limit) {
+        List<Map<String, Object>> hits = searchIndex.search(query, Math.max(1, Math.min(limit, 500)));
+
+        Map<String, Object> out = new HashMap<>();
+        out.put("query", query);
+        out.put("total", hits.size());
+        out.put("hits", hits);
+        return out;
+    }
+
+    // A full-table reload, so police only; concurrent calls share one rebuild
+    @PostMapping("/rebuild")
+    public Mono<ResponseEntity<Map<String, Object>>> rebuild(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        Claims claims = claims(authHeader);
+        if (claims == null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+        if (!"police".equals(claims.get("role"))) {
+            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+        }
+        return searchIndex.rebuild().map(count -> ResponseEntity.ok(Map.of("indexed", count)));
+    }
+
+    private Claims claims(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtUtil.validateToken(authHeader.substring("Bearer ".length()).trim());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.jatriovijog.controller;
+
+import com.jatriovijog.service.SurgeDetector;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Complaint and SOS surges spotted by {@link SurgeDetector}.
+ */
+@RestController
+@RequestMapping("/api/surges")
+public class SurgeController {
+
+    private final SurgeDetector surgeDetector;
+
+    public SurgeController(SurgeDetector surgeDetector) {
+        this.surgeDetector = surgeDetector;
+    }
+
+    @GetMapping
+    public Map<String, Object> getSurges(@RequestParam(defaultValue = "20") int limit) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("windowMinutes", surgeDetector.windowMinutes());
+        out.put("surges", surgeDetector.recent(Math.max(1, Math.min(limit, 500))));
+        return out;
+    }
+
+    /** Window count against the usual level for one key, e.g. dimension=thana&key=Mirpur. */
+    @GetMapping("/estimate")
+    public Map<String, Object> getEstimate(@RequestParam String dimension, @RequestParam String key) {
+        return surgeDetector.estimate(dimension, key);
+    }
+}
@@ -0,0 +1,32 @@
+package com.jatriovijog.controller;
+
+import com.jatriovijog.service.TriageQueue;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Ranked police work list served straight from {@link TriageQueue}.
+ */
+@RestController
+@RequestMapping("/api/triage")
+public class TriageController {
+
+    private final TriageQueue triageQueue;
+
+    public TriageController(TriageQueue triageQueue) {
+        this.triageQueue = triageQueue;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getQueue(
+            @RequestParam(required = false) String thana,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (!triageQueue.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(triageQueue.top(thana, Math.max(1, Math.min(limit, 500))));
+    }
+}
@@ -0,0 +1,18 @@
+package com.jatriovijog.event;
+
+import java.util.Map;
+
+/**
+ * Published by {@link com.jatriovijog.service.SupabaseService} after every
+ * successful write to the complaints table. In-memory indexes listen to this
+ * instead of re-reading the table.
+ *
+ * For CREATED and UPDATED, {@code row} is the representation returned by the
+ * database after the write. For DELETED it is empty.
+ */
+public record ComplaintChangedEvent(Type type, long id, Map<String, Object> row) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
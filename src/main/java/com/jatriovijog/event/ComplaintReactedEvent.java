@@ -0,0 +1,10 @@
+package com.jatriovijog.event;
+
+/**
+ * Published by {@link com.jatriovijog.service.ReactionWriteBuffer} when a
+ * client reacts to a complaint, as soon as the tap is accepted (before it is
+ * written). A client has at most one reaction per complaint, so listeners
+ * count distinct {@code clientId}s.
+ */
+public record ComplaintReactedEvent(long complaintId, String clientId) {
+}
@@ -0,0 +1,14 @@
+package com.jatriovijog.event;
+
+import java.util.Map;
+
+/**
+ * Published by {@link com.jatriovijog.service.SupabaseService} whenever a
+ * report about a complaint arrives: a new complaint, or a duplicate report
+ * linked to an open one. {@code complaint} is the complaint as stored
+ * afterwards (for a duplicate, its parent). Listeners that count arrivals
+ * use this instead of {@link ComplaintChangedEvent}, since an UPDATED
+ * change is just as likely an edit or a status change.
+ */
+public record ComplaintReportedEvent(long complaintId, boolean duplicate, Map<String, Object> complaint) {
+}
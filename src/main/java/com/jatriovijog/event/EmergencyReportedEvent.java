@@ -0,0 +1,11 @@
+package com.jatriovijog.event;
+
+import java.util.Map;
+
+/**
+ * Published by {@link com.jatriovijog.service.SupabaseService} after a new
+ * SOS report is stored. {@code row} is the representation returned by the
+ * database.
+ */
+public record EmergencyReportedEvent(long id, Map<String, Object> row) {
+}
@@ -0,0 +1,22 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * One row of {@code activity_rollups}: how many complaints or SOS reports
+ * made in one hour or day have a given value of a dimension (status,
+ * category, thana, priority, or {@code total}/{@code all}). Maintained by
+ * database triggers, see {@code V6__activity_rollups.sql}.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record ActivityRollup(
+        String bucketStart,
+        String value,
+        Long count) {
+
+    /** Columns to select for this projection. */
+    public static final String COLUMNS = "bucket_start,value,count";
+}
@@ -0,0 +1,75 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.std.BeanSerializerBase;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A list of rows written column by column, for the map and summary
+ * endpoints that ship thousands of small rows:
+ *
+ * <pre>
+ * {"count": 2, "columns": {"id": [1, 2], "status": ["new", "resolved"], ...}}
+ * </pre>
+ *
+ * Each field name appears once instead of once per row, and the repeated
+ * values (status, category, thana) sit next to each other, which is what
+ * gzip compresses best. Column names and values are exactly those of the
+ * row type's normal JSON, so {@code decodeColumnar} in police-dashboard.js
+ * turns it back into the usual array of objects.
+ *
+ * Served when the client asks for {@link #MEDIA_TYPE}.
+ */
+@JsonSerialize(using = ColumnarRows.Serializer.class)
+public record ColumnarRows<T>(Class<T> type, List<T> rows) {
+
+    public static final String MEDIA_TYPE = "application/vnd.jatri.columnar+json";
+
+    static class Serializer extends StdSerializer<ColumnarRows<?>> {
+
+        @SuppressWarnings("unchecked")
+        Serializer() {
+            super((Class<ColumnarRows<?>>) (Class<?>) ColumnarRows.class);
+        }
+
+        @Override
+        public void serialize(ColumnarRows<?> value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            // The row type's own bean serializer supplies the column names
+            // (snake_case) and the accessors, so values match the row JSON
+            JsonSerializer<Object> rowSerializer = provider.findValueSerializer(value.type());
+            if (!(rowSerializer instanceof BeanSerializerBase bean)) {
+                throw JsonMappingException.from(gen, "Cannot write " + value.type().getName() + " as columns");
+            }
+
+            gen.writeStartObject();
+            gen.writeNumberField("count", value.rows().size());
+            gen.writeObjectFieldStart("columns");
+            for (Iterator<PropertyWriter> it = bean.properties(); it.hasNext();) {
+                PropertyWriter column = it.next();
+                gen.writeArrayFieldStart(column.getName());
+                for (Object row : value.rows()) {
+                    try {
+                        column.serializeAsElement(row, gen, provider);
+                    } catch (IOException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw JsonMappingException.from(gen, "Failed to write column " + column.getName(), e);
+                    }
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+    }
+}
@@ -1,50 +1,39 @@
 package com.jatriovijog.model;
 
-public class Complaint {
-    private Long id;
-    private String category;
-    private String status;
-    private String thana;
-    private String route;
-    private String busName;
-    private String busNumber;
-    private String imageUrl;
-    private String reporterType;
-    private String description;
-    private String createdAt;
-
-    public Complaint() {}
-
-    public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
-
-    public String getCategory() { return category; }
-    public void setCategory(String category) { this.category = category; }
-
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
-
-    public String getThana() { return thana; }
-    public void setThana(String thana) { this.thana = thana; }
-
-    public String getRoute() { return route; }
-    public void setRoute(String route) { this.route = route; }
-
-    public String getBusName() { return busName; }
-    public void setBusName(String busName) { this.busName = busName; }
-
-    public String getBusNumber() { return busNumber; }
-    public void setBusNumber(String busNumber) { this.busNumber = busNumber; }
-
-    public String getImageUrl() { return imageUrl; }
-    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
-
-    public String getReporterType() { return reporterType; }
-    public void setReporterType(String reporterType) { this.reporterType = reporterType; }
-
-    public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
-
-    public String getCreatedAt() { return createdAt; }
-    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * A full row of the complaints table ({@code select=*}). Serialized with the
+ * column names, so API responses keep the snake_case shape the frontend reads.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record Complaint(
+        Long id,
+        String category,
+        String status,
+        String priority,
+        String thana,
+        String route,
+        String busName,
+        String busNumber,
+        String imageUrl,
+        String reporterType,
+        String description,
+        String translatedText,
+        String verificationNote,
+        Double latitude,
+        Double longitude,
+        Double accuracy,
+        String reporterName,
+        String reporterEmail,
+        String reporterPhone,
+        String companyName,
+        String landmark,
+        String seatInfo,
+        String createdAt,
+        Long userId,
+        Integer reportCount) {
 }
@@ -1,10 +1,16 @@
 package com.jatriovijog.model;
 
-public class ComplaintComment {
-     public Long id;
-  public Long complaint_id;
-  public Long user_id;
-  public String author_name;
-  public String body;
-  public String created_at;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record ComplaintComment(
+        Long id,
+        Long complaintId,
+        Long userId,
+        String authorName,
+        String body,
+        String createdAt) {
 }
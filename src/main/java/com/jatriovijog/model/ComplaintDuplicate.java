@@ -0,0 +1,20 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * A report that duplicated an open complaint and was linked to it
+ * ({@code complaint_duplicates}) instead of becoming a complaint of its own.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record ComplaintDuplicate(
+        Long id,
+        Long parentId,
+        String description,
+        String reporterType,
+        Long userId,
+        String createdAt) {
+}
@@ -1,10 +1,16 @@
 package com.jatriovijog.model;
 
-public class ComplaintReaction {
-     public Long id;
-  public Long complaint_id;
-  public Long user_id;
-  public String client_id;
-  public String reaction_type;
-  public String created_at;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record ComplaintReaction(
+        Long id,
+        Long complaintId,
+        Long userId,
+        String clientId,
+        String reactionType,
+        String createdAt) {
 }
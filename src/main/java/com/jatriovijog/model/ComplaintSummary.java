@@ -0,0 +1,33 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * The complaint columns the feed and dashboard lists need. Leaves out
+ * image_url (inline base64 photos) and the reporter's contact details.
+ * report_count says how many duplicate reports were merged into the row.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record ComplaintSummary(
+        Long id,
+        String status,
+        String priority,
+        String category,
+        String description,
+        String thana,
+        String route,
+        Double latitude,
+        Double longitude,
+        String createdAt,
+        String busName,
+        String busNumber,
+        String reporterType,
+        Double accuracy,
+        Integer reportCount) {
+
+    /** Columns to select for this projection. */
+    public static final String COLUMNS = "id,status,priority,category,description,thana,route,latitude,longitude,created_at,bus_name,bus_number,reporter_type,accuracy,report_count";
+}
@@ -1,34 +1,24 @@
 package com.jatriovijog.model;
 
-public class EmergencyReport {
-    private Long id;
-    private Double latitude;
-    private Double longitude;
-    private Double accuracy;
-    private String audioUrl;
-    private String createdAt;
-    private Long userId;
-
-    public EmergencyReport() {}
-
-    public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
-
-    public Double getLatitude() { return latitude; }
-    public void setLatitude(Double latitude) { this.latitude = latitude; }
-
-    public Double getLongitude() { return longitude; }
-    public void setLongitude(Double longitude) { this.longitude = longitude; }
-
-    public Double getAccuracy() { return accuracy; }
-    public void setAccuracy(Double accuracy) { this.accuracy = accuracy; }
-
-    public String getAudioUrl() { return audioUrl; }
-    public void setAudioUrl(String audioUrl) { this.audioUrl = audioUrl; }
-
-    public String getCreatedAt() { return createdAt; }
-    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
-
-    public Long getUserId() { return userId; }
-    public void setUserId(Long userId) { this.userId = userId; }
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * A full row of the emergency_reports table (SOS events).
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record EmergencyReport(
+        Long id,
+        Double latitude,
+        Double longitude,
+        Double accuracy,
+        String audioUrl,
+        String imageUrl,
+        String description,
+        String label,
+        String notes,
+        String createdAt,
+        Long userId) {
 }
@@ -0,0 +1,24 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * The emergency_reports columns the police map needs; leaves out audio_url.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record EmergencySummary(
+        Long id,
+        Double latitude,
+        Double longitude,
+        String createdAt,
+        Long userId,
+        Double accuracy,
+        String imageUrl,
+        String description) {
+
+    /** Columns to select for this projection. */
+    public static final String COLUMNS = "id,latitude,longitude,created_at,user_id,accuracy,image_url,description";
+}
@@ -0,0 +1,15 @@
+package com.jatriovijog.model;
+
+import java.util.List;
+
+/**
+ * Response of a list endpoint called with {@code ?since=<cursor>}.
+ *
+ * With {@code full = false}, {@code rows} holds the rows created or changed
+ * after the cursor and {@code deleted} the ids removed since. With
+ * {@code full = true} the cursor could not be served (too old, or from
+ * before a restart), and {@code rows} is the whole list. Either way the
+ * next call passes {@code cursor}.
+ */
+public record SyncDelta<T>(String cursor, boolean full, List<T> rows, List<Long> deleted) {
+}
@@ -1,26 +1,16 @@
 package com.jatriovijog.model;
 
-public class User {
-    private Long id;
-    private String name;
-    private String email;
-    private String password;
-    private String role;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
-    public User() {}
-
-    public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
-
-    public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
-
-    public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
-
-    public String getPassword() { return password; }
-    public void setPassword(String password) { this.password = password; }
-
-    public String getRole() { return role; }
-    public void setRole(String role) { this.role = role; }
+/**
+ * A row of the users table. The password hash is never serialized.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record User(
+        Long id,
+        String name,
+        String email,
+        @JsonProperty(access = JsonProperty.Access.WRITE_ONLY) String password,
+        String role) {
 }
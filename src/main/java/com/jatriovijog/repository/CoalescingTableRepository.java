@@ -0,0 +1,128 @@
+package com.jatriovijog.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Decorates a {@link TableRepository} so that identical reads in flight at
+ * the same time share one upstream call ("single flight"). When a hundred
+ * clients open the same complaint at once, the first request queries the
+ * store and the other 99 wait for its result instead of each sending their
+ * own query.
+ *
+ * Only typed selects and counts are coalesced. Their results are records and
+ * numbers, and the shared lists are handed out unmodifiable. Map rows are
+ * left alone, because callers edit them (the auth flow strips the password
+ * hash). Nothing is cached once a call finishes. A write to a table also
+ * detaches that table's in-flight reads, so a read that starts after a write
+ * has finished never joins a query that began before it. Every caller gets
+ * the shared call's result or error. The call is cancelled once every caller
+ * has gone away, and the next identical read starts a new one.
+ *
+ * Callers build {@link TableQuery}s with mutating methods, so each read is
+ * keyed and sent on its own copy of the query: a caller that goes on to
+ * change its query cannot shift the key of a flight in the map.
+ *
+ * Metric {@code reads.coalescing}, tagged table and role: {@code leader} for
+ * calls that went upstream, {@code joined} for calls that shared one. Plus
+ * {@code reads.coalescing.in_flight}, the distinct reads currently in flight.
+ */
+public class CoalescingTableRepository implements TableRepository {
+
+    // query is a private copy that nothing changes after the key is made
+    private record Key(String table, String columns, TableQuery query, Class<?> type) {
+    }
+
+    private final TableRepository delegate;
+    private final MeterRegistry meters;
+    private final Map<Key, Mono<?>> flights = new ConcurrentHashMap<>();
+
+    public CoalescingTableRepository(TableRepository delegate, MeterRegistry meters) {
+        this.delegate = delegate;
+        this.meters = meters;
+
+        Gauge.builder("reads.coalescing.in_flight", flights, Map::size)
+                .description("Distinct reads currently in flight upstream")
+                .register(meters);
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> select(String table, String columns, TableQuery query) {
+        return delegate.select(table, columns, query);
+    }
+
+    @Override
+    public <T> Mono<List<T>> select(String table, String columns, TableQuery query, Class<T> type) {
+        TableQuery snapshot = query.copy();
+        return coalesce(new Key(table, columns, snapshot, type),
+                () -> delegate.select(table, columns, snapshot, type).map(Collections::unmodifiableList));
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> insert(String table, Map<String, Object> row) {
+        return written(table, delegate.insert(table, row));
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> upsert(String table, Map<String, Object> row, String conflictColumns) {
+        return written(table, delegate.upsert(table, row, conflictColumns));
+    }
+
+    @Override
+    public Mono<Void> upsertAll(String table, List<Map<String, Object>> rows, String conflictColumns) {
+        return written(table, delegate.upsertAll(table, rows, conflictColumns));
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> update(String table, Map<String, Object> changes, TableQuery query) {
+        return written(table, delegate.update(table, changes, query));
+    }
+
+    @Override
+    public Mono<Void> delete(String table, TableQuery query) {
+        return written(table, delegate.delete(table, query));
+    }
+
+    @Override
+    public Mono<Long> count(String table, TableQuery query) {
+        TableQuery snapshot = query.copy();
+        return coalesce(new Key(table, "count", snapshot, Long.class), () -> delegate.count(table, snapshot));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> coalesce(Key key, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            Mono<?> flight = flights.get(key);
+            if (flight == null) {
+                AtomicReference<Mono<T>> self = new AtomicReference<>();
+                Mono<T> created = call.get()
+                        .doFinally(signal -> flights.remove(key, self.get()))
+                        .share();
+                self.set(created);
+                flight = flights.putIfAbsent(key, created);
+                if (flight == null) {
+                    record(key, "leader");
+                    return created;
+                }
+            }
+            record(key, "joined");
+            return (Mono<T>) flight;
+        });
+    }
+
+    private <T> Mono<T> written(String table, Mono<T> call) {
+        return call.doFinally(signal -> flights.keySet().removeIf(key -> key.table().equals(table)));
+    }
+
+    private void record(Key key, String role) {
+        meters.counter("reads.coalescing", "table", key.table(), "role", role).increment();
+    }
+}
@@ -0,0 +1,174 @@
+package com.jatriovijog.repository;
+
+import com.jatriovijog.util.RollingPercentile;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Decorates a {@link TableRepository} with hedged reads: when a select or
+ * count has not answered within the recent p95 latency of reads of the same
+ * shape, a second, identical request is sent and whichever answers first is
+ * used; the other is cancelled. One slow connection or replica then costs
+ * roughly p95 instead of a timeout.
+ *
+ * A shape is the table, the selected columns and whether the query has a
+ * limit or picks rows by id, so a 1000-row page or a {@code select=*} with
+ * photos is measured against its own kind rather than against point
+ * lookups on the same table. Unbounded scans (no limit, no eq/in filter)
+ * are never hedged: their latency tracks the table's size, and a second
+ * copy only doubles the work.
+ *
+ * Only reads are hedged, since sending them twice is harmless. Hedges are
+ * limited to {@code maxRatio} of reads (10% by default) with a token
+ * budget: each read earns a fraction of a token and each hedge spends a
+ * whole one. When the upstream slows down across the board, hedging stops
+ * instead of doubling its load. A shape is not hedged until 50 reads have
+ * been timed.
+ *
+ * Metrics: {@code upstream.hedge.sent}, {@code .won} and {@code .throttled}
+ * (tagged table), and {@code upstream.hedge.delay}, the current threshold
+ * (tagged table and shape).
+ */
+public class HedgingTableRepository implements TableRepository {
+
+    private static final int WINDOW = 1000;
+    private static final int MIN_SAMPLES = 50;
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // Budget in thousandths of a hedge, capped at ten hedges in a burst
+    private static final int HEDGE_COST = 1000;
+    private static final int MAX_BUDGET = 10 * HEDGE_COST;
+
+    private final TableRepository delegate;
+    private final MeterRegistry meters;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final int earnPerRead;
+
+    private final Map<String, RollingPercentile> latencies = new ConcurrentHashMap<>();
+    private final AtomicInteger budget = new AtomicInteger(MAX_BUDGET);
+
+    public HedgingTableRepository(TableRepository delegate, MeterRegistry meters,
+            double percentile, Duration minDelay, double maxRatio) {
+        this.delegate = delegate;
+        this.meters = meters;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.earnPerRead = (int) Math.round(maxRatio * HEDGE_COST);
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> select(String table, String columns, TableQuery query) {
+        return hedged(table, columns, query, () -> delegate.select(table, columns, query));
+    }
+
+    @Override
+    public <T> Mono<List<T>> select(String table, String columns, TableQuery query, Class<T> type) {
+        return hedged(table, columns, query, () -> delegate.select(table, columns, query, type));
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> insert(String table, Map<String, Object> row) {
+        return delegate.insert(table, row);
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> upsert(String table, Map<String, Object> row, String conflictColumns) {
+        return delegate.upsert(table, row, conflictColumns);
+    }
+
+    @Override
+    public Mono<Void> upsertAll(String table, List<Map<String, Object>> rows, String conflictColumns) {
+        return delegate.upsertAll(table, rows, conflictColumns);
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> update(String table, Map<String, Object> changes, TableQuery query) {
+        return delegate.update(table, changes, query);
+    }
+
+    @Override
+    public Mono<Void> delete(String table, TableQuery query) {
+        return delegate.delete(table, query);
+    }
+
+    @Override
+    public Mono<Long> count(String table, TableQuery query) {
+        return hedged(table, "count", query, () -> delegate.count(table, query));
+    }
+
+    private <T> Mono<T> hedged(String table, String columns, TableQuery query, Supplier<Mono<T>> attempt) {
+        if (query.isScan() && query.limit() == null) {
+            return attempt.get();
+        }
+        String shape = columns + (query.limit() != null ? " limit" : "") + (query.isById() ? " by-id" : "");
+        return Mono.defer(() -> {
+            RollingPercentile latency = latencies.computeIfAbsent(table + " " + shape,
+                    key -> newTracker(table, shape));
+            earn();
+            long start = System.nanoTime();
+            // Timed until it answers or is cancelled for a hedge, so slow
+            // first attempts still count towards the percentile
+            Mono<T> first = attempt.get().doFinally(signal -> {
+                if (signal != SignalType.ON_ERROR) {
+                    latency.record(System.nanoTime() - start);
+                }
+            });
+
+            long threshold = latency.value(start);
+            if (threshold < 0) {
+                return first;
+            }
+            Duration delay = Duration.ofNanos(Math.max(threshold, minDelayNanos));
+            Mono<T> hedge = Mono.delay(delay)
+                    .flatMap(tick -> {
+                        if (!spend()) {
+                            meters.counter("upstream.hedge.throttled", "table", table).increment();
+                            return Mono.never();
+                        }
+                        meters.counter("upstream.hedge.sent", "table", table).increment();
+                        // A failed hedge leaves the answer to the first attempt
+                        return attempt.get()
+                                .doOnNext(v -> meters.counter("upstream.hedge.won", "table", table).increment())
+                                .onErrorResume(e -> Mono.never());
+                    });
+            return Mono.firstWithSignal(first, hedge);
+        });
+    }
+
+    private RollingPercentile newTracker(String table, String shape) {
+        RollingPercentile tracker = new RollingPercentile(percentile, WINDOW, MIN_SAMPLES, REFRESH_NANOS);
+        Gauge.builder("upstream.hedge.delay", tracker, t -> Math.max(0, t.lastValue()) / 1e6)
+                .description("Latency after which a read is hedged")
+                .baseUnit("milliseconds")
+                .tag("table", table)
+                .tag("shape", shape)
+                .register(meters);
+        return tracker;
+    }
+
+    private void earn() {
+        budget.updateAndGet(b -> Math.min(MAX_BUDGET, b + earnPerRead));
+    }
+
+    private boolean spend() {
+        int b;
+        do {
+            b = budget.get();
+            if (b < HEDGE_COST) {
+                return false;
+            }
+        } while (!budget.compareAndSet(b, b - HEDGE_COST));
+        return true;
+    }
+}
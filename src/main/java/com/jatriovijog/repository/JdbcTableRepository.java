@@ -0,0 +1,279 @@
+package com.jatriovijog.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jatriovijog.config.BlockingCalls;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+
+/**
+ * {@link TableRepository} talking to Postgres directly through a pooled JDBC
+ * {@link DataSource}, skipping the PostgREST HTTP hop and its JSON
+ * round trip. Blocking JDBC calls run through {@link BlockingCalls}.
+ *
+ * Table and column names are validated against a plain identifier pattern
+ * and quoted; every value is bound as a parameter.
+ */
+@Repository
+@ConditionalOnProperty(name = "jatri.datastore", havingValue = "jdbc")
+public class JdbcTableRepository implements TableRepository {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    // timestamptz the way Postgres writes it in JSON (and so PostgREST):
+    // microseconds without trailing zeros, offset +00:00 rather than Z
+    private static final DateTimeFormatter TIMESTAMPTZ = new DateTimeFormatterBuilder()
+            .appendPattern("uuuu-MM-dd'T'HH:mm:ss")
+            .appendFraction(ChronoField.MICRO_OF_SECOND, 0, 6, true)
+            .appendLiteral("+00:00")
+            .toFormatter();
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final ObjectMapper objectMapper;
+    private final BlockingCalls blockingCalls;
+    private final RowMapper rowMapper = new RowMapper();
+
+    public JdbcTableRepository(DataSource dataSource, ObjectMapper objectMapper, BlockingCalls blockingCalls) {
+        this.jdbc = new NamedParameterJdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+        this.blockingCalls = blockingCalls;
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> select(String table, String columns, TableQuery query) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = selectSql(table, columns, query, params);
+        return blocking(() -> jdbc.query(sql, params, rowMapper));
+    }
+
+    @Override
+    public <T> Mono<List<T>> select(String table, String columns, TableQuery query, Class<T> type) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = selectSql(table, columns, query, params);
+        // Bound through the same Jackson mapping as the PostgREST responses, so
+        // both backends fill the records identically
+        return blocking(() -> {
+            List<Map<String, Object>> rows = jdbc.query(sql, params, rowMapper);
+            List<T> out = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                out.add(objectMapper.convertValue(row, type));
+            }
+            return out;
+        });
+    }
+
+    private String selectSql(String table, String columns, TableQuery query, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(columnList(columns))
+                .append(" FROM ").append(quote(table))
+                .append(where(query, params));
+
+        if (query.orderColumn() != null) {
+            sql.append(" ORDER BY ").append(quote(query.orderColumn()))
+                    .append(query.ascending() ? " ASC" : " DESC");
+        }
+        if (query.limit() != null) {
+            sql.append(" LIMIT ").append(query.limit().intValue());
+        }
+        return sql.toString();
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> insert(String table, Map<String, Object> row) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = insertSql(table, row, params) + " RETURNING *";
+        return blocking(() -> jdbc.query(sql, params, rowMapper));
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> upsert(String table, Map<String, Object> row, String conflictColumns) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = upsertSql(table, row, conflictColumns, params) + " RETURNING *";
+        return blocking(() -> jdbc.query(sql, params, rowMapper));
+    }
+
+    @Override
+    public Mono<Void> upsertAll(String table, List<Map<String, Object>> rows, String conflictColumns) {
+        if (rows.isEmpty()) {
+            return Mono.empty();
+        }
+        // One statement, executed as a JDBC batch with a parameter set per row
+        MapSqlParameterSource[] batch = new MapSqlParameterSource[rows.size()];
+        batch[0] = new MapSqlParameterSource();
+        String sql = upsertSql(table, rows.get(0), conflictColumns, batch[0]);
+        for (int i = 1; i < batch.length; i++) {
+            batch[i] = new MapSqlParameterSource();
+            for (Map.Entry<String, Object> e : rows.get(i).entrySet()) {
+                batch[i].addValue("v_" + e.getKey(), e.getValue());
+            }
+        }
+        return blocking(() -> jdbc.batchUpdate(sql, batch)).then();
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> update(String table, Map<String, Object> changes, TableQuery query) {
+        if (changes.isEmpty()) {
+            return select(table, "*", query);
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringJoiner set = new StringJoiner(", ");
+        for (Map.Entry<String, Object> e : changes.entrySet()) {
+            String param = "v_" + e.getKey();
+            set.add(quote(e.getKey()) + " = :" + param);
+            params.addValue(param, e.getValue());
+        }
+
+        String sql = "UPDATE " + quote(table) + " SET " + set + where(query, params) + " RETURNING *";
+        return blocking(() -> jdbc.query(sql, params, rowMapper));
+    }
+
+    @Override
+    public Mono<Void> delete(String table, TableQuery query) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "DELETE FROM " + quote(table) + where(query, params);
+        return blocking(() -> jdbc.update(sql, params)).then();
+    }
+
+    @Override
+    public Mono<Long> count(String table, TableQuery query) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT count(*) FROM " + quote(table) + where(query, params);
+        return blocking(() -> jdbc.queryForObject(sql, params, Long.class));
+    }
+
+    // ---------- SQL building ----------
+
+    private String insertSql(String table, Map<String, Object> row, MapSqlParameterSource params) {
+        StringJoiner columns = new StringJoiner(", ", "(", ")");
+        StringJoiner values = new StringJoiner(", ", "(", ")");
+        for (Map.Entry<String, Object> e : row.entrySet()) {
+            String param = "v_" + e.getKey();
+            columns.add(quote(e.getKey()));
+            values.add(":" + param);
+            params.addValue(param, e.getValue());
+        }
+        return "INSERT INTO " + quote(table) + " " + columns + " VALUES " + values;
+    }
+
+    private String upsertSql(String table, Map<String, Object> row, String conflictColumns,
+            MapSqlParameterSource params) {
+        List<String> conflict = new ArrayList<>();
+        for (String c : conflictColumns.split(",")) {
+            conflict.add(c.trim());
+        }
+
+        StringJoiner updates = new StringJoiner(", ");
+        for (String column : row.keySet()) {
+            if (!conflict.contains(column)) {
+                updates.add(quote(column) + " = EXCLUDED." + quote(column));
+            }
+        }
+        StringJoiner target = new StringJoiner(", ", "(", ")");
+        conflict.forEach(c -> target.add(quote(c)));
+
+        return insertSql(table, row, params)
+                + " ON CONFLICT " + target
+                + (updates.length() == 0 ? " DO NOTHING" : " DO UPDATE SET " + updates);
+    }
+
+    private String where(TableQuery query, MapSqlParameterSource params) {
+        if (query.filters().isEmpty()) {
+            return "";
+        }
+        StringJoiner clauses = new StringJoiner(" AND ", " WHERE ", "");
+        int i = 0;
+        for (TableQuery.Filter f : query.filters()) {
+            String param = "f" + i++;
+            if (f.op() == TableQuery.Op.IN) {
+                if (((Collection<?>) f.value()).isEmpty()) {
+                    clauses.add("FALSE");
+                    continue;
+                }
+                clauses.add(quote(f.column()) + " IN (:" + param + ")");
+            } else {
+                clauses.add(quote(f.column()) + " " + f.op().sql + " :" + param);
+            }
+            params.addValue(param, f.value());
+        }
+        return clauses.toString();
+    }
+
+    private static String columnList(String columns) {
+        if (columns == null || columns.isBlank() || "*".equals(columns.trim())) {
+            return "*";
+        }
+        StringJoiner out = new StringJoiner(", ");
+        for (String c : columns.split(",")) {
+            out.add(quote(c.trim()));
+        }
+        return out.toString();
+    }
+
+    private static String quote(String identifier) {
+        if (!IDENTIFIER.matcher(identifier).matches()) {
+            throw new IllegalArgumentException("Invalid column or table name: " + identifier);
+        }
+        return "\"" + identifier + "\"";
+    }
+
+    private <T> Mono<T> blocking(Callable<T> call) {
+        return blockingCalls.call(call);
+    }
+
+    /**
+     * Column map with values shaped like PostgREST's JSON as Jackson decodes
+     * it: timestamps as the same ISO-8601 text, arrays as lists, and bigints
+     * that fit as Integer.
+     */
+    private static class RowMapper extends ColumnMapRowMapper {
+
+        @Override
+        protected Map<String, Object> createColumnMap(int columnCount) {
+            return new LinkedHashMap<>(columnCount * 2);
+        }
+
+        @Override
+        protected Object getColumnValue(ResultSet rs, int index) throws SQLException {
+            Object value = super.getColumnValue(rs, index);
+            if (value instanceof Timestamp ts) {
+                return TIMESTAMPTZ.format(ts.toInstant().atOffset(ZoneOffset.UTC));
+            }
+            if (value instanceof Long l && l == l.intValue()) {
+                return l.intValue();
+            }
+            if (value instanceof java.sql.Date date) {
+                return date.toString();
+            }
+            if (value instanceof Array array) {
+                return Arrays.asList((Object[]) array.getArray());
+            }
+            if (value != null && value.getClass().getName().equals("org.postgresql.util.PGobject")) {
+                // json/jsonb and other custom types come back as their text form
+                return value.toString();
+            }
+            return value;
+        }
+    }
+}
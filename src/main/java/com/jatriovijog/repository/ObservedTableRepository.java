@@ -0,0 +1,133 @@
+package com.jatriovijog.repository;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+
+/**
+ * Decorates a {@link TableRepository} with a Micrometer observation per call,
+ * which yields both:
+ * <ul>
+ * <li>the {@code upstream.requests} timer, tagged backend, table, operation, outcome</li>
+ * <li>a trace span such as {@code select complaints}, child of the current
+ * request span, with the filter columns as {@code db.query} so spans can be
+ * matched to the {@code SupabaseService} method that issued them</li>
+ * </ul>
+ * Plus {@code upstream.rows}, the rows returned per call.
+ *
+ * The observation starts on subscription and is put into the Reactor context,
+ * so the WebClient exchange below it is traced as a child span.
+ */
+public class ObservedTableRepository implements TableRepository {
+
+    private final TableRepository delegate;
+    private final ObservationRegistry observations;
+    private final MeterRegistry meters;
+    private final String backend;
+
+    public ObservedTableRepository(TableRepository delegate, ObservationRegistry observations, MeterRegistry meters) {
+        this.delegate = delegate;
+        this.observations = observations;
+        this.meters = meters;
+        this.backend = delegate instanceof JdbcTableRepository ? "jdbc" : "postgrest";
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> select(String table, String columns, TableQuery query) {
+        return rows(table, "select", query, () -> delegate.select(table, columns, query));
+    }
+
+    @Override
+    public <T> Mono<List<T>> select(String table, String columns, TableQuery query, Class<T> type) {
+        return rows(table, "select", query, () -> delegate.select(table, columns, query, type));
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> insert(String table, Map<String, Object> row) {
+        return rows(table, "insert", null, () -> delegate.insert(table, row));
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> upsert(String table, Map<String, Object> row, String conflictColumns) {
+        return rows(table, "upsert", null, () -> delegate.upsert(table, row, conflictColumns));
+    }
+
+    @Override
+    public Mono<Void> upsertAll(String table, List<Map<String, Object>> rows, String conflictColumns) {
+        return observed(table, "upsert_batch", null, () -> delegate.upsertAll(table, rows, conflictColumns));
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> update(String table, Map<String, Object> changes, TableQuery query) {
+        return rows(table, "update", query, () -> delegate.update(table, changes, query));
+    }
+
+    @Override
+    public Mono<Void> delete(String table, TableQuery query) {
+        return observed(table, "delete", query, () -> delegate.delete(table, query));
+    }
+
+    @Override
+    public Mono<Long> count(String table, TableQuery query) {
+        return observed(table, "count", query, () -> delegate.count(table, query));
+    }
+
+    private <T> Mono<List<T>> rows(String table, String operation, TableQuery query,
+            Supplier<Mono<List<T>>> call) {
+        return observed(table, operation, query, call)
+                .doOnNext(list -> DistributionSummary.builder("upstream.rows")
+                        .tag("backend", backend)
+                        .tag("table", table)
+                        .tag("operation", operation)
+                        .register(meters)
+                        .record(list == null ? 0 : list.size()));
+    }
+
+    private <T> Mono<T> observed(String table, String operation, TableQuery query, Supplier<Mono<T>> call) {
+        return Mono.deferContextual(ctx -> {
+            Observation parent = ctx.getOrDefault(ObservationThreadLocalAccessor.KEY, null);
+            Observation observation = Observation.createNotStarted("upstream.requests", observations)
+                    .contextualName(operation + " " + table)
+                    .parentObservation(parent)
+                    .lowCardinalityKeyValue("backend", backend)
+                    .lowCardinalityKeyValue("table", table)
+                    .lowCardinalityKeyValue("operation", operation)
+                    .highCardinalityKeyValue("db.query", describe(query))
+                    .start();
+
+            return call.get()
+                    .doOnSuccess(v -> stop(observation, "success", null))
+                    .doOnError(e -> stop(observation, "error", e))
+                    .doOnCancel(() -> stop(observation, "cancelled", null))
+                    .contextWrite(c -> c.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    private static void stop(Observation observation, String outcome, Throwable error) {
+        observation.lowCardinalityKeyValue(KeyValue.of("outcome", outcome));
+        if (error != null) {
+            observation.error(error);
+        }
+        observation.stop();
+    }
+
+    private static String describe(TableQuery query) {
+        if (query == null || query.filters().isEmpty()) {
+            return query != null && query.limit() != null ? "limit" : "all";
+        }
+        StringJoiner out = new StringJoiner(",");
+        for (TableQuery.Filter f : query.filters()) {
+            out.add(f.column() + "=" + f.op().postgrest);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,334 @@
+package com.jatriovijog.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriBuilder;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * {@link TableRepository} backed by Supabase's PostgREST API, over the pooled
+ * client from {@code PostgrestHttpClientConfig}.
+ *
+ * Every call has a deadline covering the whole exchange, body included:
+ * {@code supabase.http.timeout.read} for selects and counts that filter by
+ * eq/in, {@code .scan} for those that read a range or all of a table (see
+ * {@link TableQuery#isScan()}), {@code .write} for single-row writes and
+ * deletes, {@code .bulk} for batch upserts.
+ */
+@Repository
+@ConditionalOnProperty(name = "jatri.datastore", havingValue = "postgrest", matchIfMissing = true)
+public class PostgrestTableRepository implements TableRepository {
+
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> LIST_OF_MAP = new ParameterizedTypeReference<>() {
+    };
+
+    private final WebClient webClient;
+    private final String anonKey;
+    private final String serviceRoleKey;
+    private final Duration readTimeout;
+    private final Duration scanTimeout;
+    private final Duration writeTimeout;
+    private final Duration bulkTimeout;
+
+    public PostgrestTableRepository(@Value("${supabase.url}") String baseUrl,
+            @Value("${supabase.apikey}") String anonKey,
+            @Value("${supabase.serviceRoleKey:}") String serviceRoleKey,
+            @Value("${supabase.http.timeout.read:10s}") Duration readTimeout,
+            @Value("${supabase.http.timeout.scan:60s}") Duration scanTimeout,
+            @Value("${supabase.http.timeout.write:10s}") Duration writeTimeout,
+            @Value("${supabase.http.timeout.bulk:30s}") Duration bulkTimeout,
+            MeterRegistry meterRegistry,
+            WebClient.Builder webClientBuilder,
+            HttpClient postgrestHttpClient) {
+
+        String trimmed = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        String restUrl = trimmed + "/rest/v1";
+
+        this.anonKey = anonKey;
+        this.serviceRoleKey = serviceRoleKey;
+        this.readTimeout = readTimeout;
+        this.scanTimeout = scanTimeout;
+        this.writeTimeout = writeTimeout;
+        this.bulkTimeout = bulkTimeout;
+
+        // NOTE: no default Authorization header here.
+        // We'll attach the correct one per request using auth(...)
+        // ✅ FIXED: Increased buffer size to 10MB to handle base64-encoded images in
+        // emergency_reports
+        // The Boot-provided builder carries the observation setup, so every
+        // exchange shows up as an http.client span under the upstream span.
+        this.webClient = webClientBuilder
+                .baseUrl(restUrl)
+                .clientConnector(new ReactorClientHttpConnector(postgrestHttpClient))
+                .defaultHeader("apikey", anonKey)
+                .defaultHeader(HttpHeaders.ACCEPT, "application/json")
+                .codecs(configurer -> configurer
+                        .defaultCodecs()
+                        .maxInMemorySize(10 * 1024 * 1024)) // 10 MB buffer
+                .filter(responseSizeFilter(meterRegistry))
+                .build();
+    }
+
+    /**
+     * Records {@code upstream.payload.bytes} (tagged table and HTTP method)
+     * by counting response body bytes as they stream through, since
+     * PostgREST usually answers chunked without a Content-Length.
+     */
+    private static ExchangeFilterFunction responseSizeFilter(MeterRegistry registry) {
+        return (request, next) -> next.exchange(request).map(response -> {
+            String path = request.url().getPath();
+            String table = path.substring(path.lastIndexOf('/') + 1);
+            AtomicLong bytes = new AtomicLong();
+            return response.mutate()
+                    .body(body -> body
+                            .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+                            .doOnComplete(() -> DistributionSummary.builder("upstream.payload.bytes")
+                                    .baseUnit("bytes")
+                                    .tag("table", table)
+                                    .tag("method", request.method().name())
+                                    .publishPercentileHistogram()
+                                    .register(registry)
+                                    .record(bytes.get())))
+                    .build();
+        });
+    }
+
+    private static <T> Mono<T> deadline(Mono<T> call, Duration timeout, String operation, String table) {
+        return call.timeout(timeout, Mono.error(() -> new RuntimeException(
+                "Supabase " + operation + " on " + table + " timed out after " + timeout.toMillis() + " ms")));
+    }
+
+    private Duration readTimeout(TableQuery query) {
+        return query.isScan() ? scanTimeout : readTimeout;
+    }
+
+    private Mono<? extends Throwable> mapSupabaseError(ClientResponse res) {
+        return res.bodyToMono(String.class)
+                .defaultIfEmpty("")
+                .map(body -> new RuntimeException("Supabase error (" + res.statusCode() + "): " + body));
+    }
+
+    /**
+     * Attach auth header:
+     * - If service role key exists: use it (prevents RLS 401/42501 for backend
+     * writes).
+     * - Otherwise fallback to anon key (may fail for writes when RLS is enabled).
+     */
+    private WebClient.RequestHeadersSpec<?> auth(WebClient.RequestHeadersSpec<?> spec) {
+        String bearer = (serviceRoleKey != null && !serviceRoleKey.isBlank()) ? serviceRoleKey : anonKey;
+        return spec.header(HttpHeaders.AUTHORIZATION, "Bearer " + bearer);
+    }
+
+    /**
+     * Translate a {@link TableQuery} into PostgREST query parameters. Values go
+     * through URI template variables so they are fully encoded (a '+' in an
+     * email or timestamp must not turn into a space).
+     */
+    private URI buildUri(UriBuilder uriBuilder, String table, String columns, TableQuery query,
+            Map<String, String> extraParams) {
+        Map<String, Object> vars = new HashMap<>();
+        uriBuilder.path("/" + table);
+
+        if (columns != null) {
+            uriBuilder.queryParam("select", "{select}");
+            vars.put("select", columns);
+        }
+
+        int i = 0;
+        for (TableQuery.Filter f : query.filters()) {
+            String var = "f" + i++;
+            uriBuilder.queryParam(f.column(), "{" + var + "}");
+            vars.put(var, f.op().postgrest + "." + render(f));
+        }
+
+        if (query.orderColumn() != null) {
+            uriBuilder.queryParam("order", "{order}");
+            vars.put("order", query.orderColumn() + (query.ascending() ? ".asc" : ".desc"));
+        }
+        if (query.limit() != null) {
+            uriBuilder.queryParam("limit", query.limit());
+        }
+        extraParams.forEach((k, v) -> {
+            uriBuilder.queryParam(k, "{" + k + "}");
+            vars.put(k, v);
+        });
+        return uriBuilder.build(vars);
+    }
+
+    private static String render(TableQuery.Filter f) {
+        if (f.op() == TableQuery.Op.IN) {
+            return "(" + ((Collection<?>) f.value()).stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(",")) + ")";
+        }
+        return String.valueOf(f.value());
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> select(String table, String columns, TableQuery query) {
+        if (hasEmptyIn(query)) {
+            return Mono.just(List.of());
+        }
+        return deadline(auth(webClient.get()
+                    .uri(b -> buildUri(b, table, columns, query, Map.of())))
+                    .retrieve()
+                    .onStatus(s -> s.isError(), this::mapSupabaseError)
+                    .bodyToMono(LIST_OF_MAP),
+                readTimeout(query), "select", table);
+    }
+
+    @Override
+    public <T> Mono<List<T>> select(String table, String columns, TableQuery query, Class<T> type) {
+        if (hasEmptyIn(query)) {
+            return Mono.just(List.of());
+        }
+        // Decoded by Jackson straight from the response buffers into records
+        ParameterizedTypeReference<List<T>> listOfType = ParameterizedTypeReference
+                .forType(ResolvableType.forClassWithGenerics(List.class, type).getType());
+        return deadline(auth(webClient.get()
+                    .uri(b -> buildUri(b, table, columns, query, Map.of())))
+                    .retrieve()
+                    .onStatus(s -> s.isError(), this::mapSupabaseError)
+                    .bodyToMono(listOfType),
+                readTimeout(query), "select", table);
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> insert(String table, Map<String, Object> row) {
+
+        var req = webClient.post()
+                .uri("/" + table)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(row);
+
+        return deadline(auth(req)
+                    .header("Prefer", "return=representation")
+                    .retrieve()
+                    .onStatus(s -> s.isError(), this::mapSupabaseError)
+                    .bodyToMono(LIST_OF_MAP),
+                writeTimeout, "insert", table);
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> upsert(String table, Map<String, Object> row, String conflictColumns) {
+
+        var req = webClient.post()
+                .uri(b -> buildUri(b, table, null, TableQuery.all(), Map.of("on_conflict", conflictColumns)))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(row);
+
+        return deadline(auth(req)
+                    .header("Prefer", "return=representation,resolution=merge-duplicates")
+                    .retrieve()
+                    .onStatus(s -> s.isError(), this::mapSupabaseError)
+                    .bodyToMono(LIST_OF_MAP),
+                writeTimeout, "upsert", table);
+    }
+
+    @Override
+    public Mono<Void> upsertAll(String table, List<Map<String, Object>> rows, String conflictColumns) {
+        if (rows.isEmpty()) {
+            return Mono.empty();
+        }
+
+        // A JSON array body is a bulk insert; PostgREST takes the column list
+        // from the first object, hence the same-columns rule
+        var req = webClient.post()
+                .uri(b -> buildUri(b, table, null, TableQuery.all(), Map.of("on_conflict", conflictColumns)))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(rows);
+
+        return deadline(auth(req)
+                    .header("Prefer", "return=minimal,resolution=merge-duplicates")
+                    .retrieve()
+                    .onStatus(s -> s.isError(), this::mapSupabaseError)
+                    .toBodilessEntity()
+                    .then(),
+                bulkTimeout, "upsert_batch", table);
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> update(String table, Map<String, Object> changes, TableQuery query) {
+        if (hasEmptyIn(query)) {
+            return Mono.just(List.of());
+        }
+
+        var req = webClient.patch()
+                .uri(b -> buildUri(b, table, null, query, Map.of()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(changes);
+
+        return deadline(auth(req)
+                    .header("Prefer", "return=representation")
+                    .retrieve()
+                    .onStatus(s -> s.isError(), this::mapSupabaseError)
+                    .bodyToMono(LIST_OF_MAP),
+                writeTimeout, "update", table);
+    }
+
+    @Override
+    public Mono<Void> delete(String table, TableQuery query) {
+        if (hasEmptyIn(query)) {
+            return Mono.empty();
+        }
+        return deadline(auth(webClient.delete()
+                    .uri(b -> buildUri(b, table, null, query, Map.of())))
+                    .retrieve()
+                    .onStatus(s -> s.isError(), this::mapSupabaseError)
+                    .toBodilessEntity()
+                    .then(),
+                writeTimeout, "delete", table);
+    }
+
+    @Override
+    public Mono<Long> count(String table, TableQuery query) {
+        if (hasEmptyIn(query)) {
+            return Mono.just(0L);
+        }
+        Mono<Long> count = auth(webClient.get()
+                // One row is enough for the Content-Range total; the limit goes in as a
+                // parameter so the caller's query (a coalescing key) is left as it was
+                .uri(b -> buildUri(b, table, "id", query,
+                        query.limit() == null ? Map.of("limit", "1") : Map.of())))
+                .header("Prefer", "count=exact")
+                .retrieve()
+                .onStatus(s -> s.isError(), this::mapSupabaseError)
+                .toBodilessEntity()
+                .map(res -> {
+                    // Content-Range looks like "0-0/42" (or "*/0" when empty)
+                    String range = res.getHeaders().getFirst("Content-Range");
+                    if (range == null || !range.contains("/"))
+                        return 0L;
+                    String total = range.substring(range.indexOf('/') + 1);
+                    return "*".equals(total) ? 0L : Long.parseLong(total);
+                });
+        return deadline(count, readTimeout(query), "count", table);
+    }
+
+    // PostgREST rejects "in.()", and an empty IN list matches nothing anyway
+    private static boolean hasEmptyIn(TableQuery query) {
+        return query.filters().stream()
+                .anyMatch(f -> f.op() == TableQuery.Op.IN && ((Collection<?>) f.value()).isEmpty());
+    }
+}
@@ -0,0 +1,147 @@
+package com.jatriovijog.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Backend-neutral row filter used by {@link TableRepository}. It covers the
+ * subset of PostgREST filtering the app needs (eq/in/range, one ORDER BY
+ * column, LIMIT), so each implementation can translate it directly into
+ * query parameters or SQL.
+ */
+public final class TableQuery {
+
+    public enum Op {
+        EQ("eq", "="), GT("gt", ">"), GTE("gte", ">="), LT("lt", "<"), LTE("lte", "<="), IN("in", "IN");
+
+        public final String postgrest;
+        public final String sql;
+
+        Op(String postgrest, String sql) {
+            this.postgrest = postgrest;
+            this.sql = sql;
+        }
+    }
+
+    public record Filter(String column, Op op, Object value) {
+    }
+
+    private final List<Filter> filters = new ArrayList<>();
+    private String orderColumn;
+    private boolean ascending = true;
+    private Integer limit;
+
+    private TableQuery() {
+    }
+
+    public static TableQuery all() {
+        return new TableQuery();
+    }
+
+    public static TableQuery where(String column, Object value) {
+        return new TableQuery().eq(column, value);
+    }
+
+    public TableQuery eq(String column, Object value) {
+        filters.add(new Filter(column, Op.EQ, value));
+        return this;
+    }
+
+    public TableQuery in(String column, Collection<?> values) {
+        filters.add(new Filter(column, Op.IN, List.copyOf(values)));
+        return this;
+    }
+
+    public TableQuery gt(String column, Object value) {
+        filters.add(new Filter(column, Op.GT, value));
+        return this;
+    }
+
+    public TableQuery gte(String column, Object value) {
+        filters.add(new Filter(column, Op.GTE, value));
+        return this;
+    }
+
+    public TableQuery lt(String column, Object value) {
+        filters.add(new Filter(column, Op.LT, value));
+        return this;
+    }
+
+    public TableQuery lte(String column, Object value) {
+        filters.add(new Filter(column, Op.LTE, value));
+        return this;
+    }
+
+    public TableQuery orderBy(String column, boolean ascending) {
+        this.orderColumn = column;
+        this.ascending = ascending;
+        return this;
+    }
+
+    public TableQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    public List<Filter> filters() {
+        return Collections.unmodifiableList(filters);
+    }
+
+    public String orderColumn() {
+        return orderColumn;
+    }
+
+    public boolean ascending() {
+        return ascending;
+    }
+
+    public Integer limit() {
+        return limit;
+    }
+
+    /** An independent copy, unaffected by later changes to this query. */
+    public TableQuery copy() {
+        TableQuery copy = new TableQuery();
+        copy.filters.addAll(filters);
+        copy.orderColumn = orderColumn;
+        copy.ascending = ascending;
+        copy.limit = limit;
+        return copy;
+    }
+
+    /**
+     * True when no eq/in filter narrows the rows, so the query reads a range
+     * of the table (keyset pages and created_at windows) or all of it.
+     */
+    public boolean isScan() {
+        return filters.stream().noneMatch(f -> f.op() == Op.EQ || f.op() == Op.IN);
+    }
+
+    /** True when an eq/in filter on {@code id} picks the rows. */
+    public boolean isById() {
+        return filters.stream().anyMatch(f -> f.column().equals("id") && (f.op() == Op.EQ || f.op() == Op.IN));
+    }
+
+    // Equal queries select the same rows; CoalescingTableRepository keys on this
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TableQuery other)) {
+            return false;
+        }
+        return ascending == other.ascending
+                && filters.equals(other.filters)
+                && Objects.equals(orderColumn, other.orderColumn)
+                && Objects.equals(limit, other.limit);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(filters, orderColumn, ascending, limit);
+    }
+}
@@ -0,0 +1,56 @@
+package com.jatriovijog.repository;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row-level access to the Jatri Ovijog tables. Rows are plain maps keyed by
+ * column name, or records for typed selects. Timestamps are rendered as
+ * ISO-8601 strings, so callers see the same shape whichever implementation
+ * is active.
+ *
+ * Selected with {@code jatri.datastore}:
+ * <ul>
+ * <li>{@code postgrest} (default) - {@link PostgrestTableRepository}, HTTP to Supabase</li>
+ * <li>{@code jdbc} - {@link JdbcTableRepository}, pooled direct connection to Postgres</li>
+ * </ul>
+ */
+public interface TableRepository {
+
+    /**
+     * @param columns comma separated column list, or {@code *}
+     */
+    Mono<List<Map<String, Object>>> select(String table, String columns, TableQuery query);
+
+    /**
+     * Same as {@link #select(String, String, TableQuery)}, with each row bound
+     * to {@code type} (one of the records in {@code com.jatriovijog.model})
+     * by column name instead of being handed back as a map.
+     */
+    <T> Mono<List<T>> select(String table, String columns, TableQuery query, Class<T> type);
+
+    /** Insert one row and return the stored representation. */
+    Mono<List<Map<String, Object>>> insert(String table, Map<String, Object> row);
+
+    /**
+     * Insert one row, or merge it into the row that conflicts on
+     * {@code conflictColumns} (comma separated).
+     */
+    Mono<List<Map<String, Object>>> upsert(String table, Map<String, Object> row, String conflictColumns);
+
+    /**
+     * Upsert many rows in one round trip, without returning them. Every row
+     * must have the same columns, and no two rows may share the same
+     * {@code conflictColumns} values.
+     */
+    Mono<Void> upsertAll(String table, List<Map<String, Object>> rows, String conflictColumns);
+
+    /** Update matching rows and return their new representation. */
+    Mono<List<Map<String, Object>>> update(String table, Map<String, Object> changes, TableQuery query);
+
+    Mono<Void> delete(String table, TableQuery query);
+
+    Mono<Long> count(String table, TableQuery query);
+}
@@ -1,42 +1,161 @@
 package com.jatriovijog.service;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import com.jatriovijog.model.Complaint;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
-
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Groq calls behind the {@code groq} circuit breaker and bulkhead (see
+ * {@link #guarded}). Every public method has a fallback, so when Groq is slow
+ * or down complaints still go through as "Other"/"Low".
+ */
 @Service
 public class AiAnalysisService {
 
     @Value("${groq.api.key}")
     private String apiKey;
 
-    // ✅ Groq API Endpoint
-    private static final String GROQ_URL = "https://api.groq.com/openai/v1/chat/completions";
+    // ✅ Groq API Endpoint (overridable to point at a local mock for load tests)
+    @Value("${groq.api.url:https://api.groq.com/openai/v1/chat/completions}")
+    private String groqUrl;
+
     private static final String MODEL_NAME = "llama-3.3-70b-versatile";
 
+    private final RestTemplate restTemplate;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    public AiAnalysisService(RestTemplateBuilder restTemplateBuilder, ObservationRegistry observationRegistry,
+            MeterRegistry meterRegistry, CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads,
+            @Value("${ai.groq.connect-timeout:3s}") Duration connectTimeout,
+            @Value("${ai.groq.timeout:15s}") Duration timeout) {
+        // The read timeout is the per-call deadline: a completion arrives in one
+        // piece once generated, so no read outlasts it by much
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(connectTimeout)
+                .setReadTimeout(timeout)
+                .build();
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+        this.circuitBreaker = circuitBreakers.circuitBreaker("groq");
+        this.bulkhead = bulkheads.bulkhead("groq");
+    }
+
+    /**
+     * POST a chat completion request to Groq and return the parsed response.
+     * Observed as {@code ai.requests} and recorded in {@code ai.payload.bytes}
+     * for the request and response bodies.
+     */
+    private JsonNode postChat(String operation, Map<String, Object> requestBody) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Authorization", "Bearer " + apiKey);
+
+        byte[] json = mapper.writeValueAsBytes(requestBody);
+        recordPayload(meterRegistry, "groq", operation, "request", json.length);
+
+        return guarded(circuitBreaker, bulkhead, () -> observeCall(observationRegistry, "groq", MODEL_NAME, operation,
+                () -> {
+                    ResponseEntity<String> response = restTemplate.postForEntity(groqUrl,
+                            new HttpEntity<>(json, headers), String.class);
+                    String body = response.getBody() == null ? "" : response.getBody();
+                    recordPayload(meterRegistry, "groq", operation, "response",
+                            body.getBytes(StandardCharsets.UTF_8).length);
+                    return mapper.readTree(body);
+                }));
+    }
+
+    /**
+     * Run a provider call through its bulkhead and circuit breaker. A full
+     * bulkhead or an open breaker fails at once with
+     * {@link BulkheadFullException} or {@link CallNotPermittedException}, so
+     * the caller's fallback is used without waiting on the provider. The
+     * bulkhead sits outside the breaker: being busy is not the provider's
+     * fault and does not count towards opening it.
+     */
+    static <T> T guarded(CircuitBreaker circuitBreaker, Bulkhead bulkhead, Callable<T> call) throws Exception {
+        return Bulkhead.decorateCallable(bulkhead, CircuitBreaker.decorateCallable(circuitBreaker, call)).call();
+    }
+
+    /** True when the call was refused by a breaker or bulkhead rather than failing upstream. */
+    static boolean isShed(Throwable e) {
+        return e instanceof CallNotPermittedException || e instanceof BulkheadFullException;
+    }
+
+    /**
+     * Run one LLM call inside an {@code ai.requests} observation: a timer
+     * tagged provider, model, operation and outcome, and a span (e.g.
+     * {@code groq analyze_complaint}) under the current request span.
+     */
+    static <T> T observeCall(ObservationRegistry registry, String provider, String model, String operation,
+            Callable<T> call) throws Exception {
+        Observation observation = Observation.createNotStarted("ai.requests", registry)
+                .contextualName(provider + " " + operation)
+                .lowCardinalityKeyValue("provider", provider)
+                .lowCardinalityKeyValue("model", model)
+                .lowCardinalityKeyValue("operation", operation)
+                .start();
+        String outcome = "error";
+        try (Observation.Scope scope = observation.openScope()) {
+            T result = call.call();
+            outcome = "success";
+            return result;
+        } catch (Exception e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome);
+            observation.stop();
+        }
+    }
+
+    static void recordPayload(MeterRegistry registry, String provider, String operation, String direction,
+            long bytes) {
+        DistributionSummary.builder("ai.payload.bytes")
+                .baseUnit("bytes")
+                .tag("provider", provider)
+                .tag("operation", operation)
+                .tag("direction", direction)
+                .register(registry)
+                .record(bytes);
+    }
+
     // ---------------------------------------------------------
     // METHOD 1: ANALYZE COMPLAINT
     // ---------------------------------------------------------
     public Map<String, String> analyzeComplaint(String description) {
-        RestTemplate restTemplate = new RestTemplate();
         Map<String, String> result = new HashMap<>();
 
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiKey);
-
             String systemPrompt = "You are an expert Complaint Analyzer and Translator for Dhaka, Bangladesh.\n" +
                     "1. TRANSLATION: If the user input is in Bangla (e.g. 'আমার টাকা ফেরত চাই') or Banglish (e.g. 'Bhai bus e dhakka dise'), translate it into clear English internally.\n"
                     +
@@ -58,11 +177,7 @@ public class AiAnalysisService {
                     Map.of("role", "system", "content", systemPrompt),
                     Map.of("role", "user", "content", description)));
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> response = restTemplate.postForEntity(GROQ_URL, entity, String.class);
-
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(response.getBody());
+            JsonNode root = postChat("analyze_complaint", requestBody);
             String aiText = root.path("choices").get(0).path("message").path("content").asText();
 
             JsonNode jsonResult = mapper.readTree(aiText);
@@ -74,7 +189,9 @@ public class AiAnalysisService {
 
         } catch (Exception e) {
             System.err.println("❌ Groq Analysis Error: " + e.getMessage());
-            e.printStackTrace();
+            if (!isShed(e)) {
+                e.printStackTrace();
+            }
             result.put("category", "Other");
             result.put("priority", "Low");
             result.put("is_fake", "false");
@@ -88,14 +205,9 @@ public class AiAnalysisService {
     // METHOD 2: CHAT PARSER
     // ---------------------------------------------------------
     public Map<String, Object> parseComplaintFromChat(String userText) {
-        RestTemplate restTemplate = new RestTemplate();
         Map<String, Object> result = new HashMap<>();
 
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiKey);
-
             String systemPrompt = "You are a Complaint Parser. Extract details from the user's story.\n" +
                     "Return ONLY a JSON object with these keys (use null if not found):\n" +
                     "- \"incidentType\": String (Category)\n" +
@@ -114,11 +226,7 @@ public class AiAnalysisService {
                     Map.of("role", "system", "content", systemPrompt),
                     Map.of("role", "user", "content", userText)));
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> response = restTemplate.postForEntity(GROQ_URL, entity, String.class);
-
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(response.getBody());
+            JsonNode root = postChat("parse_chat", requestBody);
             String aiText = root.path("choices").get(0).path("message").path("content").asText();
 
             result = mapper.readValue(aiText, Map.class);
@@ -134,55 +242,79 @@ public class AiAnalysisService {
     // METHOD 3: GENERATE ACTION REPORT
     // ---------------------------------------------------------
     public String generateActionReport(String category, String busName, String actionTaken) {
-        RestTemplate restTemplate = new RestTemplate();
-        String report = "";
-
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiKey);
-
-            String systemPrompt = "You are a professional Police Communications Officer. Write a polite, formal, and reassuring message to a citizen.";
-
-            String userPrompt = String.format(
-                    "Draft a short response to a complainant. " +
-                            "Details: Complaint about '%s' on bus '%s' has been resolved. " +
-                            "Action Taken: %s. " +
-                            "The tone should be professional and encourage them to report again if needed.",
-                    category, busName, actionTaken);
-
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", MODEL_NAME);
-            requestBody.put("messages", List.of(
-                    Map.of("role", "system", "content", systemPrompt),
-                    Map.of("role", "user", "content", userPrompt)));
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> response = restTemplate.postForEntity(GROQ_URL, entity, String.class);
-
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(response.getBody());
-            report = root.path("choices").get(0).path("message").path("content").asText();
-
+            return requestActionReport(category, busName, actionTaken);
         } catch (Exception e) {
             System.err.println("❌ Groq Action Report Error: " + e.getMessage());
-            report = "Dear Citizen, your complaint regarding " + busName + " has been resolved. Action: " + actionTaken;
+            return actionReportFallback(busName, actionTaken);
         }
-        return report;
+    }
+
+    /**
+     * Same as {@link #generateActionReport} but lets failures propagate, so
+     * callers can tell a real draft from the canned fallback.
+     */
+    public String requestActionReport(String category, String busName, String actionTaken) throws Exception {
+
+        String systemPrompt = "You are a professional Police Communications Officer. Write a polite, formal, and reassuring message to a citizen.";
+
+        String userPrompt = String.format(
+                "Draft a short response to a complainant. " +
+                        "Details: Complaint about '%s' on bus '%s' has been resolved. " +
+                        "Action Taken: %s. " +
+                        "The tone should be professional and encourage them to report again if needed.",
+                category, busName, actionTaken);
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", MODEL_NAME);
+        requestBody.put("messages", List.of(
+                Map.of("role", "system", "content", systemPrompt),
+                Map.of("role", "user", "content", userPrompt)));
+
+        JsonNode root = postChat("action_report", requestBody);
+        return root.path("choices").get(0).path("message").path("content").asText();
+    }
+
+    /**
+     * A resolution message for a kind of action rather than one report: the
+     * reply carries {@code busPlaceholder} and {@code actionPlaceholder}
+     * where the bus and the action taken go, so it can be filled in for every
+     * report of that kind. Failures propagate.
+     */
+    public String requestActionReportTemplate(String category, String actionKind, String busPlaceholder,
+            String actionPlaceholder) throws Exception {
+
+        String systemPrompt = "You are a professional Police Communications Officer. Write a polite, formal, and reassuring message to a citizen.";
+
+        String userPrompt = String.format(
+                "Draft a short response to a complainant. " +
+                        "Details: Complaint about '%s' on bus %s has been resolved. " +
+                        "Action Taken (%s): %s. " +
+                        "The tone should be professional and encourage them to report again if needed. " +
+                        "Write %s and %s exactly as given, once each, where those details belong; do not fill them in.",
+                category, busPlaceholder, actionKind, actionPlaceholder, busPlaceholder, actionPlaceholder);
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", MODEL_NAME);
+        requestBody.put("messages", List.of(
+                Map.of("role", "system", "content", systemPrompt),
+                Map.of("role", "user", "content", userPrompt)));
+
+        JsonNode root = postChat("action_report", requestBody);
+        return root.path("choices").get(0).path("message").path("content").asText();
+    }
+
+    public String actionReportFallback(String busName, String actionTaken) {
+        return "Dear Citizen, your complaint regarding " + busName + " has been resolved. Action: " + actionTaken;
     }
 
     // ---------------------------------------------------------
     // METHOD 3.5: GENERATE PROJECT EMAIL (Antigravity)
     // ---------------------------------------------------------
     public String generateProjectEmail(String projectTopic, String updateDetails) {
-        RestTemplate restTemplate = new RestTemplate();
         String emailBody = "";
 
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiKey);
-
             String systemPrompt = "You are a professional technical communication assistant. " +
                     "Your task is to draft a formal, clear, and concise email update based on the project details provided by the user. "
                     +
@@ -200,11 +332,7 @@ public class AiAnalysisService {
                     Map.of("role", "system", "content", systemPrompt),
                     Map.of("role", "user", "content", userPrompt)));
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> response = restTemplate.postForEntity(GROQ_URL, entity, String.class);
-
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(response.getBody());
+            JsonNode root = postChat("project_email", requestBody);
             emailBody = root.path("choices").get(0).path("message").path("content").asText();
 
         } catch (Exception e) {
@@ -217,22 +345,17 @@ public class AiAnalysisService {
     // ---------------------------------------------------------
     // METHOD 4: DUPLICATE CHECK (Returns ID of match, or -1 if none)
     // ---------------------------------------------------------
-    public long checkDuplicate(String currentDescription, List<Map<String, Object>> recentComplaints) {
+    public long checkDuplicate(String currentDescription, List<Complaint> recentComplaints) {
         if (recentComplaints == null || recentComplaints.isEmpty()) {
             return -1;
         }
 
-        RestTemplate restTemplate = new RestTemplate();
         long matchId = -1;
 
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiKey);
-
             StringBuilder recentText = new StringBuilder();
-            for (Map<String, Object> c : recentComplaints) {
-                recentText.append(String.format("- [ID: %s] %s\n", c.get("id"), c.get("description")));
+            for (Complaint c : recentComplaints) {
+                recentText.append(String.format("- [ID: %s] %s\n", c.id(), c.description()));
             }
 
             String systemPrompt = "You are an Incident Clustering AI. " +
@@ -252,11 +375,7 @@ public class AiAnalysisService {
                     Map.of("role", "system", "content", systemPrompt),
                     Map.of("role", "user", "content", userPrompt)));
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> response = restTemplate.postForEntity(GROQ_URL, entity, String.class);
-
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(response.getBody());
+            JsonNode root = postChat("duplicate_check", requestBody);
             String aiText = root.path("choices").get(0).path("message").path("content").asText();
 
             JsonNode jsonResult = mapper.readTree(aiText);
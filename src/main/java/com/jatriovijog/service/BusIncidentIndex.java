@@ -0,0 +1,318 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.event.ComplaintChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory incident index keyed by bus_number.
+ *
+ * Built once at startup from a narrow projection of the complaints table,
+ * read in id order one page at a time, and then kept current from
+ * {@link ComplaintChangedEvent}s, so per-bus lookups never scan the table.
+ * For each bus it keeps the set of open complaint ids,
+ * a category histogram and a risk score where every complaint contributes its
+ * priority weight, halving every {@code bus.risk.half-life-hours}.
+ */
+@Service
+public class BusIncidentIndex {
+
+    private static final Set<String> OPEN_STATUSES = Set.of("new", "working");
+    // Rows per keyset page; PostgREST caps a response at max-rows (1000 on Supabase)
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final SupabaseService supabaseService;
+    private final double decayPerMs;
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, BusProfile> buses = new HashMap<>();
+    private volatile boolean ready = false;
+    // Events seen while a rebuild's read is in flight, replayed onto its
+    // snapshot; null when no rebuild is running
+    private List<ComplaintChangedEvent> pending;
+
+    public BusIncidentIndex(SupabaseService supabaseService,
+            @Value("${bus.risk.half-life-hours:168}") double halfLifeHours) {
+        this.supabaseService = supabaseService;
+        this.decayPerMs = Math.log(2) / (halfLifeHours * 3_600_000d);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            if (pending != null) {
+                return;
+            }
+            pending = new ArrayList<>();
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        loadPage(0L, rows)
+                .subscribe(null, e -> {
+                    synchronized (this) {
+                        pending = null;
+                    }
+                    System.err.println("❌ Bus incident index build failed: " + e.getMessage());
+                }, () -> {
+                    int replayed;
+                    synchronized (this) {
+                        entries.clear();
+                        buses.clear();
+                        rows.forEach(this::apply);
+                        // Writes made during the read may be missing from it; their
+                        // events carry the full row, so applying them again is harmless
+                        replayed = pending.size();
+                        pending.forEach(this::applyEvent);
+                        pending = null;
+                        ready = true;
+                    }
+                    System.out.println("🚌 Bus incident index built: " + rows.size() + " complaints, "
+                            + buses.size() + " buses, " + replayed + " changes replayed");
+                });
+    }
+
+    private Mono<Void> loadPage(long afterId, List<Map<String, Object>> sink) {
+        return supabaseService.getComplaintIndexRows(afterId, REBUILD_PAGE_SIZE)
+                .flatMap(rows -> {
+                    long lastId = afterId;
+                    for (Map<String, Object> row : rows) {
+                        lastId = ((Number) row.get("id")).longValue();
+                        sink.add(row);
+                    }
+                    return rows.size() < REBUILD_PAGE_SIZE ? Mono.<Void>empty() : loadPage(lastId, sink);
+                });
+    }
+
+    @EventListener
+    public synchronized void onComplaintChanged(ComplaintChangedEvent event) {
+        if (pending != null) {
+            pending.add(event);
+        }
+        applyEvent(event);
+    }
+
+    private void applyEvent(ComplaintChangedEvent event) {
+        if (event.type() == ComplaintChangedEvent.Type.DELETED) {
+            remove(event.id());
+        } else {
+            apply(event.row());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Ids of all complaints recorded against this bus. */
+    public synchronized List<Long> complaintIds(String busNumber) {
+        BusProfile bus = buses.get(key(busNumber));
+        return bus == null ? List.of() : new ArrayList<>(bus.allIds);
+    }
+
+    /** Ids of new/working complaints for this bus, optionally also matching bus_name. */
+    public synchronized List<Long> openComplaintIds(String busName, String busNumber) {
+        BusProfile bus = buses.get(key(busNumber));
+        if (bus == null) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Long id : bus.openIds) {
+            Entry e = entries.get(id);
+            if (busName == null || busName.equals(e.busName)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    public synchronized Map<String, Object> profile(String busNumber) {
+        BusProfile bus = buses.get(key(busNumber));
+        return bus == null ? null : bus.toMap(System.currentTimeMillis());
+    }
+
+    public synchronized List<Map<String, Object>> topRisky(int limit) {
+        long now = System.currentTimeMillis();
+        PriorityQueue<BusProfile> top = new PriorityQueue<>(
+                Comparator.comparingDouble((BusProfile b) -> b.riskAt(now)));
+        for (BusProfile bus : buses.values()) {
+            top.offer(bus);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Map<String, Object>> out = new ArrayList<>();
+        while (!top.isEmpty()) {
+            out.add(0, top.poll().toMap(now));
+        }
+        return out;
+    }
+
+    // ---------- index maintenance (callers hold the lock) ----------
+
+    private void apply(Map<String, Object> row) {
+        if (row.get("id") == null) {
+            return;
+        }
+        long id = ((Number) row.get("id")).longValue();
+        Entry old = entries.get(id);
+
+        Entry e = new Entry();
+        e.id = id;
+        e.busNumber = row.containsKey("bus_number") ? (String) row.get("bus_number") : old == null ? null : old.busNumber;
+        e.busName = row.containsKey("bus_name") ? (String) row.get("bus_name") : old == null ? null : old.busName;
+        e.status = row.containsKey("status") ? lower(row.get("status")) : old == null ? "new" : old.status;
+        e.category = row.containsKey("category") ? (String) row.get("category") : old == null ? null : old.category;
+        e.createdAt = old != null ? old.createdAt : parseTime(row.get("created_at"));
+
+        if ("fake".equals(e.status)) {
+            e.weight = 0;
+        } else if (old != null && "resolved".equals(e.status)) {
+            // Resolving lowers the stored priority; the incident itself still counts
+            e.weight = old.weight;
+        } else {
+            e.weight = priorityWeight(row.containsKey("priority") ? row.get("priority") : null, old);
+        }
+
+        if (old != null) {
+            remove(id);
+        }
+        if (e.busNumber == null || e.busNumber.isBlank()) {
+            return;
+        }
+
+        entries.put(id, e);
+        BusProfile bus = buses.computeIfAbsent(key(e.busNumber), k -> new BusProfile(e.busNumber));
+        bus.add(e);
+    }
+
+    private void remove(long id) {
+        Entry e = entries.remove(id);
+        if (e == null) {
+            return;
+        }
+        String k = key(e.busNumber);
+        BusProfile bus = buses.get(k);
+        if (bus != null) {
+            bus.remove(e);
+            if (bus.allIds.isEmpty()) {
+                buses.remove(k);
+            }
+        }
+    }
+
+    private static double priorityWeight(Object priority, Entry old) {
+        if (priority == null) {
+            return old != null ? old.weight : 1;
+        }
+        return switch (lower(priority)) {
+            case "high" -> 3;
+            case "medium" -> 2;
+            default -> 1;
+        };
+    }
+
+    private static String key(String busNumber) {
+        return busNumber == null ? "" : busNumber.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String lower(Object o) {
+        return o == null ? "" : String.valueOf(o).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long parseTime(Object createdAt) {
+        if (createdAt != null) {
+            try {
+                return OffsetDateTime.parse(String.valueOf(createdAt)).toInstant().toEpochMilli();
+            } catch (Exception ignored) {
+            }
+        }
+        return System.currentTimeMillis();
+    }
+
+    private static class Entry {
+        long id;
+        String busNumber;
+        String busName;
+        String status;
+        String category;
+        long createdAt;
+        double weight;
+    }
+
+    private class BusProfile {
+        final String busNumber;
+        String busName;
+        final Set<Long> allIds = new HashSet<>();
+        final Set<Long> openIds = new HashSet<>();
+        final Map<String, Integer> categories = new TreeMap<>();
+        // risk = sum(weight * e^(-decay * (t - created))), stored as its value at riskTime
+        double risk;
+        long riskTime;
+
+        BusProfile(String busNumber) {
+            this.busNumber = busNumber;
+        }
+
+        double riskAt(long now) {
+            return risk * Math.exp(-decayPerMs * (now - riskTime));
+        }
+
+        void add(Entry e) {
+            allIds.add(e.id);
+            if (OPEN_STATUSES.contains(e.status)) {
+                openIds.add(e.id);
+            }
+            if (e.busName != null) {
+                busName = e.busName;
+            }
+            if (e.category != null) {
+                categories.merge(e.category, 1, Integer::sum);
+            }
+            shiftRisk(e, 1);
+        }
+
+        void remove(Entry e) {
+            allIds.remove(e.id);
+            openIds.remove(e.id);
+            if (e.category != null) {
+                categories.computeIfPresent(e.category, (k, v) -> v > 1 ? v - 1 : null);
+            }
+            shiftRisk(e, -1);
+        }
+
+        private void shiftRisk(Entry e, int sign) {
+            long now = System.currentTimeMillis();
+            double contribution = e.weight * Math.exp(-decayPerMs * Math.max(0, now - e.createdAt));
+            risk = Math.max(0, riskAt(now) + sign * contribution);
+            riskTime = now;
+        }
+
+        Map<String, Object> toMap(long now) {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("busNumber", busNumber);
+            out.put("busName", busName);
+            out.put("totalComplaints", allIds.size());
+            out.put("openComplaints", openIds.size());
+            out.put("openComplaintIds", new ArrayList<>(openIds));
+            out.put("categories", new LinkedHashMap<>(categories));
+            out.put("riskScore", Math.round(riskAt(now) * 100) / 100.0);
+            return out;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.jatriovijog.service;
+
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table versions and changed row ids, for ETags and {@code ?since=} delta
+ * sync on the list endpoints.
+ *
+ * Both come from the database (V7__sync_versions.sql): a trigger bumps the
+ * table's version on every write and stamps the row's {@code sync_changes}
+ * entry with it. Every instance behind the load balancer therefore sees the
+ * same version, whichever instance, or tool, made the write, and cursors
+ * stay valid across restarts. Versions become visible in order, so the
+ * changes after a cursor are complete up to the newest one returned.
+ */
+@Service
+public class ChangeLog {
+
+    public static final String COMPLAINTS = "complaints";
+    public static final String EMERGENCIES = "emergency_reports";
+
+    private final SupabaseService supabaseService;
+
+    public ChangeLog(SupabaseService supabaseService) {
+        this.supabaseService = supabaseService;
+    }
+
+    /**
+     * Changed and deleted ids after a cursor.
+     */
+    public record Changes(String cursor, List<Long> changed, List<Long> deleted) {
+    }
+
+    /** Cursor for the table as it is now. */
+    public Mono<String> cursor(String table) {
+        return supabaseService.getSyncVersion(table).map(String::valueOf);
+    }
+
+    /**
+     * Ids changed after {@code cursor}, or empty when the cursor is malformed,
+     * ahead of the database (restored from a backup) or more than
+     * {@code maxRows} rows behind.
+     */
+    public Mono<Changes> since(String table, String cursor, int maxRows) {
+        long from = parse(cursor);
+        if (from < 0) {
+            return Mono.empty();
+        }
+        return Mono.zip(supabaseService.getSyncVersion(table), supabaseService.getSyncChanges(table, from, maxRows + 1))
+                .flatMap(loaded -> {
+                    List<Map<String, Object>> rows = loaded.getT2();
+                    if (from > loaded.getT1() || rows.size() > maxRows) {
+                        return Mono.empty();
+                    }
+                    long version = from;
+                    List<Long> changed = new ArrayList<>();
+                    List<Long> deleted = new ArrayList<>();
+                    for (Map<String, Object> row : rows) {
+                        long id = ((Number) row.get("row_id")).longValue();
+                        (Boolean.TRUE.equals(row.get("deleted")) ? deleted : changed).add(id);
+                        version = Math.max(version, ((Number) row.get("version")).longValue());
+                    }
+                    return Mono.just(new Changes(String.valueOf(version), changed, deleted));
+                });
+    }
+
+    private static long parse(String cursor) {
+        try {
+            return cursor == null ? -1 : Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.jatriovijog.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams complaints out as CSV or gzipped JSON Lines for offline analysis.
+ *
+ * Rows are read in id order one keyset page at a time ({@code id > last id
+ * seen}), and each page is written and flushed before the next is fetched,
+ * so memory stays at one page however many complaints match. Photos
+ * ({@code image_url}, inline base64) are only exported when asked for, and
+ * then in much smaller pages, since a page of them can run to megabytes.
+ *
+ * A page that fails mid-export aborts the response. The client then sees a
+ * truncated transfer, not a short file that looks complete.
+ */
+@Service
+public class ComplaintExporter {
+
+    public enum Format {
+        CSV, JSONL
+    }
+
+    /** Exportable columns, in table order. */
+    public static final List<String> COLUMNS = List.of("id", "created_at", "status", "priority", "category",
+            "thana", "route", "bus_name", "bus_number", "company_name", "landmark", "seat_info", "description",
+            "translated_text", "verification_note", "reporter_type", "reporter_name", "reporter_email",
+            "reporter_phone", "latitude", "longitude", "accuracy", "user_id", "report_count", "image_url");
+
+    public static final String MEDIA_COLUMN = "image_url";
+
+    private final SupabaseService supabaseService;
+    private final ObjectMapper objectMapper;
+    private final int pageSize;
+    private final int mediaPageSize;
+    private final Duration pageTimeout;
+
+    public ComplaintExporter(SupabaseService supabaseService, ObjectMapper objectMapper,
+            @Value("${export.page-size:1000}") int pageSize,
+            @Value("${export.media-page-size:20}") int mediaPageSize,
+            @Value("${export.page-timeout:30s}") Duration pageTimeout) {
+        this.supabaseService = supabaseService;
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+        this.mediaPageSize = mediaPageSize;
+        this.pageTimeout = pageTimeout;
+    }
+
+    /**
+     * Write every complaint matching the filters (each may be null) to
+     * {@code out}. Blocks the calling thread until done; returns the number
+     * of rows written.
+     */
+    public long export(Format format, List<String> columns, String from, String to, String thana,
+            OutputStream out) throws IOException {
+        // id is always read, for the cursor, even when it is not exported
+        String select = columns.contains("id") ? String.join(",", columns) : "id," + String.join(",", columns);
+        int limit = columns.contains(MEDIA_COLUMN) ? mediaPageSize : pageSize;
+
+        OutputStream target = format == Format.JSONL ? new GZIPOutputStream(out, 8192, true) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            // Byte order mark, so spreadsheet apps read the Bangla text as UTF-8
+            writer.write('\uFEFF');
+            writeCsvRow(writer, columns);
+        }
+
+        long written = 0;
+        long afterId = 0;
+        while (true) {
+            List<Map<String, Object>> page = supabaseService
+                    .getComplaintExportPage(select, afterId, from, to, thana, limit)
+                    .block(pageTimeout);
+            if (page == null || page.isEmpty()) {
+                break;
+            }
+            for (Map<String, Object> row : page) {
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, columns.stream().map(row::get).toList());
+                } else {
+                    Map<String, Object> selected = new LinkedHashMap<>();
+                    columns.forEach(c -> selected.put(c, row.get(c)));
+                    writer.write(objectMapper.writeValueAsString(selected));
+                    writer.write('\n');
+                }
+            }
+            written += page.size();
+            afterId = ((Number) page.get(page.size() - 1).get("id")).longValue();
+            // Push the page to the client before reading the next one
+            writer.flush();
+            if (page.size() < limit) {
+                break;
+            }
+        }
+
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzip) {
+            gzip.finish();
+        }
+        return written;
+    }
+
+    private static void writeCsvRow(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180 quoting. Text that a spreadsheet would run as a formula gets a
+    // leading apostrophe, since complaint text comes from the public.
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String s = String.valueOf(value);
+        if (value instanceof CharSequence && !s.isEmpty() && "=+-@\t\r".indexOf(s.charAt(0)) >= 0) {
+            s = "'" + s;
+        }
+        if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+            return '"' + s.replace("\"", "\"\"") + '"';
+        }
+        return s;
+    }
+}
@@ -0,0 +1,274 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.event.ComplaintChangedEvent;
+import com.jatriovijog.util.BanglaTokenizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over complaint text, ranked with BM25.
+ *
+ * Indexed fields are description, translated_text, bus_name, bus_number and
+ * landmark; the short identifying fields count double. Terms come from
+ * {@link BanglaTokenizer}, so Bangla, Banglish and English spellings of the
+ * same word land on the same posting list. The last query term also matches
+ * as a prefix, which makes search-as-you-type work.
+ *
+ * Kept current from {@link ComplaintChangedEvent}s and rebuilt from the
+ * database at startup or on demand via {@link #rebuild()}. Events that
+ * arrive while a rebuild is paging through the table are applied to the
+ * live index and replayed onto the fresh one after the swap.
+ */
+@Service
+public class ComplaintSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final SupabaseService supabaseService;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (complaint id -> weighted term frequency)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    // complaint id -> its terms, needed to unindex on update/delete
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+    private final Map<Long, Integer> documentLengths = new HashMap<>();
+    private long totalLength = 0;
+    // Events seen since the running rebuild started; null when none is running
+    private List<ComplaintChangedEvent> pending;
+    private Mono<Integer> running;
+
+    public ComplaintSearchIndex(SupabaseService supabaseService) {
+        this.supabaseService = supabaseService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild().subscribe(
+                count -> System.out.println("🔎 Search index built: " + count + " complaints"),
+                e -> System.err.println("❌ Search index build failed: " + e.getMessage()));
+    }
+
+    /**
+     * Re-read every complaint (in id order, one page at a time) into a fresh
+     * index and swap it in. Returns the number of indexed complaints. A call
+     * while a rebuild is running joins it instead of starting another.
+     */
+    public synchronized Mono<Integer> rebuild() {
+        if (running == null) {
+            running = Mono.defer(this::load)
+                    .doFinally(signal -> {
+                        synchronized (this) {
+                            running = null;
+                        }
+                    })
+                    .cache();
+        }
+        return running;
+    }
+
+    private Mono<Integer> load() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Long, Map<String, Object>> fresh = new LinkedHashMap<>();
+        return loadPage(0L, fresh)
+                .then(Mono.fromCallable(() -> {
+                    lock.writeLock().lock();
+                    try {
+                        postings.clear();
+                        documents.clear();
+                        documentLengths.clear();
+                        totalLength = 0;
+                        fresh.forEach(this::index);
+                        // Writes made during the load may be missing from it, or
+                        // in it already; events carry the full row, so replaying is safe
+                        pending.forEach(this::apply);
+                        pending = null;
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    return fresh.size();
+                }))
+                .doOnError(e -> {
+                    lock.writeLock().lock();
+                    try {
+                        pending = null;
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                });
+    }
+
+    private Mono<Void> loadPage(long afterId, Map<Long, Map<String, Object>> sink) {
+        return supabaseService.getComplaintSearchRows(afterId, REBUILD_PAGE_SIZE)
+                .flatMap(rows -> {
+                    long lastId = afterId;
+                    for (Map<String, Object> row : rows) {
+                        lastId = ((Number) row.get("id")).longValue();
+                        sink.put(lastId, row);
+                    }
+                    return rows.size() < REBUILD_PAGE_SIZE ? Mono.<Void>empty() : loadPage(lastId, sink);
+                });
+    }
+
+    @EventListener
+    public void onComplaintChanged(ComplaintChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            }
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // caller holds the write lock
+    private void apply(ComplaintChangedEvent event) {
+        unindex(event.id());
+        if (event.type() != ComplaintChangedEvent.Type.DELETED) {
+            index(event.id(), event.row());
+        }
+    }
+
+    /**
+     * Ranked hits as {id, score}, best first.
+     */
+    public List<Map<String, Object>> search(String query, int limit) {
+        List<String> terms = BanglaTokenizer.tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int n = documents.size();
+            if (n == 0) {
+                return List.of();
+            }
+            double avgLength = (double) totalLength / n;
+
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                boolean last = i == terms.size() - 1;
+
+                if (last && term.length() >= 3) {
+                    // prefix expansion for the term being typed
+                    for (Map.Entry<String, Map<Long, Integer>> e
+                            : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                        double weight = e.getKey().equals(term) ? 1.0 : 0.5;
+                        score(e.getValue(), n, avgLength, weight, scores);
+                    }
+                } else {
+                    Map<Long, Integer> list = postings.get(term);
+                    if (list != null) {
+                        score(list, n, avgLength, 1.0, scores);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+
+        List<Map<String, Object>> hits = new ArrayList<>();
+        for (Map.Entry<Long, Double> e : ranked.subList(0, Math.min(limit, ranked.size()))) {
+            Map<String, Object> hit = new LinkedHashMap<>();
+            hit.put("id", e.getKey());
+            hit.put("score", Math.round(e.getValue() * 1000) / 1000.0);
+            hits.add(hit);
+        }
+        return hits;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void score(Map<Long, Integer> postingList, int n, double avgLength, double weight,
+            Map<Long, Double> scores) {
+        int df = postingList.size();
+        double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+        for (Map.Entry<Long, Integer> p : postingList.entrySet()) {
+            int tf = p.getValue();
+            int docLength = documentLengths.get(p.getKey());
+            double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * docLength / avgLength));
+            scores.merge(p.getKey(), weight * idf * norm, Double::sum);
+        }
+    }
+
+    // ---------- callers hold the write lock ----------
+
+    private void index(long id, Map<String, Object> row) {
+        Map<String, Integer> terms = new HashMap<>();
+        addField(terms, row.get("description"), 1);
+        addField(terms, row.get("translated_text"), 1);
+        addField(terms, row.get("bus_name"), 2);
+        addField(terms, row.get("bus_number"), 2);
+        addField(terms, row.get("landmark"), 2);
+        if (terms.isEmpty()) {
+            return;
+        }
+
+        int length = 0;
+        for (Map.Entry<String, Integer> e : terms.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), t -> new HashMap<>()).put(id, e.getValue());
+            length += e.getValue();
+        }
+        documents.put(id, terms);
+        documentLengths.put(id, length);
+        totalLength += length;
+    }
+
+    private void unindex(long id) {
+        Map<String, Integer> terms = documents.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Long, Integer> list = postings.get(term);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= documentLengths.remove(id);
+    }
+
+    private static void addField(Map<String, Integer> terms, Object value, int boost) {
+        if (value == null) {
+            return;
+        }
+        for (String term : BanglaTokenizer.tokenize(String.valueOf(value))) {
+            terms.merge(term, boost, Integer::sum);
+        }
+    }
+}
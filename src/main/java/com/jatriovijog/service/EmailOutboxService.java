@@ -0,0 +1,244 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.config.BlockingCalls;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable email delivery. Emails are first written to the email_outbox table
+ * and then handed to a bounded worker pool. Failed sends are retried with
+ * exponential backoff by the poller; rows that were queued while this
+ * instance was busy or down are picked up the same way.
+ */
+@Service
+public class EmailOutboxService {
+
+    private final SupabaseService supabaseService;
+    private final EmailService emailService;
+
+    private final ThreadPoolExecutor workers;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong pendingInDb = new AtomicLong();
+
+    private final Timer sendTimer;
+    private final Timer failedSendTimer;
+    private final Counter retryCounter;
+    private final Counter deadCounter;
+
+    @Value("${email.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.base-backoff-ms:30000}")
+    private long baseBackoffMs;
+
+    @Value("${email.outbox.lease-ms:120000}")
+    private long leaseMs;
+
+    @Value("${email.outbox.batch-size:20}")
+    private int batchSize;
+
+    public EmailOutboxService(SupabaseService supabaseService,
+            EmailService emailService,
+            MeterRegistry meterRegistry,
+            BlockingCalls blockingCalls,
+            @Value("${email.outbox.workers:4}") int workerCount,
+            @Value("${email.outbox.queue-capacity:100}") int queueCapacity) {
+        this.supabaseService = supabaseService;
+        this.emailService = emailService;
+
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                blockingCalls.threadFactory("email-outbox"));
+
+        Gauge.builder("email.outbox.queue.depth", workers, w -> w.getQueue().size())
+                .description("Emails waiting for a free worker in this instance")
+                .register(meterRegistry);
+        Gauge.builder("email.outbox.pending", pendingInDb, AtomicLong::get)
+                .description("Pending rows in email_outbox as of the last poll")
+                .register(meterRegistry);
+        Gauge.builder("email.outbox.in_flight", inFlight, Set::size)
+                .register(meterRegistry);
+
+        this.sendTimer = Timer.builder("email.outbox.send")
+                .tag("outcome", "success")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.failedSendTimer = Timer.builder("email.outbox.send")
+                .tag("outcome", "failure")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.retryCounter = meterRegistry.counter("email.outbox.retries");
+        this.deadCounter = meterRegistry.counter("email.outbox.dead");
+    }
+
+    /**
+     * Persist an email and try to deliver it right away. The row is inserted
+     * already leased to this instance, so the poller leaves it alone unless
+     * we fail to send it before the lease runs out.
+     */
+    public Mono<Map<String, Object>> enqueue(String toEmail, String subject, String body) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("to_email", toEmail);
+        row.put("subject", subject);
+        row.put("body", body);
+        row.put("status", "pending");
+        row.put("attempts", 0);
+        row.put("next_attempt_at", Instant.now().plusMillis(leaseMs).toString());
+
+        return supabaseService.createOutboxEmail(row)
+                .doOnNext(this::dispatch);
+    }
+
+    /**
+     * Persist an email whose body will be written later (see
+     * {@link ResolutionReportService}). It is not sent until
+     * {@link #completeDraft} moves it to 'pending'.
+     */
+    public Mono<Map<String, Object>> enqueueDraft(String toEmail, String subject, Map<String, Object> draftFields) {
+        Map<String, Object> row = new HashMap<>(draftFields);
+        row.put("to_email", toEmail);
+        row.put("subject", subject);
+        row.put("status", "drafting");
+        row.put("attempts", 0);
+        row.put("next_attempt_at", Instant.now().plusMillis(leaseMs).toString());
+
+        return supabaseService.createOutboxEmail(row);
+    }
+
+    public Mono<Void> completeDraft(long id, String body) {
+        return supabaseService.completeOutboxDraft(id, body, Instant.now().plusMillis(leaseMs).toString())
+                .doOnNext(this::dispatch)
+                .then();
+    }
+
+    /**
+     * Claim up to {@code limit} abandoned drafts (lease expired) so they can
+     * be drafted again.
+     */
+    public Flux<Map<String, Object>> claimStaleDrafts(int limit) {
+        Instant now = Instant.now();
+        String nowIso = now.toString();
+        String leaseUntil = now.plusMillis(leaseMs).toString();
+
+        return supabaseService.getDueOutboxEmails("drafting", nowIso, limit)
+                .flatMapIterable(rows -> rows)
+                .concatMap(row -> supabaseService.claimOutboxEmail(id(row), "drafting", nowIso, leaseUntil)
+                        .filter(Boolean::booleanValue)
+                        .map(claimed -> row));
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:15000}")
+    public void pollDueEmails() {
+        Instant now = Instant.now();
+        String nowIso = now.toString();
+        String leaseUntil = now.plusMillis(leaseMs).toString();
+
+        int room = workers.getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+
+        supabaseService.getDueOutboxEmails("pending", nowIso, Math.min(batchSize, room))
+                .flatMapIterable(rows -> rows)
+                .filter(row -> !inFlight.contains(id(row)))
+                .concatMap(row -> supabaseService.claimOutboxEmail(id(row), "pending", nowIso, leaseUntil)
+                        .filter(Boolean::booleanValue)
+                        .map(claimed -> row))
+                .doOnNext(this::dispatch)
+                .then(supabaseService.countPendingOutboxEmails())
+                .subscribe(pendingInDb::set,
+                        e -> System.err.println("❌ Email outbox poll failed: " + e.getMessage()));
+    }
+
+    private void dispatch(Map<String, Object> row) {
+        long id = id(row);
+        if (!inFlight.add(id)) {
+            return;
+        }
+        try {
+            workers.execute(() -> deliver(row));
+        } catch (RejectedExecutionException e) {
+            // Pool is saturated; the lease expires and the poller retries it
+            inFlight.remove(id);
+            System.err.println("⚠️ Email outbox full, deferring email #" + id);
+        }
+    }
+
+    private void deliver(Map<String, Object> row) {
+        long id = id(row);
+        int attempts = row.get("attempts") == null ? 0 : ((Number) row.get("attempts")).intValue();
+        long start = System.nanoTime();
+
+        Map<String, Object> update = new HashMap<>();
+        try {
+            emailService.send(
+                    String.valueOf(row.get("to_email")),
+                    String.valueOf(row.get("subject")),
+                    String.valueOf(row.get("body")));
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            update.put("status", "sent");
+            update.put("attempts", attempts + 1);
+            update.put("sent_at", Instant.now().toString());
+            update.put("last_error", null);
+        } catch (Exception e) {
+            failedSendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            System.err.println("❌ Failed to send email #" + id + ": " + e.getMessage());
+
+            int nextAttempt = attempts + 1;
+            update.put("attempts", nextAttempt);
+            update.put("last_error", e.getMessage());
+            if (nextAttempt >= maxAttempts) {
+                update.put("status", "failed");
+                deadCounter.increment();
+            } else {
+                update.put("next_attempt_at", Instant.now().plus(backoff(nextAttempt)).toString());
+                retryCounter.increment();
+            }
+        }
+
+        try {
+            supabaseService.updateOutboxEmail(id, update).block(Duration.ofSeconds(30));
+        } catch (Exception e) {
+            // Row keeps its lease and will be retried once it expires
+            System.err.println("❌ Failed to record outbox result for #" + id + ": " + e.getMessage());
+        } finally {
+            inFlight.remove(id);
+        }
+    }
+
+    private Duration backoff(int attempt) {
+        long factor = 1L << Math.min(attempt - 1, 10);
+        return Duration.ofMillis(baseBackoffMs * factor);
+    }
+
+    private static long id(Map<String, Object> row) {
+        return ((Number) row.get("id")).longValue();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(20, TimeUnit.SECONDS);
+    }
+}
@@ -1,33 +1,121 @@
 package com.jatriovijog.service;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Low level SMTP delivery. Connected transports are kept in a small pool and
+ * reused across messages, so a burst of outbox sends does not pay for a fresh
+ * TCP + STARTTLS + AUTH handshake per email. Callers (the outbox workers)
+ * get exceptions back so they can decide whether to retry.
+ *
+ * Metrics: {@code email.smtp.connect} times new connections (pool misses),
+ * {@code email.payload.bytes} records message body sizes. End-to-end send
+ * latency is {@code email.outbox.send} in {@link EmailOutboxService}.
+ */
 @Service
 public class EmailService {
 
-    @Autowired
-    private JavaMailSender mailSender;
+    private final JavaMailSenderImpl mailSender;
+    private final BlockingQueue<Transport> idleTransports;
+    private final Timer connectTimer;
+    private final DistributionSummary payloadBytes;
 
     @Value("${spring.mail.username}")
     private String senderEmail;
 
-    public void sendResolutionEmail(String toEmail, String subject, String body) {
+    public EmailService(JavaMailSenderImpl mailSender,
+            @Value("${email.outbox.workers:4}") int poolSize,
+            MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.idleTransports = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        this.connectTimer = Timer.builder("email.smtp.connect")
+                .description("New SMTP connections (TCP + STARTTLS + AUTH)")
+                .register(meterRegistry);
+        this.payloadBytes = DistributionSummary.builder("email.payload.bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public void send(String toEmail, String subject, String body) throws MessagingException {
+        Session session = mailSender.getSession();
+
+        MimeMessage message = new MimeMessage(session);
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(senderEmail);
+        helper.setTo(toEmail);
+        helper.setSubject(subject);
+        helper.setText(body);
+        message.saveChanges();
+        payloadBytes.record(body.getBytes(StandardCharsets.UTF_8).length);
+
+        Transport transport = borrowTransport(session);
+        boolean sent = false;
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(senderEmail);
-            message.setTo(toEmail);
-            message.setSubject(subject);
-            message.setText(body);
-
-            mailSender.send(message);
-            System.out.println("✅ Email Sent Successfully to: " + toEmail);
-        } catch (Exception e) {
-            System.err.println("❌ Failed to send email: " + e.getMessage());
-            e.printStackTrace();
+            transport.sendMessage(message, message.getAllRecipients());
+            sent = true;
+        } finally {
+            if (sent) {
+                releaseTransport(transport);
+            } else {
+                // Whatever went wrong, the connection may be half-broken: never hand it out again
+                closeQuietly(transport);
+            }
+        }
+        System.out.println("✅ Email Sent Successfully to: " + toEmail);
+    }
+
+    private Transport borrowTransport(Session session) throws MessagingException {
+        Transport transport;
+        while ((transport = idleTransports.poll()) != null) {
+            // isConnected() issues a NOOP, which also catches server-side idle timeouts
+            if (transport.isConnected()) {
+                return transport;
+            }
+            closeQuietly(transport);
+        }
+
+        long start = System.nanoTime();
+        transport = session.getTransport(mailSender.getProtocol());
+        transport.connect(mailSender.getHost(), mailSender.getPort(),
+                mailSender.getUsername(), mailSender.getPassword());
+        connectTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return transport;
+    }
+
+    private void releaseTransport(Transport transport) {
+        if (!idleTransports.offer(transport)) {
+            closeQuietly(transport);
+        }
+    }
+
+    private void closeQuietly(Transport transport) {
+        try {
+            transport.close();
+        } catch (Exception ignored) {
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        Transport transport;
+        while ((transport = idleTransports.poll()) != null) {
+            closeQuietly(transport);
         }
     }
-}
\ No newline at end of file
+}
@@ -6,8 +6,22 @@ import com.fasterxml.jackson.databind.JsonNode;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import io.micrometer.observation.ObservationRegistry;
+
 import org.springframework.beans.factory.annotation.Value;
 
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
 import org.springframework.http.*;
 
 import org.springframework.stereotype.Service;
@@ -16,8 +30,9 @@ import org.springframework.web.client.RestTemplate;
 
 
 
-import java.util.*;
+import java.time.Duration;
 
+import java.util.*;
 
 
 @Service
@@ -32,7 +47,65 @@ public class ImageAnalysisService {
 
 
 
-        private static final String GEMINI_URL = "https://generativelanguage.googleapis.com/v1beta/models/gemini-3-flash-preview:generateContent";
+        // Overridable to point at a local mock for load tests
+
+        @Value("${gemini.api.url:https://generativelanguage.googleapis.com/v1beta/models/gemini-3-flash-preview:generateContent}")
+
+        private String geminiUrl;
+
+
+
+        private static final String MODEL_NAME = "gemini-3-flash-preview";
+
+
+
+        private final RestTemplate restTemplate;
+
+
+
+        private final ObservationRegistry observationRegistry;
+
+
+
+        private final MeterRegistry meterRegistry;
+
+
+
+        private final CircuitBreaker circuitBreaker;
+
+
+
+        private final Bulkhead bulkhead;
+
+
+
+        public ImageAnalysisService(RestTemplateBuilder restTemplateBuilder,
+
+                        ObservationRegistry observationRegistry, MeterRegistry meterRegistry,
+
+                        CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads,
+
+                        @Value("${ai.gemini.connect-timeout:3s}") Duration connectTimeout,
+
+                        @Value("${ai.gemini.timeout:25s}") Duration timeout) {
+
+                this.restTemplate = restTemplateBuilder
+
+                                .setConnectTimeout(connectTimeout)
+
+                                .setReadTimeout(timeout)
+
+                                .build();
+
+                this.observationRegistry = observationRegistry;
+
+                this.meterRegistry = meterRegistry;
+
+                this.circuitBreaker = circuitBreakers.circuitBreaker("gemini");
+
+                this.bulkhead = bulkheads.bulkhead("gemini");
+
+        }
 
 
 
@@ -48,10 +121,6 @@ public class ImageAnalysisService {
 
                 try {
 
-                        RestTemplate restTemplate = new RestTemplate();
-
-
-
                         HttpHeaders headers = new HttpHeaders();
 
                         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -116,19 +185,39 @@ public class ImageAnalysisService {
 
 
 
-                        ResponseEntity<String> response = restTemplate.postForEntity(
+                        // Request size is dominated by the inline base64 image
 
-                                        GEMINI_URL + "?key=" + apiKey,
+                        AiAnalysisService.recordPayload(meterRegistry, "gemini", "image_analysis", "request",
 
-                                        entity,
+                                        imageUrl.length());
 
-                                        String.class);
+
+
+                        ResponseEntity<String> response = AiAnalysisService.guarded(circuitBreaker, bulkhead,
+
+                                        () -> AiAnalysisService.observeCall(observationRegistry,
+
+                                                        "gemini", MODEL_NAME, "image_analysis",
+
+                                                        () -> restTemplate.postForEntity(
+
+                                                                        geminiUrl + "?key=" + apiKey,
+
+                                                                        entity,
+
+                                                                        String.class)));
+
+                        String body = response.getBody() == null ? "" : response.getBody();
+
+                        AiAnalysisService.recordPayload(meterRegistry, "gemini", "image_analysis", "response",
+
+                                        body.length());
 
 
 
                         ObjectMapper mapper = new ObjectMapper();
 
-                        JsonNode root = mapper.readTree(response.getBody());
+                        JsonNode root = mapper.readTree(body);
 
 
 
@@ -160,6 +249,14 @@ public class ImageAnalysisService {
 
                 } catch (Exception e) {
 
+                        if (AiAnalysisService.isShed(e)) {
+
+                                // Gemini is failing or saturated; don't hold the SOS up waiting on it
+
+                                return "⚠️ Image analysis is temporarily unavailable.";
+
+                        }
+
                         e.printStackTrace();
 
                         return "❌ Image analysis failed: " + e.getMessage();
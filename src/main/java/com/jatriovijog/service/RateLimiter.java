@@ -0,0 +1,129 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process rate limits: one {@link TokenBucket} per key, such as
+ * {@code reactions:ip:203.0.113.7}. Buckets are created on first use and
+ * live in a bounded table of {@code rate-limit.max-keys} entries.
+ *
+ * When the table is over its bound, buckets that have refilled completely
+ * are dropped first, which changes nothing for their keys. If it is still
+ * over (a flood of distinct keys), arbitrary buckets go, so the limiter errs
+ * towards letting requests through rather than growing without limit.
+ *
+ * Limits are per instance: N instances allow N times the configured rate.
+ */
+@Service
+public class RateLimiter {
+
+    // Buckets compare times on this clock, which starts at 0 and only grows
+    private final long origin = System.nanoTime();
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final int maxKeys;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter evicted;
+
+    public RateLimiter(MeterRegistry meterRegistry, @Value("${rate-limit.max-keys:100000}") int maxKeys) {
+        this.meterRegistry = meterRegistry;
+        this.maxKeys = maxKeys;
+
+        Gauge.builder("ratelimit.keys", buckets, Map::size)
+                .description("Rate limit buckets currently tracked")
+                .register(meterRegistry);
+        this.evicted = Counter.builder("ratelimit.evicted")
+                .description("Buckets dropped to keep the key table bounded")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@code capacity} requests at once, refilled evenly over {@code period}.
+     */
+    public record Limit(int capacity, Duration period) {
+
+        /** Parses {@code "30/1m"}: 30 requests per minute, in bursts of up to 30. */
+        public static Limit parse(String spec) {
+            int slash = spec.indexOf('/');
+            if (slash <= 0) {
+                throw new IllegalArgumentException("Rate limit must look like 30/1m: " + spec);
+            }
+            int capacity = Integer.parseInt(spec.substring(0, slash).trim());
+            Duration period = DurationStyle.detectAndParse(spec.substring(slash + 1).trim());
+            if (capacity <= 0 || period.isZero() || period.isNegative()) {
+                throw new IllegalArgumentException("Rate limit must be positive: " + spec);
+            }
+            return new Limit(capacity, period);
+        }
+
+        public Limit times(int factor) {
+            return new Limit(capacity * factor, period);
+        }
+    }
+
+    /**
+     * Take a token from the bucket for {@code rule} and {@code key}.
+     *
+     * @param keyType user, client or ip; only used to tag the rejection metric
+     * @return 0 when allowed, otherwise nanoseconds until the next token
+     */
+    public long tryAcquire(String rule, String keyType, String key, Limit limit) {
+        long now = System.nanoTime() - origin;
+        TokenBucket bucket = buckets.get(rule + ":" + keyType + ":" + key);
+        boolean created = false;
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(rule + ":" + keyType + ":" + key, k -> new TokenBucket());
+            created = true;
+        }
+
+        long wait = bucket.tryTake(limit.capacity(), limit.period().toNanos(), now);
+        // After the take, so the new bucket is not itself swept as full
+        if (created && buckets.size() > maxKeys) {
+            sweep(now);
+        }
+        if (wait > 0) {
+            meterRegistry.counter("ratelimit.rejected", "rule", rule, "key", keyType).increment();
+        }
+        return wait;
+    }
+
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Leave some headroom so the next few new keys do not sweep again
+            int target = maxKeys - maxKeys / 10;
+            int removed = 0;
+            for (Iterator<TokenBucket> it = buckets.values().iterator(); it.hasNext();) {
+                if (it.next().isFull(now)) {
+                    it.remove();
+                    removed++;
+                }
+            }
+            for (Iterator<TokenBucket> it = buckets.values().iterator(); it.hasNext()
+                    && buckets.size() > target;) {
+                it.next();
+                it.remove();
+                removed++;
+            }
+            evicted.increment(removed);
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.event.ComplaintReactedEvent;
+import com.jatriovijog.model.ComplaintReaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind buffer for feed reactions. A tap only records the latest
+ * reaction per (complaint, client) in memory; a flush every
+ * {@code reactions.buffer.flush-interval-ms}, or as soon as
+ * {@code reactions.buffer.batch-size} are waiting, writes them as bulk
+ * upserts. Rapid taps on the same complaint therefore cost one row in one
+ * request instead of one request each.
+ *
+ * Reaction counts are read through here too, with the pending reactions laid
+ * over the stored ones, so a client sees its own tap before it is flushed.
+ * Like {@link BusIncidentIndex}, other instances do not see them until then.
+ *
+ * A failed batch is retried row by row, and a row that keeps failing is
+ * dropped after {@code reactions.buffer.max-attempts} flushes. When nothing
+ * gets through at all, flushes back off exponentially up to 30 seconds.
+ * Whatever is pending at shutdown is flushed once the web server has
+ * stopped taking requests.
+ */
+@Service
+public class ReactionWriteBuffer implements SmartLifecycle {
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final SupabaseService supabaseService;
+    private final ApplicationEventPublisher events;
+
+    // complaint id -> client id -> pending row
+    private final Map<Long, Map<String, Pending>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private volatile long retryAfter; // epoch millis before which the scheduled flush skips
+    private final AtomicInteger failedFlushes = new AtomicInteger();
+    private volatile boolean running;
+
+    private final Counter submitted;
+    private final Counter coalesced;
+    private final Counter rejected;
+    private final Counter written;
+    private final Counter failed;
+    private final Counter dropped;
+    private final DistributionSummary batchSizes;
+
+    @Value("${reactions.buffer.flush-interval-ms:250}")
+    private long flushIntervalMs;
+
+    @Value("${reactions.buffer.batch-size:200}")
+    private int batchSize;
+
+    @Value("${reactions.buffer.max-pending:50000}")
+    private int maxPending;
+
+    @Value("${reactions.buffer.max-attempts:10}")
+    private int maxAttempts;
+
+    public ReactionWriteBuffer(SupabaseService supabaseService, ApplicationEventPublisher events,
+            MeterRegistry meterRegistry) {
+        this.supabaseService = supabaseService;
+        this.events = events;
+
+        Gauge.builder("reactions.buffer.pending", size, AtomicInteger::get)
+                .description("Reactions waiting to be written")
+                .register(meterRegistry);
+        this.submitted = meterRegistry.counter("reactions.buffer.submitted");
+        this.coalesced = Counter.builder("reactions.buffer.coalesced")
+                .description("Reactions replaced by a later tap before being written")
+                .register(meterRegistry);
+        this.rejected = meterRegistry.counter("reactions.buffer.rejected");
+        this.written = meterRegistry.counter("reactions.buffer.written");
+        this.failed = meterRegistry.counter("reactions.buffer.failed");
+        this.dropped = meterRegistry.counter("reactions.buffer.dropped");
+        this.batchSizes = DistributionSummary.builder("reactions.buffer.batch.size")
+                .description("Rows per bulk upsert")
+                .register(meterRegistry);
+    }
+
+    private record Pending(Map<String, Object> row, int attempts) {
+    }
+
+    /**
+     * Refusal of a tap while {@code reactions.buffer.max-pending} are already
+     * waiting, with a hint of when the buffer is likely to have drained.
+     */
+    public static class BufferFullException extends RuntimeException {
+
+        private final long retryAfterSeconds;
+
+        BufferFullException(long retryAfterSeconds) {
+            super("Too many reactions waiting to be saved, try again shortly");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long retryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    /**
+     * Record a reaction. Replaces any reaction from the same client on the
+     * same complaint that has not been written yet. Fails with
+     * {@link BufferFullException} when the buffer is full.
+     */
+    public Mono<Map<String, Object>> submit(long complaintId, String clientId, String reactionType, Long userId) {
+        if (size.get() >= maxPending) {
+            rejected.increment();
+            // While flushes are backing off, nothing drains before the next one
+            long waitMs = Math.max(0, retryAfter - System.currentTimeMillis());
+            return Mono.error(new BufferFullException(Math.max(1, (waitMs + 999) / 1000)));
+        }
+
+        Map<String, Object> row = new HashMap<>();
+        row.put("complaint_id", complaintId);
+        row.put("reaction_type", reactionType);
+        row.put("client_id", clientId);
+        if (userId != null)
+            row.put("user_id", userId);
+
+        pending.compute(complaintId, (id, byClient) -> {
+            if (byClient == null) {
+                byClient = new HashMap<>();
+            }
+            Pending previous = byClient.put(clientId, new Pending(row, 0));
+            if (previous == null) {
+                size.incrementAndGet();
+            } else {
+                coalesced.increment();
+                // A later anonymous tap must not clear the user already on the row
+                if (userId == null && previous.row().get("user_id") != null) {
+                    row.put("user_id", previous.row().get("user_id"));
+                }
+            }
+            return byClient;
+        });
+        submitted.increment();
+        events.publishEvent(new ComplaintReactedEvent(complaintId, clientId));
+
+        if (size.get() >= batchSize) {
+            flushInBackground();
+        }
+        return Mono.just(Map.of("ok", true, "reaction", row));
+    }
+
+    /**
+     * Reaction counts for a complaint, including reactions not written yet.
+     */
+    public Mono<Map<String, Object>> counts(Long complaintId, String clientId) {
+        return supabaseService.getReactions(complaintId)
+                .map(stored -> SupabaseService.tallyReactions(overlay(complaintId, stored), clientId));
+    }
+
+    private List<ComplaintReaction> overlay(Long complaintId, List<ComplaintReaction> stored) {
+        Map<String, ComplaintReaction> mine = new HashMap<>();
+        pending.computeIfPresent(complaintId, (id, byClient) -> {
+            byClient.forEach((clientId, p) -> mine.put(clientId,
+                    new ComplaintReaction(null, complaintId, null, clientId,
+                            (String) p.row().get("reaction_type"), null)));
+            return byClient;
+        });
+        if (mine.isEmpty()) {
+            return stored;
+        }
+
+        List<ComplaintReaction> out = new ArrayList<>(stored.size() + mine.size());
+        for (ComplaintReaction r : stored) {
+            if (!mine.containsKey(r.clientId())) {
+                out.add(r);
+            }
+        }
+        out.addAll(mine.values());
+        return out;
+    }
+
+    @Scheduled(fixedDelayString = "${reactions.buffer.flush-interval-ms:250}")
+    public void flushInBackground() {
+        if (size.get() == 0 || System.currentTimeMillis() < retryAfter) {
+            return;
+        }
+        flush().subscribe(null,
+                e -> System.err.println("❌ Reaction flush failed: " + e.getMessage()));
+    }
+
+    /**
+     * Write everything pending. Completes immediately if a flush is already
+     * running; that one, or the next tick, picks up the rest.
+     */
+    Mono<Void> flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return Mono.empty();
+        }
+
+        // Group by column set: PostgREST bulk inserts need identical keys,
+        // and leaving user_id out keeps the one already stored
+        Map<Set<String>, List<Pending>> byColumns = new HashMap<>();
+        for (Long complaintId : pending.keySet()) {
+            pending.computeIfPresent(complaintId, (id, byClient) -> {
+                byClient.values().forEach(p -> byColumns
+                        .computeIfAbsent(p.row().keySet(), k -> new ArrayList<>())
+                        .add(p));
+                return byClient;
+            });
+        }
+
+        List<List<Pending>> batches = new ArrayList<>();
+        for (List<Pending> rows : byColumns.values()) {
+            for (int i = 0; i < rows.size(); i += batchSize) {
+                batches.add(rows.subList(i, Math.min(i + batchSize, rows.size())));
+            }
+        }
+
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger notOk = new AtomicInteger();
+        return Flux.fromIterable(batches)
+                .concatMap(batch -> write(batch, ok, notOk))
+                .then()
+                .doFinally(signal -> {
+                    if (notOk.get() > 0 && ok.get() == 0) {
+                        // Nothing got through: most likely the store is down, so back off
+                        // instead of spending every row's attempts at the flush rate
+                        int failures = failedFlushes.incrementAndGet();
+                        long delay = Math.min(flushIntervalMs << Math.min(failures, 10), MAX_BACKOFF_MS);
+                        retryAfter = System.currentTimeMillis() + delay;
+                    } else {
+                        failedFlushes.set(0);
+                    }
+                    flushing.set(false);
+                });
+    }
+
+    private Mono<Void> write(List<Pending> batch, AtomicInteger ok, AtomicInteger notOk) {
+        List<Map<String, Object>> rows = new ArrayList<>(batch.size());
+        batch.forEach(p -> rows.add(p.row()));
+        batchSizes.record(rows.size());
+
+        return supabaseService.upsertReactions(rows)
+                .then(Mono.fromRunnable(() -> {
+                    ok.addAndGet(batch.size());
+                    batch.forEach(this::written);
+                }))
+                .onErrorResume(e -> {
+                    failed.increment(batch.size());
+                    if (batch.size() > 1) {
+                        // One bad row (say, a deleted complaint) fails the whole
+                        // batch; retry singly so it cannot hold the others back
+                        return Flux.fromIterable(batch)
+                                .concatMap(p -> write(List.of(p), ok, notOk))
+                                .then();
+                    }
+                    notOk.incrementAndGet();
+                    retryLater(batch.get(0), e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void written(Pending p) {
+        // Only remove it if no newer tap replaced it while it was being written
+        remove(p);
+        written.increment();
+    }
+
+    private void retryLater(Pending p, Throwable error) {
+        if (p.attempts() + 1 >= maxAttempts) {
+            System.err.println("❌ Dropping reaction " + p.row() + " after " + maxAttempts
+                    + " attempts: " + error.getMessage());
+            remove(p);
+            dropped.increment();
+            return;
+        }
+        long complaintId = ((Number) p.row().get("complaint_id")).longValue();
+        String clientId = (String) p.row().get("client_id");
+        pending.computeIfPresent(complaintId, (id, byClient) -> {
+            byClient.replace(clientId, p, new Pending(p.row(), p.attempts() + 1));
+            return byClient;
+        });
+    }
+
+    private void remove(Pending p) {
+        long complaintId = ((Number) p.row().get("complaint_id")).longValue();
+        String clientId = (String) p.row().get("client_id");
+        pending.computeIfPresent(complaintId, (id, byClient) -> {
+            if (byClient.remove(clientId, p)) {
+                size.decrementAndGet();
+            }
+            return byClient.isEmpty() ? null : byClient;
+        });
+    }
+
+    // Stop after the web server has stopped taking requests (it stops in the
+    // phases just below DEFAULT_PHASE), but before Reactor Netty's resources,
+    // a plain Lifecycle at phase 0: the final flush still needs the WebClient
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (size.get() > 0 && System.nanoTime() < deadline) {
+            if (flushing.get()) {
+                LockSupport.parkNanos(Duration.ofMillis(50).toNanos());
+                continue;
+            }
+            try {
+                flush().block(Duration.ofNanos(Math.max(deadline - System.nanoTime(), 1)));
+            } catch (Exception e) {
+                System.err.println("❌ Reaction flush on shutdown failed: " + e.getMessage());
+                break;
+            }
+        }
+        if (size.get() > 0) {
+            System.err.println("⚠️ " + size.get() + " reactions were not saved before shutdown");
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.config.BlockingCalls;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drafts the citizen-facing resolution email off the request path.
+ *
+ * Resolving a complaint only queues a 'drafting' row in the email outbox.
+ * A small pool then asks the LLM for the text and hands the finished email
+ * to {@link EmailOutboxService}. Reports for the same category and kind of
+ * action (fine, arrest, warning, ...) read alike, so the LLM is asked for a
+ * template with placeholders for the bus and the action taken, which is
+ * cached and filled in for later reports instead of calling Groq again.
+ */
+@Service
+public class ResolutionReportService {
+
+    private static final String BUS_PLACEHOLDER = "{{bus}}";
+    private static final String ACTION_PLACEHOLDER = "{{action}}";
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{(bus|action)}}");
+
+    // Word stems (English and Bangla) by kind of action, checked in order
+    private static final List<Map.Entry<String, List<String>>> ACTION_KINDS = List.of(
+            Map.entry("arrest", List.of("arrest", "detain", "custody", "গ্রেফতার", "গ্রেপ্তার", "আটক")),
+            Map.entry("fine", List.of("fine", "penal", "জরিমানা")),
+            Map.entry("seizure", List.of("seiz", "impound", "জব্দ")),
+            Map.entry("suspension", List.of("suspen", "licen", "dismiss", "terminat", "বরখাস্ত")),
+            Map.entry("refund", List.of("refund", "compensat", "ফেরত")),
+            Map.entry("warning", List.of("warn", "caution", "counsel", "সতর্ক")));
+
+    private final AiAnalysisService aiAnalysisService;
+    private final EmailOutboxService emailOutboxService;
+    private final ThreadPoolExecutor drafters;
+    private final Map<String, String> templates;
+
+    public ResolutionReportService(AiAnalysisService aiAnalysisService,
+            EmailOutboxService emailOutboxService,
+            BlockingCalls blockingCalls,
+            @Value("${resolution.report.workers:2}") int workerCount,
+            @Value("${resolution.report.queue-capacity:200}") int queueCapacity,
+            @Value("${resolution.report.template-cache-size:128}") int cacheSize) {
+        this.aiAnalysisService = aiAnalysisService;
+        this.emailOutboxService = emailOutboxService;
+
+        this.drafters = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                blockingCalls.threadFactory("report-drafter"));
+
+        // Access-ordered LinkedHashMap = tiny LRU
+        this.templates = new LinkedHashMap<>(cacheSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Queue a resolution email for the given complaint. Completes as soon as
+     * the outbox row exists; the body is written in the background.
+     */
+    public Mono<Void> queueResolutionEmail(long complaintId, String toEmail,
+            String category, String busName, String actionTaken) {
+        Map<String, Object> draft = new HashMap<>();
+        draft.put("draft_category", category);
+        draft.put("draft_bus_name", busName);
+        draft.put("draft_action", actionTaken);
+
+        return emailOutboxService.enqueueDraft(toEmail, "Complaint Resolved: Jatri Ovijog #" + complaintId, draft)
+                .doOnNext(this::submitDraft)
+                .then();
+    }
+
+    /**
+     * Pick up drafts whose lease ran out (e.g. the instance restarted or the
+     * drafting pool was full) and draft them again.
+     */
+    @Scheduled(fixedDelayString = "${resolution.report.recovery-interval-ms:60000}")
+    public void recoverStaleDrafts() {
+        int room = drafters.getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+        emailOutboxService.claimStaleDrafts(Math.min(room, 20))
+                .subscribe(this::submitDraft,
+                        e -> System.err.println("❌ Draft recovery failed: " + e.getMessage()));
+    }
+
+    private void submitDraft(Map<String, Object> row) {
+        try {
+            drafters.execute(() -> draft(row));
+        } catch (RejectedExecutionException e) {
+            System.err.println("⚠️ Report drafting pool full, deferring email #" + row.get("id"));
+        }
+    }
+
+    private void draft(Map<String, Object> row) {
+        long id = ((Number) row.get("id")).longValue();
+        String category = (String) row.get("draft_category");
+        String busName = (String) row.get("draft_bus_name");
+        String actionTaken = (String) row.get("draft_action");
+
+        String body = renderReport(category, busName, actionTaken);
+        try {
+            emailOutboxService.completeDraft(id, body).block(Duration.ofSeconds(30));
+        } catch (Exception e) {
+            // Lease expires and recoverStaleDrafts tries again
+            System.err.println("❌ Failed to store drafted email #" + id + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * The email body for one report: the cached template for its category
+     * and kind of action with the bus and action filled in, or a template
+     * drafted now. Replies that lost a placeholder are not cached; the report
+     * is then drafted with its own details instead.
+     */
+    String renderReport(String category, String busName, String actionTaken) {
+        String key = templateKey(category, actionTaken);
+
+        String template;
+        synchronized (templates) {
+            template = templates.get(key);
+        }
+        if (template != null) {
+            return fill(template, busName, actionTaken);
+        }
+
+        try {
+            template = aiAnalysisService.requestActionReportTemplate(category, actionKind(actionTaken),
+                    BUS_PLACEHOLDER, ACTION_PLACEHOLDER);
+            if (template.contains(BUS_PLACEHOLDER) && template.contains(ACTION_PLACEHOLDER)) {
+                synchronized (templates) {
+                    templates.put(key, template);
+                }
+                return fill(template, busName, actionTaken);
+            }
+            return aiAnalysisService.requestActionReport(category, busName, actionTaken);
+        } catch (Exception e) {
+            System.err.println("❌ Groq Action Report Error: " + e.getMessage());
+            return aiAnalysisService.actionReportFallback(busName, actionTaken);
+        }
+    }
+
+    private static String fill(String template, String busName, String actionTaken) {
+        // One pass, so a bus name or action that itself looks like a placeholder stays as written
+        return PLACEHOLDER.matcher(template).replaceAll(match -> Matcher.quoteReplacement(
+                Objects.toString(BUS_PLACEHOLDER.equals(match.group()) ? busName : actionTaken, "")));
+    }
+
+    private static String templateKey(String category, String actionTaken) {
+        return normalize(category) + "|" + actionKind(actionTaken);
+    }
+
+    /** The kind of action an officer's free-text note describes, or "other". */
+    static String actionKind(String actionTaken) {
+        String[] words = normalize(actionTaken).split("[^\\p{L}\\p{M}\\p{N}]+");
+        for (Map.Entry<String, List<String>> kind : ACTION_KINDS) {
+            for (String word : words) {
+                for (String stem : kind.getValue()) {
+                    if (word.startsWith(stem)) {
+                        return kind.getKey();
+                    }
+                }
+            }
+        }
+        return "other";
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        drafters.shutdown();
+        drafters.awaitTermination(20, TimeUnit.SECONDS);
+    }
+}
@@ -1,156 +1,270 @@
 package com.jatriovijog.service;
 
+import com.jatriovijog.event.ComplaintChangedEvent;
+import com.jatriovijog.event.ComplaintReportedEvent;
+import com.jatriovijog.event.EmergencyReportedEvent;
+import com.jatriovijog.model.ActivityRollup;
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.ComplaintComment;
+import com.jatriovijog.model.ComplaintDuplicate;
+import com.jatriovijog.model.ComplaintReaction;
+import com.jatriovijog.model.ComplaintSummary;
+import com.jatriovijog.model.EmergencyReport;
+import com.jatriovijog.model.EmergencySummary;
+import com.jatriovijog.model.User;
+import com.jatriovijog.repository.CoalescingTableRepository;
+import com.jatriovijog.repository.HedgingTableRepository;
+import com.jatriovijog.repository.ObservedTableRepository;
+import com.jatriovijog.repository.PostgrestTableRepository;
+import com.jatriovijog.repository.TableQuery;
+import com.jatriovijog.repository.TableRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.ClientResponse;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-
+import java.util.function.Function;
+
+/**
+ * Data access for controllers and services. The name is historical: the
+ * storage calls go through {@link TableRepository}, which is Supabase's
+ * PostgREST API by default or a pooled JDBC connection when
+ * {@code jatri.datastore=jdbc}. Every call is timed and traced through
+ * {@link ObservedTableRepository}. Identical typed reads in flight at the
+ * same time share one call through {@link CoalescingTableRepository}, unless
+ * {@code reads.coalescing.enabled=false}. Slow PostgREST reads are hedged
+ * through {@link HedgingTableRepository} ({@code supabase.http.hedge.*}).
+ *
+ * Reads served to the API come back as the records in
+ * {@code com.jatriovijog.model}, decoded straight from the response. Writes
+ * take whitelisted column maps, since most of them are partial rows.
+ */
 @Service
 public class SupabaseService {
 
-    private static final ParameterizedTypeReference<List<Map<String, Object>>> LIST_OF_MAP = new ParameterizedTypeReference<>() {
-    };
+    // ids per in.(...) filter: a busy bus has thousands of complaints, and
+    // PostgREST takes filters in the URL (gateways cap URLs at ~8 KB)
+    private static final int IDS_PER_QUERY = 200;
+
+    private final TableRepository tables;
+    private final ApplicationEventPublisher events;
+
+    public SupabaseService(TableRepository tables, ApplicationEventPublisher events,
+            ObservationRegistry observationRegistry, MeterRegistry meterRegistry,
+            @Value("${reads.coalescing.enabled:true}") boolean coalesceReads,
+            @Value("${supabase.http.hedge.enabled:true}") boolean hedgeReads,
+            @Value("${supabase.http.hedge.percentile:0.95}") double hedgePercentile,
+            @Value("${supabase.http.hedge.min-delay:50ms}") Duration hedgeMinDelay,
+            @Value("${supabase.http.hedge.max-ratio:0.1}") double hedgeMaxRatio) {
+        TableRepository chain = new ObservedTableRepository(tables, observationRegistry, meterRegistry);
+        // Both sit outside the observation: each hedge attempt is its own
+        // upstream call, while coalesced reads are not calls at all
+        if (hedgeReads && tables instanceof PostgrestTableRepository) {
+            chain = new HedgingTableRepository(chain, meterRegistry, hedgePercentile, hedgeMinDelay, hedgeMaxRatio);
+        }
+        if (coalesceReads) {
+            chain = new CoalescingTableRepository(chain, meterRegistry);
+        }
+        this.tables = chain;
+        this.events = events;
+    }
+
+    private static Mono<Map<String, Object>> first(List<Map<String, Object>> list, String emptyMessage) {
+        if (list == null || list.isEmpty()) {
+            return Mono.error(new RuntimeException(emptyMessage));
+        }
+        return Mono.just(list.get(0));
+    }
+
+    private <T> Mono<List<T>> selectByIds(String table, String columns, Collection<Long> ids, Class<T> type) {
+        return selectByIds(ids, query -> tables.select(table, columns, query, type));
+    }
+
+    /** Rows with the given ids, in chunks of {@link #IDS_PER_QUERY}, in chunk order. */
+    private <T> Mono<List<T>> selectByIds(Collection<Long> ids, Function<TableQuery, Mono<List<T>>> select) {
+        if (ids.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        List<Long> all = new ArrayList<>(ids);
+        if (all.size() <= IDS_PER_QUERY) {
+            return select.apply(TableQuery.all().in("id", all));
+        }
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += IDS_PER_QUERY) {
+            chunks.add(all.subList(i, Math.min(i + IDS_PER_QUERY, all.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .flatMapSequential(chunk -> select.apply(TableQuery.all().in("id", chunk)), 4)
+                .flatMapIterable(rows -> rows)
+                .collectList();
+    }
+
+    private void publishComplaintChange(ComplaintChangedEvent.Type type, Map<String, Object> row) {
+        long id = ((Number) row.get("id")).longValue();
+        events.publishEvent(new ComplaintChangedEvent(type, id, row));
+    }
+
+    // ---------- Complaints ----------
 
-    private final WebClient webClient;
-    private final String anonKey;
-    private final String serviceRoleKey;
+    public Mono<List<Complaint>> getComplaints() {
+        return tables.select("complaints", "*", TableQuery.all(), Complaint.class);
+    }
+
+    public Mono<List<ComplaintSummary>> getComplaintsSummary() {
+        // Exclude image_url to reduce payload size
+        return tables.select("complaints", ComplaintSummary.COLUMNS, TableQuery.all(), ComplaintSummary.class);
+    }
 
-    public SupabaseService(@Value("${supabase.url}") String baseUrl,
-            @Value("${supabase.apikey}") String anonKey,
-            @Value("${supabase.serviceRoleKey:}") String serviceRoleKey) {
+    public Mono<List<Complaint>> getComplaintsByUser(long userId) {
+        return tables.select("complaints", "*", TableQuery.where("user_id", userId), Complaint.class);
+    }
 
-        String trimmed = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
-        String restUrl = trimmed + "/rest/v1";
+    public Mono<List<Complaint>> getOpenComplaintsByBus(String busName, String busNumber) {
+        // Simplified approach: Get all 'new'/'working' complaints for this bus.
+        // bus_name = X AND bus_number = Y AND status IN (new, working)
+        return tables.select("complaints", "*", TableQuery.where("bus_name", busName)
+                .eq("bus_number", busNumber)
+                .in("status", List.of("new", "working")), Complaint.class);
+    }
 
-        this.anonKey = anonKey;
-        this.serviceRoleKey = serviceRoleKey;
+    public Mono<List<Complaint>> getHistoryByBus(String busNumber) {
+        return tables.select("complaints", "*", TableQuery.where("bus_number", busNumber), Complaint.class);
+    }
 
-        // NOTE: no default Authorization header here.
-        // We'll attach the correct one per request using auth(...)
-        // ✅ FIXED: Increased buffer size to 10MB to handle base64-encoded images in
-        // emergency_reports
-        this.webClient = WebClient.builder()
-                .baseUrl(restUrl)
-                .defaultHeader("apikey", anonKey)
-                .defaultHeader(HttpHeaders.ACCEPT, "application/json")
-                .codecs(configurer -> configurer
-                        .defaultCodecs()
-                        .maxInMemorySize(10 * 1024 * 1024)) // 10 MB buffer
-                .build();
+    public Mono<List<Complaint>> getComplaintsByIds(Collection<Long> ids) {
+        return selectByIds("complaints", "*", ids, Complaint.class);
     }
 
-    private Mono<? extends Throwable> mapSupabaseError(ClientResponse res) {
-        return res.bodyToMono(String.class)
-                .defaultIfEmpty("")
-                .map(body -> new RuntimeException("Supabase error (" + res.statusCode() + "): " + body));
+    public Mono<List<ComplaintSummary>> getComplaintSummariesByIds(Collection<Long> ids) {
+        return selectByIds("complaints", ComplaintSummary.COLUMNS, ids, ComplaintSummary.class);
     }
 
     /**
-     * Attach auth header:
-     * - If service role key exists: use it (prevents RLS 401/42501 for backend
-     * writes).
-     * - Otherwise fallback to anon key (may fail for writes when RLS is enabled).
+     * One keyset page of the narrow projection the bus incident index is
+     * built from.
      */
-    private WebClient.RequestHeadersSpec<?> auth(WebClient.RequestHeadersSpec<?> spec) {
-        String bearer = (serviceRoleKey != null && !serviceRoleKey.isBlank()) ? serviceRoleKey : anonKey;
-        return spec.header(HttpHeaders.AUTHORIZATION, "Bearer " + bearer);
+    public Mono<List<Map<String, Object>>> getComplaintIndexRows(long afterId, int limit) {
+        return tables.select("complaints", "id,bus_name,bus_number,status,category,priority,created_at",
+                TableQuery.all().gt("id", afterId).orderBy("id", true).limit(limit));
     }
 
-    // ---------- Complaints ----------
+    /**
+     * One keyset page of the columns the triage queue ranks by.
+     */
+    public Mono<List<Map<String, Object>>> getComplaintTriageRows(long afterId, int limit) {
+        return tables.select("complaints", "id,thana,status,priority,created_at,report_count",
+                TableQuery.all().gt("id", afterId).orderBy("id", true).limit(limit));
+    }
 
-    public Mono<List<Map<String, Object>>> getComplaints() {
-        return auth(webClient.get()
-                .uri("/complaints?select=*"))
-                .retrieve()
-                .onStatus(status -> status.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP);
+    /**
+     * One keyset page of where and what complaints created since
+     * {@code since} were about, for the surge detector's baseline.
+     */
+    public Mono<List<Map<String, Object>>> getComplaintArrivalsSince(String since, long afterId, int limit) {
+        return tables.select("complaints", "id,thana,route,category,status",
+                TableQuery.all().gte("created_at", since).gt("id", afterId).orderBy("id", true).limit(limit));
     }
 
-    public Mono<List<Map<String, Object>>> getComplaintsSummary() {
-        // Exclude image_url to reduce payload size
-        String columns = "id,status,priority,category,description,thana,route,latitude,longitude,created_at,bus_name,bus_number,reporter_type,accuracy";
-        return auth(webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/complaints")
-                        .queryParam("select", columns)
-                        .build()))
-                .retrieve()
-                .onStatus(status -> status.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP);
-    }
-
-    public Mono<List<Map<String, Object>>> getComplaintsByUser(long userId) {
-        return auth(webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/complaints")
-                        .queryParam("user_id", "eq." + userId)
-                        .queryParam("select", "*")
-                        .build()))
-                .retrieve()
-                .onStatus(status -> status.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP);
-    }
-
-    public Mono<List<Map<String, Object>>> getOpenComplaintsByBus(String busName, String busNumber) {
-        // Build filter: status is NOT resolved/fake AND match bus details
-        // Note: PostgREST syntax for OR logic or complex text search can be tricky via
-        // simple queryParams.
-        // Simplified approach: Get all 'new'/'working' complaints for this bus.
+    /**
+     * One keyset page of duplicate reports linked since {@code since}, for
+     * the surge detector's baseline. Each link comes back as its parent's
+     * thana, route, category and status under the link's own id, so pages
+     * keep their size; a link whose parent is gone has only the id.
+     */
+    public Mono<List<Map<String, Object>>> getDuplicateArrivalsSince(String since, long afterId, int limit) {
+        return tables.select("complaint_duplicates", "id,parent_id",
+                TableQuery.all().gte("created_at", since).gt("id", afterId).orderBy("id", true).limit(limit))
+                .flatMap(links -> {
+                    List<Long> parentIds = links.stream()
+                            .map(link -> ((Number) link.get("parent_id")).longValue())
+                            .toList();
+                    return selectByIds(new LinkedHashSet<>(parentIds),
+                            query -> tables.select("complaints", "id,thana,route,category,status", query))
+                            .map(parents -> {
+                                Map<Long, Map<String, Object>> byId = new HashMap<>();
+                                parents.forEach(p -> byId.put(((Number) p.get("id")).longValue(), p));
+                                List<Map<String, Object>> arrivals = new ArrayList<>(links.size());
+                                for (Map<String, Object> link : links) {
+                                    Map<String, Object> arrival = new HashMap<>(
+                                            byId.getOrDefault(((Number) link.get("parent_id")).longValue(), Map.of()));
+                                    arrival.put("id", link.get("id"));
+                                    arrivals.add(arrival);
+                                }
+                                return arrivals;
+                            });
+                });
+    }
+
+    /**
+     * One keyset page of the text columns used by the search index.
+     */
+    public Mono<List<Map<String, Object>>> getComplaintSearchRows(long afterId, int limit) {
+        return tables.select("complaints", "id,description,translated_text,bus_name,bus_number,landmark",
+                TableQuery.all().gt("id", afterId).orderBy("id", true).limit(limit));
+    }
 
-        // Construct filter: bus_name=eq.X & bus_number=eq.Y & status=in.(new,working)
-        return auth(webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/complaints")
-                        .queryParam("bus_name", "eq." + busName)
-                        .queryParam("bus_number", "eq." + busNumber)
-                        .queryParam("status", "in.(new,working)")
-                        .queryParam("select", "*")
-                        .build()))
-                .retrieve()
-                .onStatus(status -> status.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP);
-    }
-
-    public Mono<List<Map<String, Object>>> getHistoryByBus(String busNumber) {
-        return auth(webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/complaints")
-                        .queryParam("bus_number", "eq." + busNumber)
-                        .queryParam("select", "*")
-                        .build()))
-                .retrieve()
-                .onStatus(status -> status.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP);
+    /**
+     * One keyset page of complaints for export, in id order. {@code from},
+     * {@code to} (on created_at) and {@code thana} are optional filters.
+     */
+    public Mono<List<Map<String, Object>>> getComplaintExportPage(String columns, long afterId, String from,
+            String to, String thana, int limit) {
+        TableQuery query = TableQuery.all().gt("id", afterId);
+        if (from != null) {
+            query.gte("created_at", from);
+        }
+        if (to != null) {
+            query.lt("created_at", to);
+        }
+        if (thana != null) {
+            query.eq("thana", thana);
+        }
+        return tables.select("complaints", columns, query.orderBy("id", true).limit(limit));
     }
 
     public Mono<Map<String, Object>> createComplaint(Map<String, Object> payload) {
+        return tables.insert("complaints", payload)
+                .flatMap(list -> first(list, "Supabase createComplaint returned 0 rows"))
+                .doOnNext(row -> {
+                    publishComplaintChange(ComplaintChangedEvent.Type.CREATED, row);
+                    events.publishEvent(new ComplaintReportedEvent(((Number) row.get("id")).longValue(), false, row));
+                });
+    }
 
-        var req = webClient.post()
-                .uri("/complaints")
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(payload);
-
-        return auth(req)
-                .header("Prefer", "return=representation")
-                .retrieve()
-                .onStatus(status -> status.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP)
-                .flatMap(list -> {
-                    if (list == null || list.isEmpty()) {
-                        return Mono.error(new RuntimeException("Supabase createComplaint returned 0 rows"));
-                    }
-                    return Mono.just(list.get(0));
+    /**
+     * Record a report as a duplicate of an open complaint. The link is a
+     * small insert; a trigger on complaint_duplicates bumps the parent's
+     * report_count in the same transaction. Returns the parent as it is
+     * afterwards, which is also what the indexes are told about, and
+     * publishes the report as an arrival for the parent.
+     */
+    public Mono<Map<String, Object>> linkDuplicateReport(long parentId, Map<String, Object> link) {
+        Map<String, Object> row = new HashMap<>(link);
+        row.put("parent_id", parentId);
+        return tables.insert("complaint_duplicates", row)
+                .then(tables.select("complaints", "*", TableQuery.where("id", parentId)))
+                .flatMap(list -> first(list, "Supabase linkDuplicateReport found no parent " + parentId))
+                .doOnNext(parent -> {
+                    publishComplaintChange(ComplaintChangedEvent.Type.UPDATED, parent);
+                    events.publishEvent(new ComplaintReportedEvent(parentId, true, parent));
                 });
     }
 
+    public Mono<List<ComplaintDuplicate>> getDuplicateReports(long parentId) {
+        return tables.select("complaint_duplicates", "*",
+                TableQuery.where("parent_id", parentId).orderBy("created_at", false), ComplaintDuplicate.class);
+    }
+
     public Mono<Map<String, Object>> updateComplaintStatus(long id, String status, String note) {
 
         Map<String, Object> payload = new HashMap<>();
@@ -163,279 +277,224 @@ public class SupabaseService {
             payload.put("priority", "Low");
         }
 
-        var req = webClient.patch()
-                .uri("/complaints?id=eq." + id)
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(payload);
-
-        return auth(req)
-                .header("Prefer", "return=representation")
-                .retrieve()
-                .onStatus(s -> s.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP)
-                .flatMap(list -> {
-                    if (list == null || list.isEmpty()) {
-                        return Mono.error(new RuntimeException(
-                                "Supabase updated 0 rows (wrong id or RLS blocked)"));
-                    }
-                    return Mono.just(list.get(0));
-                });
+        return tables.update("complaints", payload, TableQuery.where("id", id))
+                .flatMap(list -> first(list, "Supabase updated 0 rows (wrong id or RLS blocked)"))
+                .doOnNext(row -> publishComplaintChange(ComplaintChangedEvent.Type.UPDATED, row));
+    }
+
+    // ---------- Analytics ----------
+
+    /**
+     * Rollup rows for one source, granularity and dimension with
+     * {@code from <= bucket_start < to}, oldest first.
+     */
+    public Mono<List<ActivityRollup>> getRollups(String source, String granularity, String dimension,
+            String from, String to) {
+        return tables.select("activity_rollups", ActivityRollup.COLUMNS,
+                TableQuery.where("source", source).eq("granularity", granularity).eq("dimension", dimension)
+                        .gte("bucket_start", from).lt("bucket_start", to)
+                        .orderBy("bucket_start", true),
+                ActivityRollup.class);
+    }
+
+    // ---------- Sync versions ----------
+
+    /** Current change version of a table (see V7__sync_versions.sql). */
+    public Mono<Long> getSyncVersion(String table) {
+        return tables.select("sync_versions", "version", TableQuery.where("table_name", table))
+                .map(rows -> rows.isEmpty() ? 0L : ((Number) rows.get(0).get("version")).longValue());
+    }
+
+    /**
+     * Rows of a table changed after {@code afterVersion}, oldest change
+     * first: {@code row_id}, {@code version} and {@code deleted}.
+     */
+    public Mono<List<Map<String, Object>>> getSyncChanges(String table, long afterVersion, int limit) {
+        return tables.select("sync_changes", "row_id,version,deleted",
+                TableQuery.where("table_name", table).gt("version", afterVersion)
+                        .orderBy("version", true).limit(limit));
     }
 
     // ---------- Emergency Reports ----------
 
-    public Mono<List<Map<String, Object>>> getEmergencies() {
-        return auth(webClient.get()
-                .uri("/emergency_reports?select=*"))
-                .retrieve()
-                .onStatus(status -> status.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP);
+    public Mono<List<EmergencyReport>> getEmergencies() {
+        return tables.select("emergency_reports", "*", TableQuery.all(), EmergencyReport.class);
     }
 
-    public Mono<List<Map<String, Object>>> getEmergenciesSummary() {
+    public Mono<List<EmergencySummary>> getEmergenciesSummary() {
         // Exclude audio_url and image_url to reduce payload size
         // REMOVED 'status' and 'label' as they do not exist in emergency_reports table
-        String columns = "id,latitude,longitude,created_at,user_id,accuracy,image_url,description";
-        return auth(webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/emergency_reports")
-                        .queryParam("select", columns)
-                        .build()))
-                .retrieve()
-                .onStatus(status -> status.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP);
-    }
-
-    public Mono<List<Map<String, Object>>> getEmergenciesByUser(long userId) {
-        return auth(webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/emergency_reports")
-                        .queryParam("user_id", "eq." + userId)
-                        .queryParam("select", "*")
-                        .build()))
-                .retrieve()
-                .onStatus(s -> s.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP);
-    }
-
-    public Mono<List<Map<String, Object>>> getCommentsByUser(long userId) {
-        return auth(webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/complaint_comments")
-                        .queryParam("user_id", "eq." + userId)
-                        .queryParam("select", "*")
-                        .build()))
-                .retrieve()
-                .onStatus(s -> s.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP);
-    }
-
-    public Mono<List<Map<String, Object>>> getReactionsByUser(long userId) {
-        return auth(webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/complaint_reactions")
-                        .queryParam("user_id", "eq." + userId)
-                        .queryParam("select", "*")
-                        .build()))
-                .retrieve()
-                .onStatus(s -> s.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP);
+        return tables.select("emergency_reports", EmergencySummary.COLUMNS, TableQuery.all(), EmergencySummary.class);
     }
 
-    public Mono<Map<String, Object>> createEmergency(Map<String, Object> payload) {
+    /** One keyset page of where SOS reports since {@code since} came from. */
+    public Mono<List<Map<String, Object>>> getEmergencyArrivalsSince(String since, long afterId, int limit) {
+        return tables.select("emergency_reports", "id,latitude,longitude",
+                TableQuery.all().gte("created_at", since).gt("id", afterId).orderBy("id", true).limit(limit));
+    }
 
-        var req = webClient.post()
-                .uri("/emergency_reports")
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(payload);
-
-        return auth(req)
-                .header("Prefer", "return=representation")
-                .retrieve()
-                .onStatus(s -> s.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP)
-                .flatMap(list -> {
-                    if (list == null || list.isEmpty()) {
-                        return Mono.error(new RuntimeException("Supabase createEmergency returned 0 rows"));
-                    }
-                    return Mono.just(list.get(0));
-                });
+    public Mono<List<EmergencyReport>> getEmergenciesByIds(Collection<Long> ids) {
+        return selectByIds("emergency_reports", "*", ids, EmergencyReport.class);
+    }
+
+    public Mono<List<EmergencyReport>> getEmergenciesByUser(long userId) {
+        return tables.select("emergency_reports", "*", TableQuery.where("user_id", userId), EmergencyReport.class);
+    }
+
+    public Mono<List<ComplaintComment>> getCommentsByUser(long userId) {
+        return tables.select("complaint_comments", "*", TableQuery.where("user_id", userId), ComplaintComment.class);
+    }
+
+    public Mono<List<ComplaintReaction>> getReactionsByUser(long userId) {
+        return tables.select("complaint_reactions", "*", TableQuery.where("user_id", userId),
+                ComplaintReaction.class);
+    }
+
+    public Mono<Map<String, Object>> createEmergency(Map<String, Object> payload) {
+        return tables.insert("emergency_reports", payload)
+                .flatMap(list -> first(list, "Supabase createEmergency returned 0 rows"))
+                .doOnNext(row -> events.publishEvent(
+                        new EmergencyReportedEvent(((Number) row.get("id")).longValue(), row)));
     }
 
     // ---------- Users ----------
 
     public Mono<Map<String, Object>> createUser(Map<String, Object> payload) {
-
-        var req = webClient.post()
-                .uri("/users")
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(payload);
-
-        return auth(req)
-                .header("Prefer", "return=representation")
-                .retrieve()
-                .onStatus(s -> s.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP)
-                .flatMap(list -> {
-                    if (list == null || list.isEmpty()) {
-                        return Mono.error(new RuntimeException("Supabase createUser returned 0 rows"));
-                    }
-                    return Mono.just(list.get(0));
-                });
+        return tables.insert("users", payload)
+                .flatMap(list -> first(list, "Supabase createUser returned 0 rows"));
     }
 
+    // Left as a map: the auth flow strips the hash and returns the row itself
     public Mono<List<Map<String, Object>>> getUserByEmail(String email) {
-        String filter = "?select=*&email=eq." + email;
-        return auth(webClient.get()
-                .uri("/users" + filter))
-                .retrieve()
-                .onStatus(s -> s.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP);
+        return tables.select("users", "*", TableQuery.where("email", email));
     }
 
-    public Mono<List<Map<String, Object>>> getUserById(long id) {
-        String filter = "?select=*&id=eq." + id;
-        return auth(webClient.get()
-                .uri("/users" + filter))
-                .retrieve()
-                .onStatus(s -> s.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP);
+    public Mono<List<User>> getUserById(long id) {
+        return tables.select("users", "*", TableQuery.where("id", id), User.class);
     }
 
     // ================================
     // FEED: COMMENTS
     // ================================
-    public Mono<List<Map<String, Object>>> listComments(Long complaintId) {
-        return auth(webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/complaint_comments")
-                        .queryParam("complaint_id", "eq." + complaintId)
-                        .queryParam("order", "created_at.desc")
-                        .build()))
-                .retrieve()
-                .onStatus(s -> s.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP);
+    public Mono<List<ComplaintComment>> listComments(Long complaintId) {
+        return tables.select("complaint_comments", "*",
+                TableQuery.where("complaint_id", complaintId).orderBy("created_at", false), ComplaintComment.class);
     }
 
     public Mono<Map<String, Object>> createComment(Map<String, Object> payload) {
-
-        var req = webClient.post()
-                .uri("/complaint_comments")
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(payload);
-
-        return auth(req)
-                .header("Prefer", "return=representation")
-                .retrieve()
-                .onStatus(s -> s.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP)
-                .flatMap(list -> {
-                    if (list == null || list.isEmpty()) {
-                        return Mono.error(new RuntimeException("Supabase createComment returned 0 rows"));
-                    }
-                    return Mono.just(list.get(0));
-                });
+        return tables.insert("complaint_comments", payload)
+                .flatMap(list -> first(list, "Supabase createComment returned 0 rows"));
     }
 
     // ================================
     // FEED: REACTIONS
     // ================================
-    public Mono<Map<String, Object>> getReactionCounts(Long complaintId, String clientId) {
-        return auth(webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/complaint_reactions")
-                        .queryParam("complaint_id", "eq." + complaintId)
-                        .queryParam("select", "reaction_type,client_id")
-                        .build()))
-                .retrieve()
-                .onStatus(s -> s.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP)
-                .map(list -> {
-                    long support = 0, angry = 0, watch = 0;
-                    String my = null;
-
-                    for (Map<String, Object> row : list) {
-                        String t = String.valueOf(row.get("reaction_type"));
-                        if ("support".equals(t))
-                            support++;
-                        else if ("angry".equals(t))
-                            angry++;
-                        else if ("watch".equals(t))
-                            watch++;
-
-                        if (clientId != null && clientId.equals(String.valueOf(row.get("client_id")))) {
-                            my = t;
-                        }
-                    }
-
-                    Map<String, Object> out = new HashMap<>();
-                    out.put("support", support);
-                    out.put("angry", angry);
-                    out.put("watch", watch);
-                    out.put("myReaction", my);
-                    return out;
-                });
+    public Mono<List<ComplaintReaction>> getReactions(Long complaintId) {
+        return tables.select("complaint_reactions", "reaction_type,client_id",
+                TableQuery.where("complaint_id", complaintId), ComplaintReaction.class);
     }
 
-    public Mono<Map<String, Object>> toggleReaction(Map<String, Object> payload) {
-
-        Long complaintId = Long.valueOf(String.valueOf(payload.get("complaint_id")));
-        String reactionType = String.valueOf(payload.get("reactionType"));
-        String clientId = payload.get("clientId") != null ? String.valueOf(payload.get("clientId")) : null;
-        Object userIdObj = payload.get("user_id");
+    /** One keyset page of who reacted to what, without the reaction types. */
+    public Mono<List<Map<String, Object>>> getReactionClients(long afterId, int limit) {
+        return tables.select("complaint_reactions", "id,complaint_id,client_id",
+                TableQuery.all().gt("id", afterId).orderBy("id", true).limit(limit));
+    }
 
-        if (clientId == null || clientId.isBlank()) {
-            return Mono.error(new RuntimeException("clientId is required for reactions"));
+    /**
+     * Count reactions per type and find the caller's own reaction.
+     */
+    public static Map<String, Object> tallyReactions(List<ComplaintReaction> list, String clientId) {
+        long support = 0, angry = 0, watch = 0;
+        String my = null;
+
+        for (ComplaintReaction row : list) {
+            String t = row.reactionType();
+            if ("support".equals(t))
+                support++;
+            else if ("angry".equals(t))
+                angry++;
+            else if ("watch".equals(t))
+                watch++;
+
+            if (clientId != null && clientId.equals(row.clientId())) {
+                my = t;
+            }
         }
 
-        Map<String, Object> insert = new HashMap<>();
-        insert.put("complaint_id", complaintId);
-        insert.put("reaction_type", reactionType);
-        insert.put("client_id", clientId);
-        if (userIdObj != null)
-            insert.put("user_id", userIdObj);
-
-        var req = webClient.post()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/complaint_reactions")
-                        .queryParam("on_conflict", "complaint_id,client_id")
-                        .build())
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(insert);
-
-        return auth(req)
-                .header("Prefer", "return=representation,resolution=merge-duplicates")
-                .retrieve()
-                .onStatus(s -> s.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP)
-                .map(list -> Map.of(
-                        "ok", true,
-                        "reaction", (list == null || list.isEmpty() ? Map.of() : list.get(0))));
+        Map<String, Object> out = new HashMap<>();
+        out.put("support", support);
+        out.put("angry", angry);
+        out.put("watch", watch);
+        out.put("myReaction", my);
+        return out;
+    }
+
+    /**
+     * Bulk upsert of reaction rows, one per (complaint_id, client_id). Used by
+     * {@link ReactionWriteBuffer}, which coalesces them first.
+     */
+    public Mono<Void> upsertReactions(List<Map<String, Object>> rows) {
+        return tables.upsertAll("complaint_reactions", rows, "complaint_id,client_id");
+    }
+
+    // ================================
+    // EMAIL OUTBOX
+    // ================================
+    public Mono<Map<String, Object>> createOutboxEmail(Map<String, Object> payload) {
+        return tables.insert("email_outbox", payload)
+                .flatMap(list -> first(list, "Supabase createOutboxEmail returned 0 rows"));
+    }
+
+    public Mono<List<Map<String, Object>>> getDueOutboxEmails(String status, String now, int limit) {
+        return tables.select("email_outbox", "*", TableQuery.where("status", status)
+                .lte("next_attempt_at", now)
+                .orderBy("next_attempt_at", true)
+                .limit(limit));
+    }
+
+    /**
+     * Claim a due outbox row by pushing its next_attempt_at forward to the
+     * lease deadline. The filter only matches while the row is still in the
+     * given status and due, so when two workers race exactly one of them gets
+     * the row back.
+     */
+    public Mono<Boolean> claimOutboxEmail(long id, String status, String now, String leaseUntil) {
+        return tables.update("email_outbox", Map.of("next_attempt_at", leaseUntil),
+                TableQuery.where("id", id).eq("status", status).lte("next_attempt_at", now))
+                .map(list -> list != null && !list.isEmpty());
+    }
+
+    /**
+     * Fill in the body of a 'drafting' row and release it to the senders.
+     * Returns empty if another worker already completed the draft.
+     */
+    public Mono<Map<String, Object>> completeOutboxDraft(long id, String body, String nextAttemptAt) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("body", body);
+        payload.put("status", "pending");
+        payload.put("next_attempt_at", nextAttemptAt);
+
+        return tables.update("email_outbox", payload, TableQuery.where("id", id).eq("status", "drafting"))
+                .flatMap(list -> list == null || list.isEmpty() ? Mono.empty() : Mono.just(list.get(0)));
+    }
+
+    public Mono<Void> updateOutboxEmail(long id, Map<String, Object> payload) {
+        return tables.update("email_outbox", payload, TableQuery.where("id", id)).then();
+    }
+
+    public Mono<Long> countPendingOutboxEmails() {
+        return tables.count("email_outbox", TableQuery.where("status", "pending"));
     }
 
     public Mono<Void> deleteComplaint(long id) {
-        return auth(webClient.delete()
-                .uri("/complaints?id=eq." + id))
-                .retrieve()
-                .onStatus(s -> s.isError(), this::mapSupabaseError)
-                .toBodilessEntity()
-                .then();
+        return tables.delete("complaints", TableQuery.where("id", id))
+                .doOnSuccess(v -> events.publishEvent(
+                        new ComplaintChangedEvent(ComplaintChangedEvent.Type.DELETED, id, Map.of())));
     }
 
     public Mono<Map<String, Object>> updateComplaint(long id, Map<String, Object> payload) {
-        return auth(webClient.patch()
-                .uri("/complaints?id=eq." + id)
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(payload))
-                .header("Prefer", "return=representation")
-                .retrieve()
-                .onStatus(s -> s.isError(), this::mapSupabaseError)
-                .bodyToMono(LIST_OF_MAP)
-                .flatMap(list -> {
-                    if (list == null || list.isEmpty()) {
-                        return Mono.error(new RuntimeException("Supabase updateComplaint returned 0 rows"));
-                    }
-                    return Mono.just(list.get(0));
-                });
+        return tables.update("complaints", payload, TableQuery.where("id", id))
+                .flatMap(list -> first(list, "Supabase updateComplaint returned 0 rows"))
+                .doOnNext(row -> publishComplaintChange(ComplaintChangedEvent.Type.UPDATED, row));
     }
 }
@@ -0,0 +1,305 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.event.ComplaintReportedEvent;
+import com.jatriovijog.event.EmergencyReportedEvent;
+import com.jatriovijog.util.CountMinSketch;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Spots sudden spikes in complaints or SOS reports: harassment on one route
+ * in the last half hour, a burst of SOS calls from one area.
+ *
+ * Every complaint report is counted under its thana, route, category and
+ * route + category; every SOS report under its area (latitude and longitude
+ * rounded to 0.01°, about a kilometre). Counts go into count-min sketches,
+ * so memory is fixed however many distinct keys show up:
+ * <ul>
+ * <li>one sketch per {@code surge.window / surge.buckets} slice, in a ring,
+ * and their running sum, which is the count over the sliding window;</li>
+ * <li>a baseline sketch holding each key's usual count per slice, decayed
+ * with half-life {@code surge.baseline-half-life} as slices close and seeded
+ * at startup from the last {@code surge.baseline-seed} of stored reports,
+ * duplicates included.</li>
+ * </ul>
+ * A key surges when its window count reaches {@code surge.min-count} and
+ * {@code surge.ratio} times what the baseline expects over a window. Each
+ * key alerts at most once per {@code surge.cooldown}. Surges are logged,
+ * counted as {@code surge.detected} (tagged dimension) and kept, newest
+ * first, for {@code GET /api/surges}.
+ *
+ * Reports arrive as {@link ComplaintReportedEvent}s. A duplicate report
+ * merged into an open complaint counts as one more report under the
+ * parent's keys: ten riders reporting the same incident are ten arrivals,
+ * not one. Fake complaints are not counted. Like {@link BusIncidentIndex},
+ * this only sees writes made through this instance.
+ */
+@Service
+public class SurgeDetector {
+
+    private static final int MAX_COOLDOWN_KEYS = 4096;
+    // Rows per keyset page of the seed; PostgREST caps a response at max-rows
+    private static final int SEED_PAGE_SIZE = 1000;
+
+    private final SupabaseService supabaseService;
+    private final MeterRegistry meters;
+    private final Duration window;
+    private final long sliceMs;
+    private final double decayPerSlice;
+    private final Duration seedPeriod;
+    private final double ratio;
+    private final int minCount;
+    private final long cooldownMs;
+    private final int recentSize;
+
+    private final CountMinSketch[] slices;
+    private final CountMinSketch windowCounts;
+    private final CountMinSketch baseline;
+    private long currentSlice = -1;
+
+    // key -> last alert time, least recently alerted first; bounded
+    private final Map<String, Long> lastAlert = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_COOLDOWN_KEYS;
+        }
+    };
+    private final Deque<Map<String, Object>> recent = new ArrayDeque<>();
+
+    public SurgeDetector(SupabaseService supabaseService, MeterRegistry meters,
+            @Value("${surge.window:30m}") Duration window,
+            @Value("${surge.buckets:6}") int buckets,
+            @Value("${surge.baseline-half-life:24h}") Duration halfLife,
+            @Value("${surge.baseline-seed:7d}") Duration seedPeriod,
+            @Value("${surge.ratio:3}") double ratio,
+            @Value("${surge.min-count:5}") int minCount,
+            @Value("${surge.cooldown:30m}") Duration cooldown,
+            @Value("${surge.recent:100}") int recentSize,
+            @Value("${surge.sketch.depth:4}") int depth,
+            @Value("${surge.sketch.width:2048}") int width) {
+        this.supabaseService = supabaseService;
+        this.meters = meters;
+        this.window = window;
+        this.sliceMs = Math.max(1, window.toMillis() / buckets);
+        this.decayPerSlice = Math.pow(0.5, (double) sliceMs / halfLife.toMillis());
+        this.seedPeriod = seedPeriod;
+        this.ratio = ratio;
+        this.minCount = minCount;
+        this.cooldownMs = cooldown.toMillis();
+        this.recentSize = recentSize;
+
+        this.slices = new CountMinSketch[buckets];
+        for (int i = 0; i < buckets; i++) {
+            slices[i] = new CountMinSketch(depth, width);
+        }
+        this.windowCounts = new CountMinSketch(depth, width);
+        this.baseline = new CountMinSketch(depth, width);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedBaseline() {
+        String since = Instant.now().minus(seedPeriod).toString();
+        // Each stored report adds its share of an average slice
+        double perSlice = (double) sliceMs / seedPeriod.toMillis();
+        Mono.zip(
+                seedPages((afterId, limit) -> supabaseService.getComplaintArrivalsSince(since, afterId, limit),
+                        0L, SurgeDetector::complaintKeys, perSlice),
+                seedPages((afterId, limit) -> supabaseService.getDuplicateArrivalsSince(since, afterId, limit),
+                        0L, SurgeDetector::complaintKeys, perSlice),
+                seedPages((afterId, limit) -> supabaseService.getEmergencyArrivalsSince(since, afterId, limit),
+                        0L, SurgeDetector::emergencyKeys, perSlice))
+                .subscribe(seeded -> System.out.println("📈 Surge baseline seeded from " + seeded.getT1()
+                        + " complaints, " + seeded.getT2() + " duplicate reports and " + seeded.getT3()
+                        + " SOS reports"),
+                        e -> System.err.println("❌ Surge baseline seeding failed: " + e.getMessage()));
+    }
+
+    /** Add one keyset page and the ones after it to the baseline; returns the number of rows. */
+    private Mono<Integer> seedPages(BiFunction<Long, Integer, Mono<List<Map<String, Object>>>> page, long afterId,
+            Function<Map<String, Object>, List<String[]>> keys, double perSlice) {
+        return page.apply(afterId, SEED_PAGE_SIZE)
+                .flatMap(rows -> {
+                    long lastId = afterId;
+                    synchronized (this) {
+                        for (Map<String, Object> row : rows) {
+                            lastId = ((Number) row.get("id")).longValue();
+                            keys.apply(row).forEach(k -> baseline.add(sketchKey(k[0], k[1]), perSlice));
+                        }
+                    }
+                    if (rows.size() < SEED_PAGE_SIZE) {
+                        return Mono.just(rows.size());
+                    }
+                    return seedPages(page, lastId, keys, perSlice).map(rest -> rows.size() + rest);
+                });
+    }
+
+    @EventListener
+    public void onComplaintReported(ComplaintReportedEvent event) {
+        record(complaintKeys(event.complaint()));
+    }
+
+    @EventListener
+    public void onEmergencyReported(EmergencyReportedEvent event) {
+        record(emergencyKeys(event.row()));
+    }
+
+    /** Recent surges, newest first. */
+    public synchronized List<Map<String, Object>> recent(int limit) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Map<String, Object> surge : recent) {
+            if (out.size() >= limit) {
+                break;
+            }
+            out.add(surge);
+        }
+        return out;
+    }
+
+    /** Current window count and baseline expectation for one key. */
+    public synchronized Map<String, Object> estimate(String dimension, String key) {
+        advance(System.currentTimeMillis());
+        String k = sketchKey(dimension, key);
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("dimension", dimension);
+        out.put("key", key);
+        out.put("count", Math.round(windowCounts.estimate(k)));
+        out.put("expected", round(expected(k)));
+        out.put("windowMinutes", window.toMinutes());
+        return out;
+    }
+
+    public long windowMinutes() {
+        return window.toMinutes();
+    }
+
+    private synchronized void record(List<String[]> keys) {
+        long now = System.currentTimeMillis();
+        advance(now);
+        CountMinSketch slice = slices[(int) (currentSlice % slices.length)];
+        for (String[] dimensionAndKey : keys) {
+            String k = sketchKey(dimensionAndKey[0], dimensionAndKey[1]);
+            slice.add(k, 1);
+            windowCounts.add(k, 1);
+
+            double count = windowCounts.estimate(k);
+            double expected = expected(k);
+            // Below one expected report per window the ratio alone means little
+            if (count >= minCount && count >= ratio * Math.max(expected, 1)) {
+                Long last = lastAlert.get(k);
+                if (last == null || now - last >= cooldownMs) {
+                    lastAlert.put(k, now);
+                    alert(dimensionAndKey[0], dimensionAndKey[1], count, expected, now);
+                }
+            }
+        }
+    }
+
+    private double expected(String k) {
+        return baseline.estimate(k) * slices.length;
+    }
+
+    /**
+     * Move the ring up to the slice containing {@code now}: each closing
+     * slice is folded into the baseline and each reused slot leaves the
+     * window. After a long quiet spell the baseline just decays.
+     */
+    private void advance(long now) {
+        long slice = now / sliceMs;
+        if (currentSlice < 0) {
+            currentSlice = slice;
+            return;
+        }
+        long steps = slice - currentSlice;
+        for (long i = 0; i < Math.min(steps, slices.length); i++) {
+            baseline.scale(decayPerSlice);
+            baseline.merge(slices[(int) (currentSlice % slices.length)], 1 - decayPerSlice);
+            currentSlice++;
+            CountMinSketch reused = slices[(int) (currentSlice % slices.length)];
+            windowCounts.merge(reused, -1);
+            reused.clear();
+        }
+        if (steps > slices.length) {
+            baseline.scale(Math.pow(decayPerSlice, steps - slices.length));
+            currentSlice = slice;
+        }
+    }
+
+    private void alert(String dimension, String key, double count, double expected, long now) {
+        Map<String, Object> surge = new LinkedHashMap<>();
+        surge.put("dimension", dimension);
+        surge.put("key", key);
+        surge.put("count", Math.round(count));
+        surge.put("expected", round(expected));
+        surge.put("windowMinutes", window.toMinutes());
+        surge.put("detectedAt", Instant.ofEpochMilli(now).toString());
+
+        recent.addFirst(surge);
+        while (recent.size() > recentSize) {
+            recent.removeLast();
+        }
+        meters.counter("surge.detected", "dimension", dimension).increment();
+        System.out.println("📈 Surge: " + dimension + " '" + key + "' had " + Math.round(count)
+                + " reports in " + window.toMinutes() + " min, usually " + round(expected));
+    }
+
+    private static List<String[]> complaintKeys(Map<String, Object> row) {
+        List<String[]> keys = new ArrayList<>(4);
+        if ("fake".equalsIgnoreCase(String.valueOf(row.get("status")))) {
+            return keys;
+        }
+        String thana = text(row.get("thana"));
+        String route = text(row.get("route"));
+        String category = text(row.get("category"));
+        if (thana != null) {
+            keys.add(new String[] { "thana", thana });
+        }
+        if (route != null) {
+            keys.add(new String[] { "route", route });
+        }
+        if (category != null) {
+            keys.add(new String[] { "category", category });
+        }
+        if (route != null && category != null) {
+            keys.add(new String[] { "route_category", route + " / " + category });
+        }
+        return keys;
+    }
+
+    private static List<String[]> emergencyKeys(Map<String, Object> row) {
+        if (!(row.get("latitude") instanceof Number lat) || !(row.get("longitude") instanceof Number lng)) {
+            return List.of();
+        }
+        String area = String.format(Locale.ROOT, "%.2f,%.2f", lat.doubleValue(), lng.doubleValue());
+        List<String[]> keys = new ArrayList<>(1);
+        keys.add(new String[] { "sos_area", area });
+        return keys;
+    }
+
+    private static String sketchKey(String dimension, String key) {
+        return dimension + '\u0000' + key.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String text(Object o) {
+        return o == null || String.valueOf(o).isBlank() ? null : String.valueOf(o).trim();
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 10) / 10.0;
+    }
+}
@@ -0,0 +1,332 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.event.ComplaintChangedEvent;
+import com.jatriovijog.event.ComplaintReactedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Police work list: open (new/working) complaints ranked per thana.
+ *
+ * A complaint's score, in hours, is how long it has been waiting plus
+ * bonuses for its AI priority, its reactions and the duplicate reports
+ * merged into it:
+ *
+ * <pre>
+ * score = age + priority-hours + reaction-hours * log2(1 + reactions)
+ *             + duplicate-hours * (report_count - 1)
+ * </pre>
+ *
+ * Age grows at the same rate for every complaint, so time passing never
+ * changes the order. Each complaint is therefore filed under a fixed key
+ * (its score minus the current time) in a sorted set per thana and one for
+ * all thanas, and is only moved when an event changes it. A top-K read
+ * walks the first K entries however long the backlog is.
+ *
+ * Built at startup from keyset pages of a narrow projection of complaints
+ * plus the reaction table, then kept current from
+ * {@link ComplaintChangedEvent}s and {@link ComplaintReactedEvent}s. Events
+ * that arrive during the build are replayed onto it before it goes live.
+ * Reactions are only tracked for open complaints. Like {@link BusIncidentIndex}, this only sees writes made
+ * through this instance.
+ */
+@Service
+public class TriageQueue {
+
+    private static final Set<String> OPEN_STATUSES = Set.of("new", "working");
+    private static final double MS_PER_HOUR = 3_600_000d;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final Duration MAX_RETRY_BACKOFF = Duration.ofMinutes(1);
+
+    private static final Comparator<Item> ORDER = Comparator.comparingDouble(Item::key).reversed()
+            .thenComparingLong(Item::id);
+
+    private final SupabaseService supabaseService;
+    private final double highHours;
+    private final double mediumHours;
+    private final double lowHours;
+    private final double reactionHours;
+    private final double duplicateHours;
+    private final Duration retryBackoff;
+
+    private final Map<Long, Item> items = new HashMap<>();
+    private final TreeSet<Item> all = new TreeSet<>(ORDER);
+    private final Map<String, TreeSet<Item>> byThana = new HashMap<>();
+    private final Map<Long, Set<String>> reactors = new HashMap<>();
+    private volatile boolean ready = false;
+    // Events seen since the running build started; null when none is running
+    private List<Object> pending;
+
+    public TriageQueue(SupabaseService supabaseService,
+            @Value("${triage.priority-hours.high:48}") double highHours,
+            @Value("${triage.priority-hours.medium:12}") double mediumHours,
+            @Value("${triage.priority-hours.low:0}") double lowHours,
+            @Value("${triage.reaction-hours:4}") double reactionHours,
+            @Value("${triage.duplicate-hours:6}") double duplicateHours,
+            @Value("${triage.rebuild.retry-backoff:1s}") Duration retryBackoff) {
+        this.supabaseService = supabaseService;
+        this.highHours = highHours;
+        this.mediumHours = mediumHours;
+        this.lowHours = lowHours;
+        this.reactionHours = reactionHours;
+        this.duplicateHours = duplicateHours;
+        this.retryBackoff = retryBackoff;
+    }
+
+    private record Item(long id, String thana, String status, String priority, Object createdAt,
+            long createdAtMs, int reportCount, int reactions, double key) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild().subscribe(count -> System.out.println("🚨 Triage queue built: " + count + " open complaints, "
+                + byThana.size() + " thanas"),
+                e -> System.err.println("❌ Triage queue build failed: " + e.getMessage()));
+    }
+
+    /**
+     * Page through complaints and reactions (in id order) into a fresh queue
+     * and swap it in. A failed load starts over after a backoff, so the queue
+     * becomes ready once the table store answers. Returns the number of open
+     * complaints.
+     */
+    public Mono<Integer> rebuild() {
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        Map<Long, Map<String, Object>> open = new HashMap<>();
+        Map<Long, Set<String>> clients = new HashMap<>();
+        return Mono.defer(() -> {
+                    open.clear();
+                    clients.clear();
+                    return loadPages(supabaseService::getComplaintTriageRows, 0L, row -> {
+                        if (OPEN_STATUSES.contains(lower(row.get("status")))) {
+                            open.put(((Number) row.get("id")).longValue(), row);
+                        }
+                    }).then(loadPages(supabaseService::getReactionClients, 0L, row -> {
+                        // Only open complaints rank, so only their reactions are kept
+                        if (row.get("complaint_id") instanceof Number id && open.containsKey(id.longValue())) {
+                            clients.computeIfAbsent(id.longValue(), k -> new HashSet<>())
+                                    .add(String.valueOf(row.get("client_id")));
+                        }
+                    }));
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, retryBackoff).maxBackoff(MAX_RETRY_BACKOFF)
+                        .doBeforeRetry(signal -> System.err.println("⚠️ Triage queue build failed, retrying: "
+                                + signal.failure().getMessage())))
+                .then(Mono.fromCallable(() -> swap(open.values(), clients)))
+                .doOnError(e -> {
+                    synchronized (this) {
+                        pending = null;
+                    }
+                });
+    }
+
+    private synchronized int swap(Collection<Map<String, Object>> open, Map<Long, Set<String>> clients) {
+        items.clear();
+        all.clear();
+        byThana.clear();
+        reactors.clear();
+        open.forEach(this::apply);
+        clients.forEach((id, set) -> {
+            reactors.put(id, set);
+            place(items.get(id), set.size());
+        });
+        // Writes and reactions made during the load may be missing from it, or
+        // in it already; rows are merged and reactions are per client, so replaying is safe
+        pending.forEach(this::applyEvent);
+        pending = null;
+        ready = true;
+        return items.size();
+    }
+
+    private Mono<Void> loadPages(BiFunction<Long, Integer, Mono<List<Map<String, Object>>>> page, long afterId,
+            Consumer<Map<String, Object>> sink) {
+        return page.apply(afterId, REBUILD_PAGE_SIZE)
+                .flatMap(rows -> {
+                    long lastId = afterId;
+                    for (Map<String, Object> row : rows) {
+                        lastId = ((Number) row.get("id")).longValue();
+                        sink.accept(row);
+                    }
+                    return rows.size() < REBUILD_PAGE_SIZE ? Mono.<Void>empty() : loadPages(page, lastId, sink);
+                });
+    }
+
+    @EventListener
+    public synchronized void onComplaintChanged(ComplaintChangedEvent event) {
+        if (pending != null) {
+            pending.add(event);
+        }
+        applyEvent(event);
+    }
+
+    @EventListener
+    public synchronized void onComplaintReacted(ComplaintReactedEvent event) {
+        if (pending != null) {
+            pending.add(event);
+        }
+        applyEvent(event);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * The {@code limit} most urgent open complaints, in one thana or (for a
+     * null thana) across all of them.
+     */
+    public synchronized Map<String, Object> top(String thana, int limit) {
+        TreeSet<Item> set = thana == null || thana.isBlank() ? all : byThana.get(key(thana));
+        long now = System.currentTimeMillis();
+
+        List<Map<String, Object>> ranked = new ArrayList<>();
+        if (set != null) {
+            Iterator<Item> it = set.iterator();
+            while (it.hasNext() && ranked.size() < limit) {
+                ranked.add(toMap(it.next(), ranked.size() + 1, now));
+            }
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("thana", thana);
+        out.put("open", set == null ? 0 : set.size());
+        out.put("items", ranked);
+        return out;
+    }
+
+    // ---------- queue maintenance (callers hold the lock) ----------
+
+    private void applyEvent(Object event) {
+        if (event instanceof ComplaintChangedEvent changed) {
+            if (changed.type() == ComplaintChangedEvent.Type.DELETED) {
+                remove(changed.id());
+                reactors.remove(changed.id());
+            } else {
+                apply(changed.row());
+            }
+        } else if (event instanceof ComplaintReactedEvent reacted) {
+            Item item = items.get(reacted.complaintId());
+            if (item == null) {
+                return;
+            }
+            Set<String> clients = reactors.computeIfAbsent(item.id(), k -> new HashSet<>());
+            if (clients.add(reacted.clientId())) {
+                place(item, clients.size());
+            }
+        }
+    }
+
+    private void apply(Map<String, Object> row) {
+        if (row.get("id") == null) {
+            return;
+        }
+        long id = ((Number) row.get("id")).longValue();
+        Item old = items.get(id);
+
+        String status = row.containsKey("status") ? lower(row.get("status")) : old == null ? "new" : old.status();
+        if (!OPEN_STATUSES.contains(status)) {
+            remove(id);
+            reactors.remove(id);
+            return;
+        }
+        String thana = row.containsKey("thana") ? (String) row.get("thana") : old == null ? null : old.thana();
+        String priority = row.containsKey("priority") ? lower(row.get("priority"))
+                : old == null ? "low" : old.priority();
+        Object createdAt = old != null ? old.createdAt() : row.get("created_at");
+        long createdAtMs = old != null ? old.createdAtMs() : parseTime(createdAt);
+        int reportCount = row.get("report_count") instanceof Number n ? n.intValue()
+                : old == null ? 1 : old.reportCount();
+        int reactions = old == null ? 0 : old.reactions();
+
+        place(new Item(id, thana, status, priority, createdAt, createdAtMs, reportCount, reactions, 0), reactions);
+    }
+
+    /** (Re)file a complaint under the key for its current fields. */
+    private void place(Item item, int reactions) {
+        remove(item.id());
+        double bonus = switch (item.priority()) {
+            case "high" -> highHours;
+            case "medium" -> mediumHours;
+            default -> lowHours;
+        };
+        bonus += reactionHours * Math.log1p(reactions) / Math.log(2);
+        bonus += duplicateHours * Math.max(0, item.reportCount() - 1);
+
+        Item placed = new Item(item.id(), item.thana(), item.status(), item.priority(), item.createdAt(),
+                item.createdAtMs(), item.reportCount(), reactions, bonus - item.createdAtMs() / MS_PER_HOUR);
+        items.put(placed.id(), placed);
+        all.add(placed);
+        byThana.computeIfAbsent(key(placed.thana()), k -> new TreeSet<>(ORDER)).add(placed);
+    }
+
+    private void remove(long id) {
+        Item item = items.remove(id);
+        if (item == null) {
+            return;
+        }
+        all.remove(item);
+        String k = key(item.thana());
+        TreeSet<Item> set = byThana.get(k);
+        if (set != null) {
+            set.remove(item);
+            if (set.isEmpty()) {
+                byThana.remove(k);
+            }
+        }
+    }
+
+    private static Map<String, Object> toMap(Item item, int rank, long now) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("rank", rank);
+        out.put("id", item.id());
+        out.put("thana", item.thana());
+        out.put("status", item.status());
+        out.put("priority", item.priority());
+        out.put("createdAt", item.createdAt());
+        out.put("reactions", item.reactions());
+        out.put("reportCount", item.reportCount());
+        out.put("score", Math.round((item.key() + now / MS_PER_HOUR) * 10) / 10.0);
+        return out;
+    }
+
+    private static String key(String thana) {
+        return thana == null ? "" : thana.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String lower(Object o) {
+        return o == null ? "" : String.valueOf(o).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long parseTime(Object createdAt) {
+        if (createdAt != null) {
+            try {
+                return OffsetDateTime.parse(String.valueOf(createdAt)).toInstant().toEpochMilli();
+            } catch (Exception ignored) {
+            }
+        }
+        return System.currentTimeMillis();
+    }
+}
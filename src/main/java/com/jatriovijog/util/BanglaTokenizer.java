@@ -0,0 +1,161 @@
+package com.jatriovijog.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Tokenizer for complaint text written in Bangla script, romanized Bangla
+ * ("Banglish") or English, often mixed in one sentence.
+ *
+ * Tokens are NFC-normalized and lowercased, Bangla digits become ASCII, and
+ * each token is folded so common spelling variants meet on the same term:
+ * Bangla tokens lose frequent case/plural suffixes, Latin tokens are reduced
+ * with a small phonetic folding (bhai/vai, dhakka/dhaka, ...). The same
+ * function is used for indexing and for queries, so folding only has to be
+ * consistent, not linguistically exact.
+ */
+public final class BanglaTokenizer {
+
+    // Longest first; stripped repeatedly so "ড্রাইভারের" and "ড্রাইভার" meet
+    private static final String[] BANGLA_SUFFIXES = nfc(
+            "গুলোকে", "গুলো", "গুলি", "দেরকে", "দের", "েরা", "ের", "কে", "তে", "টা", "টি", "রা", "য়", "র", "ে");
+
+    private static final String[] LATIN_SUFFIXES = {
+            "gulo", "guli", "der", "ke", "te", "ta", "ti", "er", "e"
+    };
+
+    private static final Set<String> STOP_WORDS = Set.of(nfc(
+            // English
+            "a", "an", "the", "and", "or", "of", "to", "in", "on", "at", "is", "was", "it", "for", "with", "by",
+            // Banglish
+            "ami", "amar", "amake", "ei", "oi", "je", "ki", "ar", "o", "e", "ta", "theke", "hoy", "hoise", "korse",
+            // Bangla
+            "এবং", "ও", "আমি", "আমার", "আমাকে", "এই", "ওই", "যে", "কি", "থেকে", "হয়", "করে"));
+
+    private BanglaTokenizer() {
+    }
+
+    // Some Bangla letters (e.g. য়) decompose under NFC, so constants must be normalized like the input
+    private static String[] nfc(String... words) {
+        String[] out = new String[words.length];
+        for (int i = 0; i < words.length; i++) {
+            out[i] = Normalizer.normalize(words[i], Normalizer.Form.NFC);
+        }
+        return out;
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        StringBuilder current = new StringBuilder();
+
+        for (int i = 0; i < normalized.length(); ) {
+            int cp = normalized.codePointAt(i);
+            i += Character.charCount(cp);
+
+            if (cp == 0x200C || cp == 0x200D) {
+                // zero-width (non-)joiners only affect rendering
+                continue;
+            }
+            if (Character.isDigit(cp)) {
+                current.append((char) ('0' + Character.digit(cp, 10)));
+            } else if (isWordChar(cp)) {
+                current.appendCodePoint(cp);
+            } else {
+                flush(current, tokens);
+            }
+        }
+        flush(current, tokens);
+        return tokens;
+    }
+
+    private static boolean isWordChar(int cp) {
+        if (Character.isLetter(cp)) {
+            return true;
+        }
+        int type = Character.getType(cp);
+        // Bangla vowel signs and the hasanta are combining marks
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    private static void flush(StringBuilder current, List<String> tokens) {
+        if (current.length() == 0) {
+            return;
+        }
+        String raw = current.toString();
+        current.setLength(0);
+
+        if (STOP_WORDS.contains(raw)) {
+            return;
+        }
+        String term = isBangla(raw) ? foldBangla(raw) : isNumeric(raw) ? raw : foldLatin(raw);
+        if (term.length() >= 2 || isNumeric(term)) {
+            tokens.add(term);
+        }
+    }
+
+    private static String foldBangla(String token) {
+        boolean stripped = true;
+        while (stripped) {
+            stripped = false;
+            for (String suffix : BANGLA_SUFFIXES) {
+                if (token.endsWith(suffix)
+                        && token.codePointCount(0, token.length() - suffix.length()) >= 3) {
+                    token = token.substring(0, token.length() - suffix.length());
+                    stripped = true;
+                    break;
+                }
+            }
+        }
+        return token;
+    }
+
+    private static String foldLatin(String token) {
+        String t = token
+                .replace("ph", "f")
+                .replace("bh", "v")
+                .replace("kh", "k")
+                .replace("gh", "g")
+                .replace("th", "t")
+                .replace("dh", "d")
+                .replace("sh", "s")
+                .replace("ch", "c")
+                .replace("w", "o")
+                .replace("z", "j")
+                .replace("ee", "i")
+                .replace("oo", "u")
+                .replace("y", "i");
+
+        for (String suffix : LATIN_SUFFIXES) {
+            if (t.endsWith(suffix) && t.length() - suffix.length() >= 3) {
+                t = t.substring(0, t.length() - suffix.length());
+                break;
+            }
+        }
+
+        // collapse doubled letters: dhakka -> daka, vaiiii -> vai
+        StringBuilder out = new StringBuilder(t.length());
+        for (int i = 0; i < t.length(); i++) {
+            char c = t.charAt(i);
+            if (i == 0 || c != t.charAt(i - 1)) {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static boolean isBangla(String token) {
+        return token.codePoints().anyMatch(cp -> Character.UnicodeBlock.of(cp) == Character.UnicodeBlock.BENGALI);
+    }
+
+    private static boolean isNumeric(String token) {
+        return !token.isEmpty() && token.chars().allMatch(c -> c >= '0' && c <= '9');
+    }
+}
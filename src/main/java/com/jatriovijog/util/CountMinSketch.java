@@ -0,0 +1,93 @@
+package com.jatriovijog.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Count-min sketch: approximate counts for any number of keys in
+ * {@code depth x width} cells. Each key adds to one cell per row, picked by
+ * a different hash, and its estimate is the smallest of those cells. Other
+ * keys landing in the same cells can only push an estimate up, never down;
+ * with width w the overshoot stays within about e/w of the total count in
+ * all but e^-depth of lookups.
+ *
+ * Cells are doubles so that sketches of the same shape can be added,
+ * subtracted and scaled cell by cell (sliding windows, decayed averages)
+ * and still answer for every key. Not thread-safe.
+ */
+public final class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final double[] cells;
+
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("depth and width must be positive");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.cells = new double[depth * width];
+    }
+
+    public void add(String key, double count) {
+        long h = hash(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int row = 0; row < depth; row++) {
+            cells[row * width + index(h1, h2, row)] += count;
+        }
+    }
+
+    public double estimate(String key) {
+        long h = hash(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        double min = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, cells[row * width + index(h1, h2, row)]);
+        }
+        return Math.max(0, min);
+    }
+
+    /** Adds {@code factor} times every cell of a sketch of the same shape. */
+    public void merge(CountMinSketch other, double factor) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("sketch shapes differ");
+        }
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] += factor * other.cells[i];
+        }
+    }
+
+    public void scale(double factor) {
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] *= factor;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(cells, 0);
+    }
+
+    // Row i uses h1 + i * h2 (Kirsch-Mitzenmacher): two hashes stand in for depth.
+    // h2 is odd, so the rows' cells differ whenever width is a power of two.
+    private int index(int h1, int h2, int row) {
+        return Math.floorMod(h1 + row * h2, width);
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, finished with a murmur3 mix
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe53ec5c9L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,91 @@
+package com.jatriovijog.util;
+
+/**
+ * Concurrency limit that follows latency, after the gradient algorithm of
+ * Netflix's concurrency-limits. Request latencies are averaged over short
+ * windows and compared with a long-running average:
+ *
+ * <pre>
+ * gradient = clamp(tolerance * longRtt / shortRtt, 0.5, 1)
+ * limit    = smooth(limit * gradient + sqrt(limit))
+ * </pre>
+ *
+ * While latency stays near its usual level the gradient is 1 and the
+ * {@code sqrt(limit)} headroom lets the limit grow; once it rises past
+ * {@code tolerance} times the usual level the limit shrinks, by at most half
+ * per window. Windows in which the limit was not approached leave it alone,
+ * so a quiet period does not inflate it.
+ */
+public final class GradientLimit {
+
+    private static final long WINDOW_NANOS = 500_000_000L;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    // Weight of each window in the long-running average (about a minute of windows)
+    private static final double LONG_RTT_WEIGHT = 1.0 / 120;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+
+    private volatile int limit;
+    private double longRtt;
+
+    private long windowStart;
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * Record a finished request.
+     *
+     * @param inFlight requests in flight when it finished, itself included
+     */
+    public synchronized void onSample(long now, long rttNanos, int inFlight) {
+        if (windowSamples == 0) {
+            windowStart = now;
+        }
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+
+        if (now - windowStart < WINDOW_NANOS || windowSamples < MIN_WINDOW_SAMPLES) {
+            return;
+        }
+        double shortRtt = (double) windowRttSum / windowSamples;
+        boolean appLimited = windowMaxInFlight < limit / 2;
+        windowSamples = 0;
+        windowRttSum = 0;
+        windowMaxInFlight = 0;
+
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+            return;
+        }
+        longRtt += (shortRtt - longRtt) * LONG_RTT_WEIGHT;
+        // After an overload the long average is left far above normal; let it
+        // come back down faster so the limit can recover
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        if (appLimited) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        double next = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = (int) Math.max(minLimit, Math.min(maxLimit, Math.round(next)));
+    }
+}
@@ -0,0 +1,57 @@
+package com.jatriovijog.util;
+
+import java.util.Arrays;
+
+/**
+ * A percentile over the last {@code size} recorded values. Values go into a
+ * ring buffer; the percentile is recomputed by sorting a copy at most once
+ * per {@code refreshNanos}, so reading it on every request stays cheap.
+ * Until {@code minSamples} values have been seen it reports -1.
+ */
+public final class RollingPercentile {
+
+    private final double percentile;
+    private final int minSamples;
+    private final long refreshNanos;
+    private final long[] samples;
+
+    private int next;
+    private int count;
+    private long value = -1;
+    private long computedAt;
+    private boolean dirty;
+
+    public RollingPercentile(double percentile, int size, int minSamples, long refreshNanos) {
+        this.percentile = percentile;
+        this.samples = new long[size];
+        this.minSamples = minSamples;
+        this.refreshNanos = refreshNanos;
+    }
+
+    public synchronized void record(long sample) {
+        samples[next] = sample;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        dirty = true;
+    }
+
+    /** The percentile as of the last refresh, or -1 with too few samples. */
+    public synchronized long value(long now) {
+        if (count < minSamples) {
+            return -1;
+        }
+        if (dirty && (value < 0 || now - computedAt >= refreshNanos)) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            value = sorted[Math.max(0, (int) Math.ceil(percentile * count) - 1)];
+            computedAt = now;
+            dirty = false;
+        }
+        return value;
+    }
+
+    /** Last computed value without refreshing, for gauges. */
+    public synchronized long lastValue() {
+        return value;
+    }
+}
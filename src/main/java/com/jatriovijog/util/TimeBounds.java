@@ -0,0 +1,28 @@
+package com.jatriovijog.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+/**
+ * The {@code from} / {@code to} query parameters of the analytics and export
+ * endpoints: an ISO instant with offset, or a {@code yyyy-MM-dd} date meaning
+ * the start of that Dhaka day.
+ */
+public final class TimeBounds {
+
+    // Day buckets follow Dhaka days, as in V6__activity_rollups.sql
+    public static final ZoneId DHAKA = ZoneId.of("Asia/Dhaka");
+
+    private TimeBounds() {
+    }
+
+    /** Throws a {@link java.time.format.DateTimeParseException} for anything else. */
+    public static Instant parse(String value) {
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay(DHAKA).toInstant();
+        }
+        return OffsetDateTime.parse(value).toInstant();
+    }
+}
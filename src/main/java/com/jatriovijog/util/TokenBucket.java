@@ -0,0 +1,50 @@
+package com.jatriovijog.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket kept as a single {@code long}: the time at which the
+ * bucket will be full again (the "theoretical arrival time" of GCRA, the
+ * generic cell rate algorithm). Taking a token pushes that time forward by
+ * one refill interval; the take is refused when it would land more than
+ * {@code capacity} intervals ahead of now, i.e. when the bucket is empty.
+ * Measuring the burst in whole intervals rather than against the period
+ * keeps it at exactly {@code capacity} when the period does not divide
+ * evenly.
+ *
+ * The limit is passed on each call rather than stored, so a bucket is one
+ * {@link AtomicLong} whatever its limit. Times are non-negative nanoseconds
+ * on a clock chosen by the caller.
+ */
+public final class TokenBucket {
+
+    private final AtomicLong fullAt = new AtomicLong();
+
+    /**
+     * Take one token from a bucket that holds {@code capacity} tokens and
+     * refills completely every {@code periodNanos}.
+     *
+     * @return 0 when a token was taken, otherwise nanoseconds until one will be
+     */
+    public long tryTake(int capacity, long periodNanos, long now) {
+        // At least 1ns: an interval of 0 would never move fullAt, i.e. no limit
+        long interval = Math.max(1, periodNanos / capacity);
+        long burst = interval * capacity;
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - burst;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /** True when the bucket has refilled completely and can be forgotten. */
+    public boolean isFull(long now) {
+        return fullAt.get() <= now;
+    }
+}
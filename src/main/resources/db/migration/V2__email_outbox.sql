@@ -0,0 +1,21 @@
+-- Email outbox: every outgoing email is persisted here first and delivered
+-- by the EmailOutboxService worker pool. A row stays 'pending' until it is
+-- sent or runs out of attempts. next_attempt_at doubles as a lease: a worker
+-- claims a row by pushing it into the future, so a crashed instance simply
+-- lets the row become due again.
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    to_email TEXT NOT NULL,
+    subject TEXT NOT NULL,
+    body TEXT,
+    status TEXT NOT NULL DEFAULT 'pending',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_due
+    ON email_outbox (next_attempt_at)
+    WHERE status = 'pending';
@@ -0,0 +1,10 @@
+-- Resolution emails are queued before their text exists. Such rows sit in
+-- status 'drafting' with the inputs for the report generator, and move to
+-- 'pending' once ResolutionReportService has filled in the body.
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS draft_category TEXT;
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS draft_bus_name TEXT;
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS draft_action TEXT;
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_drafting
+    ON email_outbox (next_attempt_at)
+    WHERE status = 'drafting';
@@ -0,0 +1,3 @@
+-- English translation produced by AiAnalysisService.analyzeComplaint, kept so
+-- Bangla/Banglish complaints can be searched in English as well.
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS translated_text TEXT;
@@ -0,0 +1,31 @@
+-- Reports that duplicate an open complaint. Each one is linked to its parent
+-- instead of being appended to the parent's description, so the parent row
+-- stays the same size however many people report the same incident.
+CREATE TABLE IF NOT EXISTS complaint_duplicates (
+    id BIGSERIAL PRIMARY KEY,
+    parent_id BIGINT NOT NULL REFERENCES complaints(id) ON DELETE CASCADE,
+    description TEXT,
+    reporter_type TEXT,
+    user_id BIGINT REFERENCES users(id),
+    created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_complaint_duplicates_parent
+    ON complaint_duplicates (parent_id, created_at);
+
+-- How many reports the complaint stands for, itself included.
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS report_count INTEGER NOT NULL DEFAULT 1;
+
+-- Counted in the same transaction as the insert, so concurrent duplicates
+-- cannot lose an increment and the app never has to read-modify-write.
+CREATE OR REPLACE FUNCTION complaint_duplicates_count() RETURNS trigger AS $$
+BEGIN
+    UPDATE complaints SET report_count = report_count + 1 WHERE id = NEW.parent_id;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_complaint_duplicates_count ON complaint_duplicates;
+CREATE TRIGGER trg_complaint_duplicates_count
+    AFTER INSERT ON complaint_duplicates
+    FOR EACH ROW EXECUTE FUNCTION complaint_duplicates_count();
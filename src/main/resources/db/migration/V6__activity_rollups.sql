@@ -0,0 +1,106 @@
+-- Hourly and daily counts of complaints (in total and by status, category,
+-- thana and priority) and of SOS reports (in total), so trend charts read a
+-- few hundred rollup rows instead of scanning the raw tables. Buckets are
+-- keyed by when the report was made; a complaint that changes status moves
+-- from one status count to the other within its bucket. Days are Dhaka days.
+CREATE TABLE IF NOT EXISTS activity_rollups (
+    source TEXT NOT NULL,
+    granularity TEXT NOT NULL,
+    bucket_start TIMESTAMPTZ NOT NULL,
+    dimension TEXT NOT NULL,
+    value TEXT NOT NULL,
+    count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (source, granularity, dimension, bucket_start, value)
+);
+
+-- Written by the app since before the schema was versioned; the rollups need it
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS priority TEXT DEFAULT 'Low';
+
+CREATE OR REPLACE FUNCTION activity_rollup_bucket(p_granularity TEXT, p_at TIMESTAMPTZ)
+RETURNS TIMESTAMPTZ AS $$
+    SELECT CASE p_granularity
+        WHEN 'hour' THEN date_trunc('hour', p_at AT TIME ZONE 'UTC') AT TIME ZONE 'UTC'
+        ELSE date_trunc('day', p_at AT TIME ZONE 'Asia/Dhaka') AT TIME ZONE 'Asia/Dhaka'
+    END;
+$$ LANGUAGE sql STABLE;
+
+CREATE OR REPLACE FUNCTION activity_rollup_add(p_source TEXT, p_at TIMESTAMPTZ, p_dimension TEXT,
+        p_value TEXT, p_delta INTEGER) RETURNS void AS $$
+    INSERT INTO activity_rollups (source, granularity, bucket_start, dimension, value, count)
+    VALUES (p_source, 'hour', activity_rollup_bucket('hour', p_at), p_dimension, p_value, p_delta),
+           (p_source, 'day', activity_rollup_bucket('day', p_at), p_dimension, p_value, p_delta)
+    ON CONFLICT (source, granularity, dimension, bucket_start, value)
+    DO UPDATE SET count = activity_rollups.count + EXCLUDED.count;
+$$ LANGUAGE sql;
+
+CREATE OR REPLACE FUNCTION complaints_rollup() RETURNS trigger AS $$
+BEGIN
+    -- Most updates (notes, report_count, text) touch no rolled-up column
+    IF TG_OP = 'UPDATE'
+            AND OLD.created_at IS NOT DISTINCT FROM NEW.created_at
+            AND lower(OLD.status) IS NOT DISTINCT FROM lower(NEW.status)
+            AND OLD.category IS NOT DISTINCT FROM NEW.category
+            AND OLD.thana IS NOT DISTINCT FROM NEW.thana
+            AND lower(OLD.priority) IS NOT DISTINCT FROM lower(NEW.priority) THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM activity_rollup_add('complaints', OLD.created_at, 'total', 'all', -1);
+        PERFORM activity_rollup_add('complaints', OLD.created_at, 'status', COALESCE(lower(OLD.status), 'unknown'), -1);
+        PERFORM activity_rollup_add('complaints', OLD.created_at, 'category', COALESCE(OLD.category, 'unknown'), -1);
+        PERFORM activity_rollup_add('complaints', OLD.created_at, 'thana', COALESCE(OLD.thana, 'unknown'), -1);
+        PERFORM activity_rollup_add('complaints', OLD.created_at, 'priority', COALESCE(lower(OLD.priority), 'unknown'), -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM activity_rollup_add('complaints', NEW.created_at, 'total', 'all', 1);
+        PERFORM activity_rollup_add('complaints', NEW.created_at, 'status', COALESCE(lower(NEW.status), 'unknown'), 1);
+        PERFORM activity_rollup_add('complaints', NEW.created_at, 'category', COALESCE(NEW.category, 'unknown'), 1);
+        PERFORM activity_rollup_add('complaints', NEW.created_at, 'thana', COALESCE(NEW.thana, 'unknown'), 1);
+        PERFORM activity_rollup_add('complaints', NEW.created_at, 'priority', COALESCE(lower(NEW.priority), 'unknown'), 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION emergency_reports_rollup() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM activity_rollup_add('emergencies', OLD.created_at, 'total', 'all', -1);
+    ELSE
+        PERFORM activity_rollup_add('emergencies', NEW.created_at, 'total', 'all', 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Backfill from the rows already there, then keep counting from the triggers
+-- (one transaction, so nothing is counted twice or missed)
+INSERT INTO activity_rollups (source, granularity, bucket_start, dimension, value, count)
+SELECT 'complaints', g.granularity, activity_rollup_bucket(g.granularity, c.created_at), d.dimension, d.value, count(*)
+FROM complaints c
+CROSS JOIN (VALUES ('hour'), ('day')) AS g (granularity)
+CROSS JOIN LATERAL (VALUES
+        ('total', 'all'),
+        ('status', COALESCE(lower(c.status), 'unknown')),
+        ('category', COALESCE(c.category, 'unknown')),
+        ('thana', COALESCE(c.thana, 'unknown')),
+        ('priority', COALESCE(lower(c.priority), 'unknown'))) AS d (dimension, value)
+GROUP BY 1, 2, 3, 4, 5
+ON CONFLICT DO NOTHING;
+
+INSERT INTO activity_rollups (source, granularity, bucket_start, dimension, value, count)
+SELECT 'emergencies', g.granularity, activity_rollup_bucket(g.granularity, e.created_at), 'total', 'all', count(*)
+FROM emergency_reports e
+CROSS JOIN (VALUES ('hour'), ('day')) AS g (granularity)
+GROUP BY 1, 2, 3, 4, 5
+ON CONFLICT DO NOTHING;
+
+DROP TRIGGER IF EXISTS trg_complaints_rollup ON complaints;
+CREATE TRIGGER trg_complaints_rollup
+    AFTER INSERT OR UPDATE OR DELETE ON complaints
+    FOR EACH ROW EXECUTE FUNCTION complaints_rollup();
+
+DROP TRIGGER IF EXISTS trg_emergency_reports_rollup ON emergency_reports;
+CREATE TRIGGER trg_emergency_reports_rollup
+    AFTER INSERT OR DELETE ON emergency_reports
+    FOR EACH ROW EXECUTE FUNCTION emergency_reports_rollup();
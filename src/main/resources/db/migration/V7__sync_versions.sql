@@ -0,0 +1,54 @@
+-- Change versions for the list endpoints' ETags and ?since= delta sync
+-- (ChangeLog). Every write to complaints or emergency_reports, from any app
+-- instance or straight in the database, bumps the table's version and
+-- stamps the row's entry in sync_changes with it.
+--
+-- The version row stays locked until the writing transaction commits, so
+-- writers to one table take versions one at a time and versions become
+-- visible in order: once a reader sees version N, every change up to N is
+-- visible too. That serializes the trigger's few statements per table; each
+-- app write is a single short transaction, so the wait is one commit.
+CREATE TABLE IF NOT EXISTS sync_versions (
+    table_name TEXT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO sync_versions (table_name) VALUES ('complaints'), ('emergency_reports')
+ON CONFLICT DO NOTHING;
+
+-- Latest change per row; deleted rows stay as tombstones
+CREATE TABLE IF NOT EXISTS sync_changes (
+    table_name TEXT NOT NULL,
+    row_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    deleted BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (table_name, row_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_sync_changes_version ON sync_changes (table_name, version);
+
+CREATE OR REPLACE FUNCTION sync_record_change() RETURNS trigger AS $$
+DECLARE
+    v BIGINT;
+BEGIN
+    UPDATE sync_versions SET version = version + 1
+    WHERE table_name = TG_TABLE_NAME
+    RETURNING version INTO v;
+
+    INSERT INTO sync_changes (table_name, row_id, version, deleted)
+    VALUES (TG_TABLE_NAME, CASE WHEN TG_OP = 'DELETE' THEN OLD.id ELSE NEW.id END, v, TG_OP = 'DELETE')
+    ON CONFLICT (table_name, row_id)
+    DO UPDATE SET version = EXCLUDED.version, deleted = EXCLUDED.deleted;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_complaints_sync ON complaints;
+CREATE TRIGGER trg_complaints_sync
+    AFTER INSERT OR UPDATE OR DELETE ON complaints
+    FOR EACH ROW EXECUTE FUNCTION sync_record_change();
+
+DROP TRIGGER IF EXISTS trg_emergency_reports_sync ON emergency_reports;
+CREATE TRIGGER trg_emergency_reports_sync
+    AFTER INSERT OR UPDATE OR DELETE ON emergency_reports
+    FOR EACH ROW EXECUTE FUNCTION sync_record_change();
@@ -0,0 +1,62 @@
+-- complaints_rollup (V6) applied its -1/+1 deltas one rollup row at a time,
+-- old values first. Two transactions moving complaints of the same bucket in
+-- opposite directions (new -> working and working -> new) therefore locked
+-- the same two status rows in opposite orders and could deadlock.
+--
+-- A row change's deltas are now netted first, so a status change touches
+-- only the two status rows, not total, category, thana and priority. They are
+-- then applied in one statement, sorted by the rollup key. Every transaction
+-- takes its rollup row locks in the same order, so they queue instead of
+-- deadlocking.
+--
+-- Inserts still add to the current bucket's rows ('total', and the usual
+-- status, category and so on), and each holds those row locks until it
+-- commits. Concurrent inserts in the same hour therefore take turns on them
+-- for about a commit each. At complaint rates that is far from a bottleneck.
+-- If it becomes one, the way out is an append-only delta table that the
+-- triggers insert into and a periodic job folds into activity_rollups, at
+-- the cost of the charts lagging by the fold interval.
+CREATE OR REPLACE FUNCTION complaints_rollup() RETURNS trigger AS $$
+BEGIN
+    -- Most updates (notes, report_count, text) touch no rolled-up column
+    IF TG_OP = 'UPDATE'
+            AND OLD.created_at IS NOT DISTINCT FROM NEW.created_at
+            AND lower(OLD.status) IS NOT DISTINCT FROM lower(NEW.status)
+            AND OLD.category IS NOT DISTINCT FROM NEW.category
+            AND OLD.thana IS NOT DISTINCT FROM NEW.thana
+            AND lower(OLD.priority) IS NOT DISTINCT FROM lower(NEW.priority) THEN
+        RETURN NULL;
+    END IF;
+
+    INSERT INTO activity_rollups (source, granularity, bucket_start, dimension, value, count)
+    SELECT 'complaints', g.granularity, activity_rollup_bucket(g.granularity, d.at), d.dimension, d.value,
+           sum(d.delta)
+    FROM (
+        SELECT OLD.created_at AS at, v.dimension, v.value, -1 AS delta
+        FROM (VALUES
+                ('total', 'all'),
+                ('status', COALESCE(lower(OLD.status), 'unknown')),
+                ('category', COALESCE(OLD.category, 'unknown')),
+                ('thana', COALESCE(OLD.thana, 'unknown')),
+                ('priority', COALESCE(lower(OLD.priority), 'unknown'))) AS v (dimension, value)
+        WHERE TG_OP IN ('UPDATE', 'DELETE')
+        UNION ALL
+        SELECT NEW.created_at, v.dimension, v.value, 1
+        FROM (VALUES
+                ('total', 'all'),
+                ('status', COALESCE(lower(NEW.status), 'unknown')),
+                ('category', COALESCE(NEW.category, 'unknown')),
+                ('thana', COALESCE(NEW.thana, 'unknown')),
+                ('priority', COALESCE(lower(NEW.priority), 'unknown'))) AS v (dimension, value)
+        WHERE TG_OP IN ('INSERT', 'UPDATE')
+    ) AS d
+    CROSS JOIN (VALUES ('day'), ('hour')) AS g (granularity)
+    GROUP BY 1, 2, 3, 4, 5
+    HAVING sum(d.delta) <> 0
+    -- The primary key order, the same in every transaction
+    ORDER BY 2, 4, 3, 5
+    ON CONFLICT (source, granularity, dimension, bucket_start, value)
+    DO UPDATE SET count = activity_rollups.count + EXCLUDED.count;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
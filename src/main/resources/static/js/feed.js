@@ -598,6 +598,7 @@
       method: "POST",
       headers: {
         "Content-Type": "application/json",
+        "X-Client-Id": getClientId(),
         ...(token ? { Authorization: `Bearer ${token}` } : {}),
       },
       body: JSON.stringify({
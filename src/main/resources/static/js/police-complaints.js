@@ -1,11 +1,17 @@
 // police-manage.js (Modern list UI + filters: thana, priority, status)
-// Backend endpoints unchanged:
+// Backend endpoints:
 //  - GET /api/complaints
 //  - PATCH /api/complaints/:id/status
+//  - GET /api/search/complaints?q=  (full-text, Bangla/Banglish aware)
 
 let allComplaints = [];
 let selectedComplaint = null;
 
+// ids matching the current search box text, from the server-side index
+let searchHits = null;
+let searchAbort = null;
+let searchTimer = null;
+
 // UI elements
 const listEl = document.getElementById("reportsList");
 const searchInput = document.getElementById("searchInput");
@@ -185,6 +191,45 @@ async function fetchBusHistory(busNumber) {
   return (Array.isArray(data) ? data : []).map(toCamel);
 }
 
+async function fetchSearchHits(q, signal) {
+  const resp = await fetch(
+    `/api/search/complaints?q=${encodeURIComponent(q)}&limit=500`,
+    { headers: getAuthHeaders(), signal },
+  );
+  const data = await safeReadJson(resp);
+  if (!resp.ok) throw new Error(data?.message || data?.error || "Search failed");
+  return new Set((data?.hits || []).map((h) => Number(h.id)));
+}
+
+function onSearchInput() {
+  clearTimeout(searchTimer);
+  // hits for an earlier query must not land on this one
+  searchAbort?.abort();
+  searchAbort = null;
+  searchHits = null;
+  const q = (searchInput.value || "").trim();
+  if (!q) {
+    renderList();
+    return;
+  }
+  // local substring match renders immediately, full-text hits follow
+  renderList();
+  searchTimer = setTimeout(async () => {
+    const controller = new AbortController();
+    searchAbort = controller;
+    try {
+      const hits = await fetchSearchHits(q, controller.signal);
+      if (controller.signal.aborted || q !== (searchInput.value || "").trim()) return;
+      searchHits = hits;
+    } catch (e) {
+      if (e.name === "AbortError") return;
+      console.warn(e);
+      searchHits = null;
+    }
+    renderList();
+  }, 250);
+}
+
 async function fetchComplaints() {
   const resp = await fetch("/api/complaints", {
     headers: getAuthHeaders(),
@@ -284,7 +329,7 @@ function applyFilters() {
   let rows = allComplaints.filter((c) => {
     const text =
       `${c.id} ${c.category} ${c.thana} ${c.route} ${c.busName} ${c.busNumber} ${c.status} ${c.priority}`.toLowerCase();
-    const qOk = !q || text.includes(q);
+    const qOk = !q || text.includes(q) || (searchHits?.has(Number(c.id)) ?? false);
     const sOk = st === "all" || normalizeStatus(c.status) === st;
     const tOk = th === "all" || String(c.thana || "-") === th;
     const pOk = pr === "all" || String(c.priority || "low") === pr;
@@ -800,7 +845,7 @@ async function reload() {
 }
 
 // Events
-searchInput?.addEventListener("input", renderList);
+searchInput?.addEventListener("input", onSearchInput);
 statusFilter?.addEventListener("change", renderList);
 thanaFilter?.addEventListener("change", renderList);
 priorityFilter?.addEventListener("change", renderList);
@@ -810,6 +855,9 @@ refreshBtn?.addEventListener("click", () => reload().catch(console.error));
 
 clearFilters?.addEventListener("click", () => {
   searchInput.value = "";
+  clearTimeout(searchTimer);
+  searchAbort?.abort();
+  searchHits = null;
   statusFilter.value = "all";
   thanaFilter.value = "all";
   priorityFilter.value = "all";
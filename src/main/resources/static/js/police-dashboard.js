@@ -7,6 +7,8 @@
 // Dynamic stats and lists
 let policeStats = { new_cases: 0, in_progress: 0, resolved: 0, fake_cases: 0 };
 let policeComplaints = [];
+// complaint id -> { rank, score, ... } from /api/triage
+let triageRanks = {};
 let emergencyAlerts = [];
 
 // Heatmap points (aggregated from complaints)
@@ -18,28 +20,51 @@ let heatMapLeaflet = null;
 // =========================================
 // 2. FETCH DATA
 // =========================================
+
+// Summary lists are requested column by column: each field name is sent
+// once instead of once per row (see ColumnarRows on the server). Plain JSON
+// is still accepted, in case a proxy or older server answers.
+const COLUMNAR_JSON = "application/vnd.jatri.columnar+json";
+
+// { count, columns: { id: [...], status: [...] } } -> [{ id, status }, ...]
+function decodeColumnar(body) {
+  const names = Object.keys(body.columns);
+  const values = names.map((n) => body.columns[n]);
+  const rows = new Array(body.count);
+  for (let i = 0; i < body.count; i++) {
+    const row = {};
+    for (let j = 0; j < names.length; j++) row[names[j]] = values[j][i];
+    rows[i] = row;
+  }
+  return rows;
+}
+
+async function fetchSummary(url, token) {
+  const resp = await fetch(url, {
+    headers: {
+      Accept: `${COLUMNAR_JSON}, application/json;q=0.9`,
+      ...(token ? { Authorization: `Bearer ${token}` } : {}),
+    },
+  });
+  const data = await resp.json();
+  const columnar = (resp.headers.get("Content-Type") || "").startsWith(COLUMNAR_JSON);
+  return { ok: resp.ok, data: resp.ok && columnar ? decodeColumnar(data) : data };
+}
+
 async function fetchPoliceData() {
   try {
     const token = localStorage.getItem("token");
 
     // ---- Complaints ----
-    const cResp = await fetch("/api/complaints/summary", {
-      headers: { ...(token ? { Authorization: `Bearer ${token}` } : {}) },
-    });
-
-    const cData = await cResp.json();
+    const { ok: cOk, data: cData } = await fetchSummary("/api/complaints/summary", token);
 
-    if (cResp.ok) {
+    if (cOk) {
       policeComplaints = cData.map((c) => {
         const status = (c.status || "").toLowerCase();
         const type = c.category || "Other";
 
-        // Priority (demo logic)
-        let priority = "medium";
-        const catLower = (type || "").toLowerCase();
-        if (status === "in-progress" || catLower.includes("harass")) priority = "high";
-        else if (status === "pending" || status === "new") priority = "medium";
-        else if (status === "resolved") priority = "low";
+        // Priority as set by the AI analysis (lowered when a case is resolved)
+        const priority = (c.priority || "medium").toLowerCase();
 
         return {
           id: c.id,
@@ -50,6 +75,7 @@ async function fetchPoliceData() {
           thana: c.thana || "",
           route: c.route || "",
           created_at: c.created_at || c.createdAt || "",
+          report_count: c.report_count ?? 1,
 
           // ✅ IMPORTANT: keep geo fields
           latitude: c.latitude ?? null,
@@ -78,14 +104,25 @@ async function fetchPoliceData() {
       incidentPoints = [];
     }
 
-    // ---- Emergencies ----
-    const eResp = await fetch("/api/emergencies/summary", {
-      headers: { ...(token ? { Authorization: `Bearer ${token}` } : {}) },
-    });
+    // ---- Triage order (open cases ranked by the server, see TriageQueue) ----
+    try {
+      const tResp = await fetch("/api/triage?limit=500", {
+        headers: token ? { Authorization: `Bearer ${token}` } : {},
+      });
+      triageRanks = {};
+      if (tResp.ok) {
+        const tData = await tResp.json();
+        (tData.items || []).forEach((t) => (triageRanks[t.id] = t));
+      }
+    } catch (err) {
+      console.error("Failed to load triage queue", err);
+      triageRanks = {};
+    }
 
-    const eData = await eResp.json();
+    // ---- Emergencies ----
+    const { ok: eOk, data: eData } = await fetchSummary("/api/emergencies/summary", token);
 
-    if (eResp.ok) {
+    if (eOk) {
       emergencyAlerts = eData.map((e) => {
         const time = e.created_at || e.createdAt || new Date().toISOString();
 
@@ -298,7 +335,13 @@ function renderComplaintsQueue(filter) {
   if (!list) return;
   list.innerHTML = "";
 
-  const filtered = policeComplaints.filter((c) => (filter === "all" ? true : c.status === filter));
+  // Ranked open cases first, in triage order; everything else keeps its order after them
+  const rankOf = (c) => (triageRanks[c.id] ? triageRanks[c.id].rank : Infinity);
+  const filtered = policeComplaints
+    .filter((c) => (filter === "all" ? true : c.status === filter))
+    .map((c, i) => ({ c, i }))
+    .sort((a, b) => rankOf(a.c) - rankOf(b.c) || a.i - b.i)
+    .map((x) => x.c);
 
   if (filtered.length === 0) {
     list.innerHTML = `<div style="padding:20px; text-align:center; color:#64748B;">No cases found.</div>`;
@@ -353,6 +396,8 @@ function renderComplaintsQueue(filter) {
       <div style="margin-bottom:8px;">
         <span class="police-tag">📍 ${c.thana}</span>
         <span class="police-tag">🚌 ${c.route}</span>
+        ${triageRanks[c.id] ? `<span class="police-tag">⚡ #${triageRanks[c.id].rank} · ${c.priority}</span>` : ""}
+        ${c.report_count > 1 ? `<span class="police-tag">👥 ${c.report_count} reports</span>` : ""}
       </div>
       <p style="font-size:13px; color:#334155; line-height:1.4; margin-bottom:12px;">
         ${c.description}
@@ -107,6 +107,7 @@ function toCamel(row) {
     imageUrl: row.image_url ?? "",
     reporterType: row.reporter_type ?? "",
     description: row.description ?? "",
+    reportCount: row.report_count ?? 1,
     createdAt: row.created_at ?? row.createdAt ?? null,
 
     // geo (optional, used for map)
@@ -434,6 +435,7 @@ function openModal(id) {
     selectedComplaint.busNumber || "-"
   )})</div>
       <div><b>Reporter Type:</b> ${escapeHtml(selectedComplaint.reporterType || "-")}</div>
+      <div><b>Reports:</b> ${escapeHtml(String(selectedComplaint.reportCount))}</div>
       <div style="grid-column:1/-1"><b>Description:</b><br/>${escapeHtml(
     selectedComplaint.description || "-"
   )}</div>
@@ -0,0 +1,72 @@
+package com.jatriovijog.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlFilterTest {
+
+    @Test
+    void requestsArrivingTogetherNeverOvershootTheLimit() throws Exception {
+        int limit = 10;
+        int requests = 40;
+        AdmissionControlFilter filter = new AdmissionControlFilter(new SimpleMeterRegistry(), true,
+                limit, limit, limit, 1.5, 0.6);
+
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch decided = new CountDownLatch(requests);
+        CountDownLatch finish = new CountDownLatch(1);
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                statuses.add(pool.submit(() -> {
+                    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/complaints");
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+                    go.await();
+                    filter.doFilter(request, response, (req, res) -> {
+                        // Admitted requests hold their slot until every request is decided
+                        admitted.incrementAndGet();
+                        decided.countDown();
+                        try {
+                            finish.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                    if (response.getStatus() == 503) {
+                        decided.countDown();
+                    }
+                    return response.getStatus();
+                }));
+            }
+            go.countDown();
+            assertTrue(decided.await(10, TimeUnit.SECONDS));
+            assertEquals(limit, admitted.get());
+            finish.countDown();
+
+            int shed = 0;
+            for (Future<Integer> status : statuses) {
+                shed += status.get() == 503 ? 1 : 0;
+            }
+            assertEquals(requests - limit, shed);
+        } finally {
+            finish.countDown();
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.jatriovijog.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockingCallsTest {
+
+    @Test
+    void callsRunOnBoundedElasticOnceSubscribed() {
+        BlockingCalls calls = new BlockingCalls(new MockEnvironment());
+        AtomicInteger runs = new AtomicInteger();
+
+        Mono<String> call = calls.call(() -> {
+            runs.incrementAndGet();
+            return Thread.currentThread().getName();
+        });
+        assertEquals(0, runs.get());
+
+        String thread = call.block();
+        assertFalse(calls.isVirtual());
+        assertTrue(thread.startsWith("boundedElastic-"), thread);
+        assertNotEquals(Thread.currentThread().getName(), thread);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void virtualThreadsAreUsedOnlyWhereTheJvmHasThem() {
+        BlockingCalls calls = new BlockingCalls(
+                new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true"));
+        try {
+            // Spring Boot only honours the switch on Java 21 and later
+            boolean supported = Runtime.version().feature() >= 21;
+            assertEquals(supported, calls.isVirtual());
+            String thread = calls.call(() -> Thread.currentThread().getName()).block();
+            assertTrue(thread.startsWith(supported ? "blocking-" : "boundedElastic-"), thread);
+        } finally {
+            calls.destroy();
+        }
+    }
+
+    @Test
+    void workerPoolsGetNamedDaemonThreads() {
+        BlockingCalls calls = new BlockingCalls(new MockEnvironment());
+
+        Thread first = calls.threadFactory("mail").newThread(() -> {
+        });
+        Thread second = calls.threadFactory("mail").newThread(() -> {
+        });
+
+        assertEquals("mail-1", first.getName());
+        assertTrue(first.isDaemon());
+        // Each pool counts its own threads
+        assertEquals("mail-1", second.getName());
+    }
+
+    @Test
+    void closingThePlatformModeLeavesTheSharedSchedulerRunning() {
+        BlockingCalls calls = new BlockingCalls(new MockEnvironment());
+
+        calls.destroy();
+
+        assertFalse(calls.scheduler().isDisposed());
+        assertEquals("ok", calls.call(() -> "ok").block());
+    }
+}
@@ -0,0 +1,36 @@
+package com.jatriovijog.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ComplaintControllerTest {
+
+    @Test
+    void aComplaintWithoutCreatedAtLeavesItToTheDatabase() {
+        Map<String, Object> payload = new HashMap<>(Map.of("thana", "Mirpur", "busName", "Bikolpo"));
+        payload.put("createdAt", null);
+        Map<String, Object> fixed = new HashMap<>();
+
+        ComplaintController.copyStandardFields(payload, fixed);
+
+        assertFalse(fixed.containsKey("created_at"));
+        assertEquals("Bikolpo", fixed.get("bus_name"));
+    }
+
+    @Test
+    void theClientsCreatedAtIsKept() {
+        Map<String, Object> fixed = new HashMap<>();
+
+        ComplaintController.copyStandardFields(Map.of("createdAt", "2026-01-01T10:00:00Z", "role", "police"), fixed);
+
+        assertEquals("2026-01-01T10:00:00Z", fixed.get("created_at"));
+        // Columns the client may not set are not copied
+        assertNull(fixed.get("role"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColumnarRowsTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().modules(new BlackbirdModule()).build();
+
+    @Test
+    void eachFieldBecomesOneColumnInRowOrder() throws Exception {
+        List<ComplaintSummary> rows = List.of(
+                complaint(1L, "new", "মিরপুর", 2),
+                complaint(2L, "resolved", "মিরপুর", null));
+
+        String json = objectMapper.writeValueAsString(new ColumnarRows<>(ComplaintSummary.class, rows));
+        Map<String, Object> body = objectMapper.readValue(json, new TypeReference<>() {
+        });
+
+        assertEquals(2, body.get("count"));
+        @SuppressWarnings("unchecked")
+        Map<String, List<Object>> columns = (Map<String, List<Object>>) body.get("columns");
+        assertEquals(List.of(1, 2), columns.get("id"));
+        assertEquals(List.of("new", "resolved"), columns.get("status"));
+        assertEquals(List.of("মিরপুর", "মিরপুর"), columns.get("thana"));
+        // Nulls keep their slot so the columns stay aligned
+        assertEquals(Arrays.asList(2, null), columns.get("report_count"));
+    }
+
+    @Test
+    void decodingTheColumnsGivesBackTheRowJson() throws Exception {
+        List<EmergencySummary> rows = List.of(
+                new EmergencySummary(7L, 23.81, 90.41, "2026-01-01T10:00:00Z", 3L, 12.5, null, "help"),
+                new EmergencySummary(8L, 23.75, 90.39, "2026-01-01T10:05:00Z", null, null, "x.jpg", null));
+
+        String columnar = objectMapper.writeValueAsString(new ColumnarRows<>(EmergencySummary.class, rows));
+        String plain = objectMapper.writeValueAsString(rows);
+
+        // What decodeColumnar in police-dashboard.js does
+        Map<String, Object> body = objectMapper.readValue(columnar, new TypeReference<>() {
+        });
+        @SuppressWarnings("unchecked")
+        Map<String, List<Object>> columns = (Map<String, List<Object>>) body.get("columns");
+        List<Map<String, Object>> decoded = new ArrayList<>();
+        for (int i = 0; i < (Integer) body.get("count"); i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Object>> column : columns.entrySet()) {
+                row.put(column.getKey(), column.getValue().get(i));
+            }
+            decoded.add(row);
+        }
+
+        assertEquals(plain, objectMapper.writeValueAsString(decoded));
+    }
+
+    @Test
+    void anEmptyListStillNamesItsColumns() throws Exception {
+        String json = objectMapper.writeValueAsString(new ColumnarRows<>(EmergencySummary.class, List.of()));
+
+        assertEquals("{\"count\":0,\"columns\":{\"id\":[],\"latitude\":[],\"longitude\":[],\"created_at\":[],"
+                + "\"user_id\":[],\"accuracy\":[],\"image_url\":[],\"description\":[]}}", json);
+    }
+
+    @Test
+    void rowsWithoutBeanPropertiesAreRefused() {
+        ColumnarRows<String> strings = new ColumnarRows<>(String.class, List.of("a"));
+
+        assertThrows(JsonMappingException.class, () -> objectMapper.writeValueAsString(strings));
+    }
+
+    private static ComplaintSummary complaint(Long id, String status, String thana, Integer reportCount) {
+        return new ComplaintSummary(id, status, "high", "harassment", "desc", thana, "Mirpur-Motijheel",
+                23.8, 90.4, "2026-01-01T10:00:00Z", "Bikolpo", "DM-11-1234", "passenger", 10.0, reportCount);
+    }
+}
@@ -0,0 +1,99 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * The records decoded from PostgREST rows: the JSON the frontend gets back
+ * has the same snake_case keys and values as the row did.
+ */
+class ModelJsonTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().modules(new BlackbirdModule()).build();
+
+    @Test
+    void aComplaintRowRoundTripsWithItsColumnNames() throws Exception {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 12);
+        row.put("category", "Harassment (verbal/physical)");
+        row.put("status", "new");
+        row.put("priority", "High");
+        row.put("thana", "Mirpur");
+        row.put("route", "Mirpur-Motijheel");
+        row.put("bus_name", "Bikolpo");
+        row.put("bus_number", "DM-11-1234");
+        row.put("image_url", null);
+        row.put("reporter_type", "passenger");
+        row.put("description", "কন্ডাক্টর ধাক্কা দিয়েছে");
+        row.put("translated_text", "The conductor pushed me");
+        row.put("verification_note", null);
+        row.put("latitude", 23.81);
+        row.put("longitude", 90.41);
+        row.put("accuracy", 12.5);
+        row.put("reporter_name", "Rahim");
+        row.put("reporter_email", "rahim@example.com");
+        row.put("reporter_phone", "+8801700000000");
+        row.put("company_name", null);
+        row.put("landmark", "Shewrapara");
+        row.put("seat_info", "Ladies seat");
+        row.put("created_at", "2026-01-01T10:00:00+00:00");
+        row.put("user_id", 7);
+        row.put("report_count", 3);
+
+        // Columns added to the table later are ignored
+        Map<String, Object> stored = new HashMap<>(row);
+        stored.put("search_vector", "'conductor':1");
+        Complaint complaint = objectMapper.convertValue(stored, Complaint.class);
+
+        assertEquals("Bikolpo", complaint.busName());
+        assertEquals(3, complaint.reportCount());
+        assertEquals(row, json(complaint));
+    }
+
+    @Test
+    void summaryColumnsMatchTheirRecords() throws Exception {
+        assertEquals(Arrays.asList(ComplaintSummary.COLUMNS.split(",")),
+                List.copyOf(json(new ComplaintSummary(1L, null, null, null, null, null, null, null, null, null,
+                        null, null, null, null, null)).keySet()));
+        assertEquals(Arrays.asList(EmergencySummary.COLUMNS.split(",")),
+                List.copyOf(json(new EmergencySummary(1L, null, null, null, null, null, null, null)).keySet()));
+    }
+
+    @Test
+    void commentsAndReactionsKeepTheirColumnNames() throws Exception {
+        Map<String, Object> comment = Map.of("id", 1, "complaint_id", 12, "user_id", 7, "author_name", "Rahim",
+                "body", "Same bus again today", "created_at", "2026-01-01T10:00:00+00:00");
+        Map<String, Object> reaction = Map.of("id", 2, "complaint_id", 12, "user_id", 7, "client_id", "c-1",
+                "reaction_type", "support", "created_at", "2026-01-01T10:00:00+00:00");
+
+        assertEquals(comment, json(objectMapper.convertValue(comment, ComplaintComment.class)));
+        assertEquals(reaction, json(objectMapper.convertValue(reaction, ComplaintReaction.class)));
+    }
+
+    @Test
+    void aUsersPasswordHashIsReadButNeverWritten() throws Exception {
+        User user = objectMapper.convertValue(Map.of("id", 7, "name", "Rahim", "email", "rahim@example.com",
+                "password", "$2a$10$hash", "role", "police"), User.class);
+
+        assertEquals("$2a$10$hash", user.password());
+        assertFalse(json(user).containsKey("password"));
+    }
+
+    private Map<String, Object> json(Object value) throws Exception {
+        return objectMapper.readValue(objectMapper.writeValueAsString(value),
+                new TypeReference<LinkedHashMap<String, Object>>() {
+                });
+    }
+}
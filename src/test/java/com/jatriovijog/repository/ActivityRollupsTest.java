@@ -0,0 +1,98 @@
+package com.jatriovijog.repository;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The complaints_rollup trigger (V6, reworked in V8): counts follow inserts,
+ * status changes and deletes, and opposite status changes running at the
+ * same time neither deadlock nor lose counts.
+ */
+class ActivityRollupsTest {
+
+    private static final String CREATED_AT = "2024-05-01T10:15:00+00:00";
+
+    private TestDatabase db;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = TestDatabase.get();
+        Assumptions.assumeTrue(db != null,
+                "needs Docker, or -D" + TestDatabase.JDBC_URL_PROPERTY + " for the JDBC backend");
+        db.reset();
+    }
+
+    @Test
+    void countsFollowInsertsStatusChangesAndDeletes() {
+        long first = insert("new");
+        insert("new");
+        db.jdbc.update("complaints", Map.of("status", "Working"), TableQuery.where("id", first)).block();
+
+        assertEquals(Map.of("total/all", 2L, "status/new", 1L, "status/working", 1L,
+                "category/Harassment", 2L, "thana/Mirpur", 2L, "priority/low", 2L), counts("hour"));
+        assertEquals(counts("hour"), counts("day"));
+
+        db.jdbc.delete("complaints", TableQuery.where("id", first)).block();
+        assertEquals(Map.of("total/all", 1L, "status/new", 1L, "status/working", 0L,
+                "category/Harassment", 1L, "thana/Mirpur", 1L, "priority/low", 1L), counts("hour"));
+    }
+
+    @Test
+    void oppositeStatusChangesRunSideBySide() throws Exception {
+        long a = insert("new");
+        long b = insert("working");
+
+        // Each flips its complaint back and forth, out of step with the other
+        CompletableFuture<Void> one = CompletableFuture.runAsync(() -> flip(a, "new", "working", 200));
+        CompletableFuture<Void> two = CompletableFuture.runAsync(() -> flip(b, "working", "new", 200));
+        one.get();
+        two.get();
+
+        assertEquals(1L, counts("hour").get("status/new"));
+        assertEquals(1L, counts("hour").get("status/working"));
+        assertEquals(2L, counts("day").get("total/all"));
+    }
+
+    private long insert(String status) {
+        Map<String, Object> row = Map.of("category", "Harassment", "thana", "Mirpur", "route", "Route 1",
+                "status", status, "priority", "Low", "created_at", CREATED_AT);
+        return ((Number) db.jdbc.insert("complaints", row).block().get(0).get("id")).longValue();
+    }
+
+    private void flip(long id, String from, String to, int times) {
+        try (Connection connection = db.dataSource.getConnection();
+                PreparedStatement update = connection.prepareStatement(
+                        "UPDATE complaints SET status = ? WHERE id = ?")) {
+            update.setLong(2, id);
+            for (int i = 0; i < times; i++) {
+                update.setString(1, i % 2 == 0 ? to : from);
+                update.executeUpdate();
+            }
+            update.setString(1, from);
+            update.executeUpdate();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** "dimension/value" -> count for the complaints bucket of {@link #CREATED_AT}. */
+    private Map<String, Long> counts(String granularity) {
+        List<Map<String, Object>> rows = db.jdbc.select("activity_rollups", "dimension,value,count",
+                TableQuery.where("source", "complaints").eq("granularity", granularity)).block();
+        Map<String, Long> out = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            out.put(row.get("dimension") + "/" + row.get("value"), ((Number) row.get("count")).longValue());
+        }
+        return out;
+    }
+}
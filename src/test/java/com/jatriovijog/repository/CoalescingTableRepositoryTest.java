@@ -0,0 +1,174 @@
+package com.jatriovijog.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoalescingTableRepositoryTest {
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final PendingSelects upstream = new PendingSelects();
+    private final CoalescingTableRepository coalescing = new CoalescingTableRepository(upstream, meters);
+
+    @Test
+    void concurrentIdenticalReadsShareOneUpstreamCall() throws Exception {
+        int readers = 50;
+        List<Mono<List<String>>> reads = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Mono<List<String>>>> futures = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    Mono<List<String>> read = coalescing.select("complaints", "*", TableQuery.where("id", 1),
+                            String.class).cache();
+                    read.subscribe();
+                    return read;
+                }));
+            }
+            start.countDown();
+            for (Future<Mono<List<String>>> future : futures) {
+                reads.add(future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1, upstream.calls.size());
+        upstream.calls.get(0).tryEmitValue(List.of("row"));
+        for (Mono<List<String>> read : reads) {
+            assertEquals(List.of("row"), read.block());
+        }
+        assertEquals(0.0, inFlight());
+        assertEquals(readers - 1, meters.counter("reads.coalescing", "table", "complaints", "role", "joined").count());
+    }
+
+    @Test
+    void aReadAfterACompletedWriteDoesNotJoinAnEarlierFlight() {
+        Mono<List<String>> before = coalescing.select("complaints", "*", TableQuery.where("id", 1), String.class)
+                .cache();
+        before.subscribe();
+
+        coalescing.update("complaints", Map.of("status", "working"), TableQuery.where("id", 1)).block();
+
+        Mono<List<String>> after = coalescing.select("complaints", "*", TableQuery.where("id", 1), String.class)
+                .cache();
+        after.subscribe();
+
+        assertEquals(2, upstream.calls.size());
+        upstream.calls.get(0).tryEmitValue(List.of("new"));
+        upstream.calls.get(1).tryEmitValue(List.of("working"));
+        assertEquals(List.of("new"), before.block());
+        assertEquals(List.of("working"), after.block());
+    }
+
+    @Test
+    void changingTheQueryAfterTheCallDoesNotStrandItsFlight() {
+        TableQuery query = TableQuery.where("id", 1);
+        Mono<List<String>> first = coalescing.select("complaints", "*", query, String.class).cache();
+        first.subscribe();
+
+        // The caller reuses its builder for another query
+        query.eq("status", "new");
+
+        Mono<List<String>> second = coalescing.select("complaints", "*", TableQuery.where("id", 1), String.class)
+                .cache();
+        second.subscribe();
+        assertEquals(1, upstream.calls.size());
+        assertEquals(List.of(new TableQuery.Filter("id", TableQuery.Op.EQ, 1)),
+                upstream.queries.get(0).filters());
+
+        upstream.calls.get(0).tryEmitValue(List.of("row"));
+        assertEquals(List.of("row"), second.block());
+        assertEquals(0.0, inFlight());
+    }
+
+    @Test
+    void theCallIsCancelledOnceEveryCallerHasGoneAway() {
+        Disposable one = coalescing.select("complaints", "*", TableQuery.where("id", 1), String.class).subscribe();
+        Disposable two = coalescing.select("complaints", "*", TableQuery.where("id", 1), String.class).subscribe();
+
+        one.dispose();
+        assertEquals(1.0, inFlight());
+        two.dispose();
+
+        assertTrue(upstream.cancelled.get());
+        assertEquals(0.0, inFlight());
+        coalescing.select("complaints", "*", TableQuery.where("id", 1), String.class).subscribe();
+        assertEquals(2, upstream.calls.size());
+    }
+
+    private double inFlight() {
+        return meters.get("reads.coalescing.in_flight").gauge().value();
+    }
+
+    /** Typed selects stay pending until the test answers them; writes complete at once. */
+    private static class PendingSelects implements TableRepository {
+
+        final List<Sinks.One<List<?>>> calls = new ArrayList<>();
+        final List<TableQuery> queries = new ArrayList<>();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+
+        @Override
+        public Mono<List<Map<String, Object>>> select(String table, String columns, TableQuery query) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public synchronized <T> Mono<List<T>> select(String table, String columns, TableQuery query, Class<T> type) {
+            Sinks.One<List<?>> call = Sinks.one();
+            calls.add(call);
+            queries.add(query);
+            return call.asMono().map(rows -> (List<T>) rows).doOnCancel(() -> cancelled.set(true));
+        }
+
+        @Override
+        public Mono<List<Map<String, Object>>> insert(String table, Map<String, Object> row) {
+            return Mono.just(List.of(row));
+        }
+
+        @Override
+        public Mono<List<Map<String, Object>>> upsert(String table, Map<String, Object> row,
+                String conflictColumns) {
+            return Mono.just(List.of(row));
+        }
+
+        @Override
+        public Mono<Void> upsertAll(String table, List<Map<String, Object>> rows, String conflictColumns) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<List<Map<String, Object>>> update(String table, Map<String, Object> changes,
+                TableQuery query) {
+            return Mono.just(List.of(changes));
+        }
+
+        @Override
+        public Mono<Void> delete(String table, TableQuery query) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Long> count(String table, TableQuery query) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
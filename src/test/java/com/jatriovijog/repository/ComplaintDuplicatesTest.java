@@ -0,0 +1,94 @@
+package com.jatriovijog.repository;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The complaint_duplicates table and its report_count trigger (V5): every
+ * linked report counts once, however many arrive at the same time, and the
+ * parent's own row is never rewritten.
+ */
+class ComplaintDuplicatesTest {
+
+    private TestDatabase db;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = TestDatabase.get();
+        Assumptions.assumeTrue(db != null,
+                "needs Docker, or -D" + TestDatabase.JDBC_URL_PROPERTY + " for the JDBC backend");
+        db.reset();
+    }
+
+    @Test
+    void eachLinkedReportBumpsTheParentsCount() {
+        long parent = insertComplaint("Conductor pushed me");
+        assertEquals(1, reportCount(parent));
+
+        link(parent, "Same conductor again");
+        link(parent, "Saw it too");
+
+        assertEquals(3, reportCount(parent));
+        Map<String, Object> row = db.jdbc.select("complaints", "description", TableQuery.where("id", parent))
+                .block().get(0);
+        assertEquals("Conductor pushed me", row.get("description"));
+        assertEquals(List.of("Saw it too", "Same conductor again"), db.jdbc.select("complaint_duplicates",
+                        "description", TableQuery.where("parent_id", parent).orderBy("id", false))
+                .block().stream().map(r -> r.get("description")).toList());
+    }
+
+    @Test
+    void concurrentLinksAreAllCounted() throws Exception {
+        long parent = insertComplaint("Bus racing on Mirpur Road");
+
+        List<CompletableFuture<Void>> linkers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            linkers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 25; i++) {
+                    link(parent, "Racing again");
+                }
+            }));
+        }
+        for (CompletableFuture<Void> linker : linkers) {
+            linker.get();
+        }
+
+        assertEquals(201, reportCount(parent));
+    }
+
+    @Test
+    void deletingTheParentDeletesItsLinks() {
+        long parent = insertComplaint("Overcharged");
+        link(parent, "Overcharged too");
+
+        db.jdbc.delete("complaints", TableQuery.where("id", parent)).block();
+
+        assertTrue(db.jdbc.select("complaint_duplicates", "id", TableQuery.where("parent_id", parent))
+                .block().isEmpty());
+    }
+
+    private long insertComplaint(String description) {
+        Map<String, Object> row = Map.of("description", description, "category", "Harassment", "thana", "Mirpur",
+                "status", "new", "priority", "Low");
+        return ((Number) db.jdbc.insert("complaints", row).block().get(0).get("id")).longValue();
+    }
+
+    private void link(long parent, String description) {
+        db.jdbc.insert("complaint_duplicates", Map.of("parent_id", parent, "description", description,
+                "reporter_type", "passenger")).block();
+    }
+
+    private int reportCount(long id) {
+        return ((Number) db.jdbc.select("complaints", "report_count", TableQuery.where("id", id))
+                .block().get(0).get("report_count")).intValue();
+    }
+}
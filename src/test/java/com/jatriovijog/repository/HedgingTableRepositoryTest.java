@@ -0,0 +1,97 @@
+package com.jatriovijog.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HedgingTableRepositoryTest {
+
+    private static final Duration FAST = Duration.ofMillis(1);
+    private static final Duration SLOW = Duration.ofMillis(200);
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private HedgingTableRepository hedging;
+
+    @BeforeEach
+    void setUp() {
+        // Point lookups answer at once, everything else is slow
+        TableRepository slowScans = new SelectOnly() {
+            @Override
+            public Mono<List<Map<String, Object>>> select(String table, String columns, TableQuery query) {
+                calls.incrementAndGet();
+                return Mono.delay(query.isById() ? FAST : SLOW).thenReturn(List.of());
+            }
+        };
+        hedging = new HedgingTableRepository(slowScans, new SimpleMeterRegistry(), 0.95, FAST, 1.0);
+
+        // Teach the tracker that lookups on the table are quick
+        for (int i = 0; i < 60; i++) {
+            hedging.select("complaints", "*", TableQuery.where("id", i)).block();
+        }
+        calls.set(0);
+    }
+
+    @Test
+    void unboundedScansAreNotHedged() {
+        hedging.select("complaints", "*", TableQuery.all()).block();
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void pagesAreNotMeasuredAgainstLookups() {
+        // Slower than the lookups' p95, but pages have no history of their own yet
+        hedging.select("complaints", "*", TableQuery.all().gt("id", 0L).orderBy("id", true).limit(1000)).block();
+
+        assertEquals(1, calls.get());
+    }
+
+    /** Only selects are used here. */
+    private abstract static class SelectOnly implements TableRepository {
+
+        @Override
+        public <T> Mono<List<T>> select(String table, String columns, TableQuery query, Class<T> type) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Mono<List<Map<String, Object>>> insert(String table, Map<String, Object> row) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Mono<List<Map<String, Object>>> upsert(String table, Map<String, Object> row,
+                String conflictColumns) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Mono<Void> upsertAll(String table, List<Map<String, Object>> rows, String conflictColumns) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Mono<List<Map<String, Object>>> update(String table, Map<String, Object> changes,
+                TableQuery query) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Mono<Void> delete(String table, TableQuery query) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Mono<Long> count(String table, TableQuery query) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.jatriovijog.repository;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The V7 triggers behind ChangeLog: any write to complaints, however it is
+ * made, bumps the table version and stamps the row's sync_changes entry.
+ */
+class SyncVersionsTest {
+
+    private TestDatabase db;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = TestDatabase.get();
+        Assumptions.assumeTrue(db != null,
+                "needs Docker, or -D" + TestDatabase.JDBC_URL_PROPERTY + " for the JDBC backend");
+        db.reset();
+    }
+
+    @Test
+    void everyWriteBumpsTheVersionAndRecordsTheRow() throws Exception {
+        long start = version();
+        Map<String, Object> complaint = Map.of("category", "Other", "thana", "Mirpur", "route", "Route 1");
+        long first = ((Number) db.jdbc.insert("complaints", complaint).block().get(0).get("id")).longValue();
+        long second = ((Number) db.jdbc.insert("complaints", complaint).block().get(0).get("id")).longValue();
+        assertEquals(start + 2, version());
+
+        // A write made outside the app counts the same
+        TestDatabase.execute(db.dataSource, "UPDATE complaints SET status = 'working' WHERE id = " + first);
+        db.jdbc.delete("complaints", TableQuery.where("id", second)).block();
+        assertEquals(start + 4, version());
+
+        List<Map<String, Object>> changes = db.jdbc.select("sync_changes", "row_id,version,deleted",
+                TableQuery.where("table_name", "complaints").gt("version", start + 2).orderBy("version", true))
+                .block();
+        assertEquals(List.of(
+                Map.of("row_id", (int) first, "version", (int) (start + 3), "deleted", false),
+                Map.of("row_id", (int) second, "version", (int) (start + 4), "deleted", true)), changes);
+    }
+
+    private long version() {
+        return ((Number) db.jdbc.select("sync_versions", "version", TableQuery.where("table_name", "complaints"))
+                .block().get(0).get("version")).longValue();
+    }
+}
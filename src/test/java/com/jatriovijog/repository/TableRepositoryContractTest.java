@@ -0,0 +1,258 @@
+package com.jatriovijog.repository;
+
+import com.jatriovijog.model.ComplaintSummary;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs both {@link TableRepository} backends through the same calls against
+ * one Postgres (see {@link TestDatabase}), and checks they hand back the
+ * same rows with the same Java types: callers must not be able to tell which
+ * backend is active.
+ */
+class TableRepositoryContractTest {
+
+    private TestDatabase db;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = TestDatabase.get();
+        Assumptions.assumeTrue(db != null,
+                "needs Docker, or -D" + TestDatabase.JDBC_URL_PROPERTY + " for the JDBC backend");
+        db.reset();
+    }
+
+    static Stream<Arguments> backends() {
+        TestDatabase db = TestDatabase.get();
+        if (db == null) {
+            return Stream.of(Arguments.of("none", null));
+        }
+        return db.postgrest == null
+                ? Stream.of(Arguments.of("jdbc", db.jdbc))
+                : Stream.of(Arguments.of("jdbc", db.jdbc), Arguments.of("postgrest", db.postgrest));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("backends")
+    void insertReturnsTheStoredRow(String name, TableRepository repo) {
+        assertEquals(1, single(repo.insert("complaints",
+                complaint("Mirpur", "Harassment", "2024-05-01T10:15:30.123456+00:00")).block()).get("id"));
+        Map<String, Object> stored = single(repo.insert("complaints",
+                complaint("Gulshan", "Other", "2024-05-02T08:00:00+00:00")).block());
+        assertEquals(2, stored.get("id"));
+        assertInstanceOf(Integer.class, stored.get("id"));
+        assertEquals("Gulshan", stored.get("thana"));
+        assertEquals("new", stored.get("status"));
+        assertEquals(1, stored.get("report_count"));
+        assertEquals(23.75, stored.get("latitude"));
+        assertTrue(stored.containsKey("image_url"));
+        assertNull(stored.get("image_url"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("backends")
+    void timestampsRenderLikePostgresJson(String name, TableRepository repo) {
+        assertEquals("2024-05-01T10:15:30.123456+00:00", createdAt(repo, "2024-05-01T10:15:30.123456+00:00"));
+        // Trailing zeros and zero fractions dropped, other offsets shifted to UTC
+        assertEquals("2024-05-01T10:15:30.5+00:00", createdAt(repo, "2024-05-01T16:15:30.500+06:00"));
+        assertEquals("2024-05-01T10:15:00+00:00", createdAt(repo, "2024-05-01T10:15:00Z"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("backends")
+    void filtersOrderAndLimit(String name, TableRepository repo) {
+        seed(repo);
+
+        assertEquals(List.of(2, 5), ids(repo.select("complaints", "id",
+                TableQuery.where("thana", "Gulshan").orderBy("id", true)).block()));
+        assertEquals(List.of(1, 3, 4), ids(repo.select("complaints", "id",
+                TableQuery.all().in("thana", List.of("Mirpur", "Motijheel")).orderBy("id", true)).block()));
+        assertEquals(List.of(3, 4), ids(repo.select("complaints", "id",
+                TableQuery.all().gt("id", 2).lte("id", 4).orderBy("id", true)).block()));
+        assertEquals(List.of(2, 3), ids(repo.select("complaints", "id",
+                TableQuery.all().gte("created_at", "2024-05-02T00:00:00+00:00")
+                        .lt("created_at", "2024-05-04T00:00:00+00:00").orderBy("id", true)).block()));
+        assertEquals(List.of(5, 4), ids(repo.select("complaints", "id",
+                TableQuery.all().orderBy("created_at", false).limit(2)).block()));
+        // A '+' in a value must reach the database as a '+'
+        assertEquals(List.of(1), ids(repo.select("complaints", "id",
+                TableQuery.where("created_at", "2024-05-01T06:00:00+00:00")).block()));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("backends")
+    void emptyInMatchesNothing(String name, TableRepository repo) {
+        seed(repo);
+        TableQuery none = TableQuery.all().in("id", List.of());
+
+        assertEquals(List.of(), repo.select("complaints", "*", none).block());
+        assertEquals(List.of(), repo.select("complaints", ComplaintSummary.COLUMNS, none, ComplaintSummary.class)
+                .block());
+        assertEquals(0L, repo.count("complaints", none).block());
+        assertEquals(List.of(), repo.update("complaints", Map.of("status", "fake"), none).block());
+        repo.delete("complaints", none).block();
+
+        assertEquals(5L, repo.count("complaints", TableQuery.all()).block());
+        assertEquals(0L, repo.count("complaints", TableQuery.where("status", "fake")).block());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("backends")
+    void upsertMergesIntoTheConflictingRow(String name, TableRepository repo) {
+        seed(repo);
+
+        repo.upsert("complaint_reactions", reaction(1, "client-a", "like"), "complaint_id,client_id").block();
+        Map<String, Object> merged = single(repo.upsert("complaint_reactions",
+                reaction(1, "client-a", "angry"), "complaint_id,client_id").block());
+
+        assertEquals("angry", merged.get("reaction_type"));
+        assertEquals(1L, repo.count("complaint_reactions", TableQuery.all()).block());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("backends")
+    void upsertAllWritesEveryRow(String name, TableRepository repo) {
+        seed(repo);
+
+        repo.upsertAll("complaint_reactions", List.of(reaction(1, "a", "like"), reaction(1, "b", "like"),
+                reaction(2, "a", "sad")), "complaint_id,client_id").block();
+        repo.upsertAll("complaint_reactions", List.of(reaction(1, "a", "angry"), reaction(3, "c", "like")),
+                "complaint_id,client_id").block();
+        repo.upsertAll("complaint_reactions", List.of(), "complaint_id,client_id").block();
+
+        assertEquals(4L, repo.count("complaint_reactions", TableQuery.all()).block());
+        List<Map<String, Object>> rows = repo.select("complaint_reactions", "complaint_id,client_id,reaction_type",
+                TableQuery.where("complaint_id", 1).orderBy("client_id", true)).block();
+        assertEquals(List.of(
+                Map.of("complaint_id", 1, "client_id", "a", "reaction_type", "angry"),
+                Map.of("complaint_id", 1, "client_id", "b", "reaction_type", "like")), rows);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("backends")
+    void updateDeleteAndCount(String name, TableRepository repo) {
+        seed(repo);
+
+        List<Map<String, Object>> updated = repo.update("complaints", Map.of("status", "resolved"),
+                TableQuery.where("thana", "Gulshan")).block();
+        assertEquals(2, updated.size());
+        updated.forEach(row -> assertEquals("resolved", row.get("status")));
+        assertEquals(2L, repo.count("complaints", TableQuery.where("status", "resolved")).block());
+
+        repo.delete("complaints", TableQuery.all().in("id", List.of(1, 2))).block();
+        assertEquals(3L, repo.count("complaints", TableQuery.all()).block());
+        assertEquals(1L, repo.count("complaints", TableQuery.where("status", "resolved")).block());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("backends")
+    void typedSelectBindsRecords(String name, TableRepository repo) {
+        seed(repo);
+
+        List<ComplaintSummary> rows = repo.select("complaints", ComplaintSummary.COLUMNS,
+                TableQuery.where("id", 3), ComplaintSummary.class).block();
+        assertEquals(1, rows.size());
+        ComplaintSummary summary = rows.get(0);
+        assertEquals(3L, summary.id());
+        assertEquals("Motijheel", summary.thana());
+        assertEquals("2024-05-03T06:00:00+00:00", summary.createdAt());
+        assertEquals(23.75, summary.latitude());
+        assertEquals(1, summary.reportCount());
+        assertNull(summary.busName());
+    }
+
+    @Test
+    void backendsReturnTheSameRowsAndTypes() {
+        Assumptions.assumeTrue(db.postgrest != null, "needs Docker for PostgREST");
+        seed(db.jdbc);
+
+        List<TableQuery> queries = List.of(
+                TableQuery.all().orderBy("id", true),
+                TableQuery.all().in("thana", List.of("Gulshan", "Uttara")).orderBy("created_at", false),
+                TableQuery.all().gte("created_at", "2024-05-02T00:00:00+00:00").limit(2).orderBy("id", true));
+        for (TableQuery query : queries) {
+            assertSameRowsAndTypes(db.jdbc.select("complaints", "*", query).block(),
+                    db.postgrest.select("complaints", "*", query).block());
+        }
+        assertEquals(db.jdbc.select("complaints", ComplaintSummary.COLUMNS, queries.get(0), ComplaintSummary.class)
+                        .block(),
+                db.postgrest.select("complaints", ComplaintSummary.COLUMNS, queries.get(0), ComplaintSummary.class)
+                        .block());
+    }
+
+    // ---------- helpers ----------
+
+    private static void assertSameRowsAndTypes(List<Map<String, Object>> expected, List<Map<String, Object>> actual) {
+        assertEquals(expected, actual);
+        for (int i = 0; i < expected.size(); i++) {
+            for (Map.Entry<String, Object> e : expected.get(i).entrySet()) {
+                Object other = actual.get(i).get(e.getKey());
+                if (e.getValue() != null) {
+                    assertEquals(e.getValue().getClass(), other.getClass(), "type of " + e.getKey());
+                }
+            }
+        }
+    }
+
+    /** Five complaints, ids 1-5, one a day from 1 May 2024 at 06:00 UTC. */
+    private static void seed(TableRepository repo) {
+        String[] thanas = { "Mirpur", "Gulshan", "Motijheel", "Mirpur", "Gulshan" };
+        for (int i = 0; i < thanas.length; i++) {
+            repo.insert("complaints", complaint(thanas[i], "Other",
+                    "2024-05-0" + (i + 1) + "T06:00:00+00:00")).block();
+        }
+    }
+
+    private static Map<String, Object> complaint(String thana, String category, String createdAt) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("category", category);
+        row.put("thana", thana);
+        row.put("route", "Mirpur 10 - Motijheel");
+        row.put("bus_number", "DHAKA-METRO-1001");
+        row.put("description", "ড্রাইভার খুব জোরে বাস চালাচ্ছিল");
+        // Non-integral: PostgREST writes whole doubles as JSON integers
+        row.put("latitude", 23.75);
+        row.put("longitude", 90.3625);
+        row.put("created_at", createdAt);
+        return row;
+    }
+
+    private static Map<String, Object> reaction(int complaintId, String clientId, String type) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("complaint_id", complaintId);
+        row.put("client_id", clientId);
+        row.put("reaction_type", type);
+        return row;
+    }
+
+    private static String createdAt(TableRepository repo, String createdAt) {
+        return (String) single(repo.insert("complaints", complaint("Mirpur", "Other", createdAt)).block())
+                .get("created_at");
+    }
+
+    private static Map<String, Object> single(List<Map<String, Object>> rows) {
+        assertEquals(1, rows.size());
+        return rows.get(0);
+    }
+
+    private static List<Object> ids(List<Map<String, Object>> rows) {
+        List<Object> ids = new ArrayList<>();
+        rows.forEach(row -> ids.add(row.get("id")));
+        return ids;
+    }
+}
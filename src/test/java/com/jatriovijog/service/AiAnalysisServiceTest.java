@@ -0,0 +1,204 @@
+package com.jatriovijog.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The Groq and Gemini clients against a local HTTP server standing in for
+ * the provider, with a small breaker window and a one-call bulkhead.
+ */
+class AiAnalysisServiceTest {
+
+    private static final String ANALYSIS = "{\"choices\":[{\"message\":{\"content\":"
+            + "\"{\\\"category\\\":\\\"Harassment (verbal/physical)\\\",\\\"priority\\\":\\\"High\\\","
+            + "\\\"is_fake\\\":false,\\\"translated_text\\\":\\\"The conductor pushed me\\\"}\"}}]}";
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final CountDownLatch arrived = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+    private HttpServer server;
+    // What the stand-in provider does with each request
+    private volatile Handler handler = exchange -> reply(exchange, 200, ANALYSIS);
+
+    private final CircuitBreakerRegistry breakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+            .slidingWindowSize(4)
+            .minimumNumberOfCalls(4)
+            .failureRateThreshold(50)
+            .waitDurationInOpenState(Duration.ofMinutes(1))
+            .build());
+    private final BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+            .maxConcurrentCalls(1)
+            .maxWaitDuration(Duration.ZERO)
+            .build());
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (server != null) {
+            server.stop(0);
+        }
+        handlers.shutdownNow();
+    }
+
+    @Test
+    void aGroqReplyIsParsedIntoTheAnalysis() throws Exception {
+        AiAnalysisService ai = groq(Duration.ofSeconds(5));
+
+        Map<String, String> analysis = ai.analyzeComplaint("কন্ডাক্টর ধাক্কা দিয়েছে");
+
+        assertEquals("Harassment (verbal/physical)", analysis.get("category"));
+        assertEquals("High", analysis.get("priority"));
+        assertEquals("The conductor pushed me", analysis.get("translated_text"));
+    }
+
+    @Test
+    void anOpenBreakerAnswersWithTheFallbackWithoutCallingGroq() throws Exception {
+        handler = exchange -> reply(exchange, 500, "{\"error\":\"overloaded\"}");
+        AiAnalysisService ai = groq(Duration.ofSeconds(5));
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("Other", ai.analyzeComplaint("bus").get("category"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breakers.circuitBreaker("groq").getState());
+
+        Map<String, String> analysis = ai.analyzeComplaint("bus");
+        assertEquals(Map.of("category", "Other", "priority", "Low", "is_fake", "false", "translated_text", "bus"),
+                analysis);
+        assertEquals(4, hits.get());
+    }
+
+    @Test
+    void aFullBulkheadShedsAtOnceWithoutCountingAgainstTheBreaker() throws Exception {
+        handler = exchange -> {
+            arrived.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            reply(exchange, 200, ANALYSIS);
+        };
+        AiAnalysisService ai = groq(Duration.ofSeconds(5));
+
+        CompletableFuture<Map<String, String>> first = CompletableFuture.supplyAsync(
+                () -> ai.analyzeComplaint("bus"), handlers);
+        assertTrue(arrived.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        assertEquals("Other", ai.analyzeComplaint("bus").get("category"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000);
+        assertEquals(1, hits.get());
+
+        release.countDown();
+        assertEquals("High", first.get(5, TimeUnit.SECONDS).get("priority"));
+        CircuitBreaker.Metrics metrics = breakers.circuitBreaker("groq").getMetrics();
+        assertEquals(1, metrics.getNumberOfSuccessfulCalls());
+        assertEquals(0, metrics.getNumberOfFailedCalls());
+    }
+
+    @Test
+    void aSlowReplyIsCutOffAtTheDeadline() throws Exception {
+        handler = exchange -> {
+            release.await(5, TimeUnit.SECONDS);
+            reply(exchange, 200, ANALYSIS);
+        };
+        AiAnalysisService ai = groq(Duration.ofMillis(300));
+
+        long start = System.nanoTime();
+        assertEquals("Other", ai.analyzeComplaint("bus").get("category"));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 3000);
+        assertEquals(1, breakers.circuitBreaker("groq").getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void geminiHasItsOwnBreaker() throws Exception {
+        // Gemini takes its key in the query string, Groq in a header
+        handler = exchange -> reply(exchange, 200, exchange.getRequestURI().getQuery() == null ? ANALYSIS
+                : "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"A crowded bus door\"}]}}]}");
+        ImageAnalysisService gemini = gemini();
+        AiAnalysisService groq = groq(Duration.ofSeconds(5));
+        breakers.circuitBreaker("gemini").transitionToOpenState();
+
+        assertEquals("⚠️ Image analysis is temporarily unavailable.", gemini.analyzeImage("data:image/jpeg,AAAA"));
+        assertEquals(0, hits.get());
+
+        // Groq is unaffected by Gemini being open
+        assertEquals("High", groq.analyzeComplaint("bus").get("priority"));
+        breakers.circuitBreaker("gemini").transitionToClosedState();
+        assertEquals("A crowded bus door", gemini.analyzeImage("data:image/jpeg,AAAA"));
+    }
+
+    // ---------- the stand-in provider ----------
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws Exception;
+    }
+
+    private String start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(handlers);
+        server.createContext("/", exchange -> {
+            hits.incrementAndGet();
+            try {
+                exchange.getRequestBody().readAllBytes();
+                handler.handle(exchange);
+            } catch (Exception e) {
+                exchange.close();
+            }
+        });
+        server.start();
+        return url();
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private AiAnalysisService groq(Duration timeout) throws IOException {
+        AiAnalysisService ai = new AiAnalysisService(new RestTemplateBuilder(), ObservationRegistry.NOOP,
+                new SimpleMeterRegistry(), breakers, bulkheads, Duration.ofSeconds(1), timeout);
+        ReflectionTestUtils.setField(ai, "apiKey", "test");
+        ReflectionTestUtils.setField(ai, "groqUrl", server == null ? start() : url());
+        return ai;
+    }
+
+    private ImageAnalysisService gemini() throws IOException {
+        ImageAnalysisService gemini = new ImageAnalysisService(new RestTemplateBuilder(), ObservationRegistry.NOOP,
+                new SimpleMeterRegistry(), breakers, bulkheads, Duration.ofSeconds(1), Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(gemini, "apiKey", "test");
+        ReflectionTestUtils.setField(gemini, "geminiUrl", server == null ? start() : url());
+        return gemini;
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+}
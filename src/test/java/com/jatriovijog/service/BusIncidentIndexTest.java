@@ -0,0 +1,82 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.event.ComplaintChangedEvent;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BusIncidentIndexTest {
+
+    private final Sinks.One<List<Map<String, Object>>> snapshot = Sinks.one();
+    private final BusIncidentIndex index = new BusIncidentIndex(
+            new StubTables((table, query) -> snapshot.asMono()).service(), 168);
+
+    @Test
+    void changesDuringTheRebuildSurviveTheSnapshot() {
+        index.rebuild();
+        assertFalse(index.isReady());
+
+        // Written while the full read is in flight, so missing from its result
+        index.onComplaintChanged(new ComplaintChangedEvent(ComplaintChangedEvent.Type.CREATED, 3,
+                row(3, "DHAKA-METRO-1001", "new")));
+        index.onComplaintChanged(new ComplaintChangedEvent(ComplaintChangedEvent.Type.UPDATED, 1,
+                row(1, "DHAKA-METRO-1001", "resolved")));
+        index.onComplaintChanged(new ComplaintChangedEvent(ComplaintChangedEvent.Type.DELETED, 2, Map.of()));
+
+        snapshot.tryEmitValue(List.of(row(1, "DHAKA-METRO-1001", "new"), row(2, "DHAKA-METRO-1001", "working")));
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L, 3L), index.complaintIds("DHAKA-METRO-1001").stream().sorted().toList());
+        assertEquals(List.of(3L), index.openComplaintIds(null, "DHAKA-METRO-1001"));
+    }
+
+    @Test
+    void aFailedRebuildStopsBuffering() {
+        BusIncidentIndex failing = new BusIncidentIndex(
+                new StubTables((table, query) -> Mono.error(new RuntimeException("down"))).service(), 168);
+        failing.rebuild();
+        failing.onComplaintChanged(new ComplaintChangedEvent(ComplaintChangedEvent.Type.CREATED, 5,
+                row(5, "DHAKA-METRO-2002", "new")));
+
+        assertFalse(failing.isReady());
+        assertEquals(List.of(5L), failing.complaintIds("DHAKA-METRO-2002"));
+    }
+
+    @Test
+    void readsTheTableInKeysetPages() {
+        List<Map<String, Object>> complaints = new ArrayList<>();
+        for (long id = 1; id <= 2500; id++) {
+            complaints.add(row(id, id <= 1200 ? "DHAKA-METRO-1001" : "DHAKA-METRO-2002", "new"));
+        }
+        StubTables tables = new StubTables((table, query) -> {
+            long afterId = ((Number) query.filters().get(0).value()).longValue();
+            return Mono.just(complaints.stream()
+                    .filter(row -> ((Number) row.get("id")).longValue() > afterId)
+                    .limit(query.limit())
+                    .toList());
+        });
+        BusIncidentIndex paged = new BusIncidentIndex(tables.service(), 168);
+
+        paged.rebuild();
+
+        assertTrue(paged.isReady());
+        assertEquals(1200, paged.complaintIds("DHAKA-METRO-1001").size());
+        assertEquals(1300, paged.openComplaintIds(null, "DHAKA-METRO-2002").size());
+        // pages of 1000, 1000 and 500 rows
+        assertEquals(3, tables.selects.size());
+        assertTrue(tables.selects.stream().allMatch(select -> select.query().limit() != null));
+    }
+
+    private static Map<String, Object> row(long id, String busNumber, String status) {
+        return Map.of("id", id, "bus_number", busNumber, "bus_name", "Raida", "status", status,
+                "category", "Other", "priority", "High", "created_at", "2024-05-01T06:00:00+00:00");
+    }
+}
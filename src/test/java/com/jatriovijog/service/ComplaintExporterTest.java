@@ -0,0 +1,98 @@
+package com.jatriovijog.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ComplaintExporterTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void csvFieldsAreQuotedPerRfc4180() {
+        assertEquals("plain", ComplaintExporter.csvField("plain"));
+        assertEquals("\"a,b\"", ComplaintExporter.csvField("a,b"));
+        assertEquals("\"he said \"\"stop\"\"\"", ComplaintExporter.csvField("he said \"stop\""));
+        assertEquals("\"line one\r\nline two\"", ComplaintExporter.csvField("line one\r\nline two"));
+        assertEquals("\"one\ntwo\"", ComplaintExporter.csvField("one\ntwo"));
+        assertEquals("", ComplaintExporter.csvField(null));
+        assertEquals("বাস", ComplaintExporter.csvField("বাস"));
+    }
+
+    @Test
+    void textThatWouldRunAsAFormulaGetsAnApostrophe() {
+        assertEquals("'=1+1", ComplaintExporter.csvField("=1+1"));
+        assertEquals("\"'=SUM(A1,A2)\"", ComplaintExporter.csvField("=SUM(A1,A2)"));
+        assertEquals("'+8801700000000", ComplaintExporter.csvField("+8801700000000"));
+        assertEquals("'-1", ComplaintExporter.csvField("-1"));
+        assertEquals("'@cmd", ComplaintExporter.csvField("@cmd"));
+        assertEquals("\"'\rx\"", ComplaintExporter.csvField("\rx"));
+        // Numbers come from the database, not the public
+        assertEquals("-1", ComplaintExporter.csvField(-1));
+    }
+
+    @Test
+    void csvStartsWithAByteOrderMarkAndAHeader() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exporter(rows(3), 1000).export(ComplaintExporter.Format.CSV, List.of("id", "description"),
+                null, null, null, out);
+
+        assertEquals(3, rows);
+        assertEquals("\uFEFFid,description\r\n1,\"a, b\"\r\n2,\"a, b\"\r\n3,\"a, b\"\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void jsonlIsGzippedOneObjectPerLineAcrossPages() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exporter(rows(5), 2).export(ComplaintExporter.Format.JSONL, List.of("description", "thana"),
+                null, null, null, out);
+
+        assertEquals(5, rows);
+        String text;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<String> lines = text.lines().toList();
+        assertEquals(5, lines.size());
+        // Only the asked-for columns, in the asked-for order; id is read for the cursor only
+        assertEquals("{\"description\":\"a, b\",\"thana\":\"মিরপুর\"}", lines.get(4));
+        assertEquals(Map.of("description", "a, b", "thana", "মিরপুর"), objectMapper.readValue(lines.get(0), Map.class));
+    }
+
+    private ComplaintExporter exporter(List<Map<String, Object>> complaints, int pageSize) {
+        StubTables tables = new StubTables((table, query) -> {
+            long afterId = ((Number) query.filters().get(0).value()).longValue();
+            return Mono.just(complaints.stream()
+                    .filter(row -> ((Number) row.get("id")).longValue() > afterId)
+                    .limit(query.limit())
+                    .toList());
+        });
+        return new ComplaintExporter(tables.service(), objectMapper, pageSize, 1, Duration.ofSeconds(5));
+    }
+
+    private static List<Map<String, Object>> rows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", id);
+            row.put("description", "a, b");
+            row.put("thana", "মিরপুর");
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,49 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.event.ComplaintChangedEvent;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ComplaintSearchIndexTest {
+
+    private final Sinks.One<List<Map<String, Object>>> firstPage = Sinks.one();
+    private final StubTables tables = new StubTables((table, query) -> firstPage.asMono());
+    private final ComplaintSearchIndex index = new ComplaintSearchIndex(tables.service());
+
+    @Test
+    void changesDuringTheRebuildSurviveTheSwap() {
+        index.rebuild().subscribe();
+
+        // Written while the table is being paged through
+        index.onComplaintChanged(new ComplaintChangedEvent(ComplaintChangedEvent.Type.CREATED, 7,
+                Map.of("id", 7, "description", "conductor harassment at Farmgate")));
+        index.onComplaintChanged(new ComplaintChangedEvent(ComplaintChangedEvent.Type.DELETED, 2, Map.of()));
+
+        firstPage.tryEmitValue(List.of(
+                Map.of("id", 1, "description", "harassment near Mirpur 10"),
+                Map.of("id", 2, "description", "harassment on the Motijheel route")));
+
+        assertEquals(List.of(1L, 7L), ids(index.search("harassment", 10)));
+    }
+
+    @Test
+    void concurrentRebuildsShareOneLoad() {
+        assertSame(index.rebuild(), index.rebuild());
+        index.rebuild().subscribe();
+        index.rebuild().subscribe();
+        firstPage.tryEmitValue(List.of(Map.of("id", 1, "description", "reckless driving")));
+
+        assertEquals(1, tables.selects.size());
+        assertEquals(List.of(1L), ids(index.search("reckless", 10)));
+    }
+
+    private static List<Long> ids(List<Map<String, Object>> hits) {
+        return hits.stream().map(hit -> ((Number) hit.get("id")).longValue()).sorted().toList();
+    }
+}
@@ -0,0 +1,237 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.config.BlockingCalls;
+import com.jatriovijog.repository.TableQuery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The outbox against an in-memory email_outbox table and a stub SMTP sender.
+ */
+class EmailOutboxServiceTest {
+
+    private static final long BACKOFF_MS = 60_000;
+    private static final long LEASE_MS = 120_000;
+
+    // id -> row, the email_outbox table
+    private final Map<Long, Map<String, Object>> outbox = new TreeMap<>();
+    private final StubTables tables = new StubTables(
+            (table, query) -> Mono.fromSupplier(() -> select(query)),
+            write -> Mono.fromSupplier(() -> apply(write)));
+
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private final EmailService smtp = new EmailService(new JavaMailSenderImpl(), 1, new SimpleMeterRegistry()) {
+        @Override
+        public void send(String toEmail, String subject, String body) {
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new IllegalStateException("421 try again later");
+            }
+            sent.add(toEmail + ": " + subject);
+        }
+    };
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final EmailOutboxService service = new EmailOutboxService(tables.service(), smtp, meters,
+            new BlockingCalls(new MockEnvironment()), 2, 10);
+
+    EmailOutboxServiceTest() {
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "baseBackoffMs", BACKOFF_MS);
+        ReflectionTestUtils.setField(service, "leaseMs", LEASE_MS);
+        ReflectionTestUtils.setField(service, "batchSize", 20);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.shutdown();
+    }
+
+    @Test
+    void anEnqueuedEmailIsLeasedAndSentAtOnce() {
+        Instant before = Instant.now();
+        long id = id(service.enqueue("rider@example.com", "Complaint received", "body").block());
+
+        eventually(() -> "sent".equals(row(id).get("status")));
+        assertEquals(List.of("rider@example.com: Complaint received"), sent);
+        assertEquals(1, row(id).get("attempts"));
+        // Inserted already leased, so a poll in the meantime would have left it alone
+        Map<String, Object> inserted = tables.writes.get(0).rows().get(0);
+        assertTrue(Duration.between(before, Instant.parse((String) inserted.get("next_attempt_at")))
+                .toMillis() >= LEASE_MS);
+    }
+
+    @Test
+    void aLeasedRowIsNotClaimedUntilItsLeaseRunsOut() {
+        long id = insert("pending", Instant.now().plusMillis(LEASE_MS));
+
+        service.pollDueEmails();
+        eventually(() -> tables.selects.size() >= 2);
+        assertTrue(sent.isEmpty());
+
+        dueNow(id);
+        service.pollDueEmails();
+        eventually(() -> "sent".equals(row(id).get("status")));
+        // Claimed by pushing next_attempt_at to the lease, only while still due
+        TableQuery claim = tables.writes.stream()
+                .filter(w -> w.op().equals("update") && w.rows().get(0).keySet().equals(Set.of("next_attempt_at")))
+                .findFirst().orElseThrow().query();
+        assertTrue(claim.filters().stream().anyMatch(f -> f.column().equals("next_attempt_at")
+                && f.op() == TableQuery.Op.LTE));
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    void failedSendsAreRetriedWithExponentialBackoff() {
+        failuresLeft.set(2);
+        long id = id(service.enqueue("rider@example.com", "Resolved", "body").block());
+
+        eventually(() -> Integer.valueOf(1).equals(row(id).get("attempts")));
+        assertEquals(BACKOFF_MS, delayOf(id), 5_000);
+        assertEquals("421 try again later", row(id).get("last_error"));
+
+        dueNow(id);
+        service.pollDueEmails();
+        eventually(() -> Integer.valueOf(2).equals(row(id).get("attempts")));
+        assertEquals(2 * BACKOFF_MS, delayOf(id), 5_000);
+
+        dueNow(id);
+        service.pollDueEmails();
+        eventually(() -> "sent".equals(row(id).get("status")));
+        assertEquals(3, row(id).get("attempts"));
+        assertNull(row(id).get("last_error"));
+        assertEquals(2.0, meters.counter("email.outbox.retries").count());
+    }
+
+    @Test
+    void anEmailIsDeadLetteredAfterMaxAttempts() {
+        failuresLeft.set(Integer.MAX_VALUE);
+        long id = id(service.enqueue("rider@example.com", "Resolved", "body").block());
+
+        for (int attempt = 1; attempt < 3; attempt++) {
+            int expected = attempt;
+            eventually(() -> Integer.valueOf(expected).equals(row(id).get("attempts")));
+            dueNow(id);
+            service.pollDueEmails();
+        }
+        eventually(() -> "failed".equals(row(id).get("status")));
+
+        assertEquals(3, row(id).get("attempts"));
+        assertEquals(1.0, meters.counter("email.outbox.dead").count());
+        // A dead row is no longer pending, so later polls leave it alone
+        dueNow(id);
+        service.pollDueEmails();
+        assertEquals(3, row(id).get("attempts"));
+        assertTrue(sent.isEmpty());
+    }
+
+    // ---------- the in-memory email_outbox table ----------
+
+    private synchronized List<Map<String, Object>> select(TableQuery query) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Map<String, Object> row : outbox.values()) {
+            if (matches(row, query)) {
+                out.add(new HashMap<>(row));
+            }
+        }
+        out.sort(Comparator.comparing(row -> Instant.parse((String) row.get("next_attempt_at"))));
+        return query.limit() == null ? out : out.subList(0, Math.min(out.size(), query.limit()));
+    }
+
+    private synchronized List<Map<String, Object>> apply(StubTables.Write write) {
+        if (write.op().equals("insert")) {
+            Map<String, Object> row = new HashMap<>(write.rows().get(0));
+            row.put("id", (long) outbox.size() + 1);
+            outbox.put((Long) row.get("id"), row);
+            return List.of(new HashMap<>(row));
+        }
+        List<Map<String, Object>> updated = new ArrayList<>();
+        for (Map<String, Object> row : outbox.values()) {
+            if (matches(row, write.query())) {
+                row.putAll(write.rows().get(0));
+                updated.add(new HashMap<>(row));
+            }
+        }
+        return updated;
+    }
+
+    private static boolean matches(Map<String, Object> row, TableQuery query) {
+        for (TableQuery.Filter f : query.filters()) {
+            Object value = row.get(f.column());
+            boolean ok = switch (f.op()) {
+                case EQ -> String.valueOf(f.value()).equals(String.valueOf(value));
+                case LTE -> value != null
+                        && !Instant.parse((String) value).isAfter(Instant.parse((String) f.value()));
+                default -> throw new UnsupportedOperationException(f.toString());
+            };
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long insert(String status, Instant nextAttemptAt) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("to_email", "rider@example.com");
+        row.put("subject", "Queued earlier");
+        row.put("body", "body");
+        row.put("status", status);
+        row.put("attempts", 0);
+        row.put("next_attempt_at", nextAttemptAt.toString());
+        return id(apply(new StubTables.Write("insert", "email_outbox", List.of(row), null)).get(0));
+    }
+
+    private synchronized Map<String, Object> row(long id) {
+        return new HashMap<>(outbox.get(id));
+    }
+
+    private synchronized void dueNow(long id) {
+        outbox.get(id).put("next_attempt_at", Instant.now().minusSeconds(1).toString());
+    }
+
+    private long delayOf(long id) {
+        return Duration.between(Instant.now(), Instant.parse((String) row(id).get("next_attempt_at"))).toMillis();
+    }
+
+    private static long id(Map<String, Object> row) {
+        return ((Number) row.get("id")).longValue();
+    }
+
+    private static void eventually(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met within 5s");
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.jatriovijog.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    // Refilled long before the next call: such buckets change nothing when dropped
+    private static final RateLimiter.Limit IDLE = new RateLimiter.Limit(1, Duration.ofNanos(1));
+    private static final RateLimiter.Limit BUSY = new RateLimiter.Limit(5, Duration.ofHours(1));
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final RateLimiter limiter = new RateLimiter(meters, 10);
+
+    @Test
+    void refilledBucketsAreEvictedFirst() throws InterruptedException {
+        for (int i = 0; i < 8; i++) {
+            limiter.tryAcquire("complaints", "ip", "busy-" + i, BUSY);
+        }
+        limiter.tryAcquire("complaints", "ip", "idle-1", IDLE);
+        limiter.tryAcquire("complaints", "ip", "idle-2", IDLE);
+        Thread.sleep(1);
+
+        // The 11th key: the two refilled buckets go, down to the 9-key target
+        limiter.tryAcquire("complaints", "ip", "busy-8", BUSY);
+
+        assertEquals(2.0, meters.get("ratelimit.evicted").counter().count());
+        assertEquals(9.0, keys());
+        // The busy buckets kept their state: one token used, four left
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, limiter.tryAcquire("complaints", "ip", "busy-0", BUSY));
+        }
+        assertTrue(limiter.tryAcquire("complaints", "ip", "busy-0", BUSY) > 0);
+    }
+
+    @Test
+    void aFloodOfNewKeysKeepsTheTableBounded() {
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, limiter.tryAcquire("complaints", "ip", "flood-" + i, BUSY));
+            assertTrue(keys() <= 10);
+        }
+        assertTrue(meters.get("ratelimit.evicted").counter().count() >= 90);
+        // Errs towards letting requests through: a dropped key starts again with a full bucket
+        assertTrue(meters.find("ratelimit.rejected").counters().isEmpty());
+    }
+
+    @Test
+    void rejectionsAreCountedByRuleAndKeyType() {
+        RateLimiter.Limit one = RateLimiter.Limit.parse("1/1h");
+        limiter.tryAcquire("reactions", "client", "c1", one);
+        long wait = limiter.tryAcquire("reactions", "client", "c1", one);
+
+        assertTrue(wait > 0 && wait <= Duration.ofHours(1).toNanos());
+        assertEquals(1.0, meters.get("ratelimit.rejected").tags("rule", "reactions", "key", "client")
+                .counter().count());
+    }
+
+    @Test
+    void limitsParseAsCountPerDuration() {
+        assertEquals(new RateLimiter.Limit(30, Duration.ofMinutes(1)), RateLimiter.Limit.parse("30/1m"));
+        assertEquals(new RateLimiter.Limit(90, Duration.ofMinutes(1)), RateLimiter.Limit.parse("30/1m").times(3));
+        assertThrows(IllegalArgumentException.class, () -> RateLimiter.Limit.parse("30"));
+        assertThrows(IllegalArgumentException.class, () -> RateLimiter.Limit.parse("0/1m"));
+    }
+
+    private double keys() {
+        return meters.get("ratelimit.keys").gauge().value();
+    }
+}
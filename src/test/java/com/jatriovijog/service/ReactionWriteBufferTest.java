@@ -0,0 +1,122 @@
+package com.jatriovijog.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReactionWriteBufferTest {
+
+    // A complaint deleted since the tap: any batch holding its reaction fails
+    private static final long DELETED = 99;
+
+    private final StubTables tables = new StubTables((table, query) -> Mono.just(List.of()),
+            write -> write.rows().stream().anyMatch(row -> row.get("complaint_id").equals(DELETED))
+                    ? Mono.error(new IllegalStateException("violates foreign key constraint"))
+                    : Mono.just(write.rows()));
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final ReactionWriteBuffer buffer = new ReactionWriteBuffer(tables.service(), event -> {
+    }, meters);
+
+    ReactionWriteBufferTest() {
+        ReflectionTestUtils.setField(buffer, "maxPending", 100);
+        ReflectionTestUtils.setField(buffer, "batchSize", 100);
+        ReflectionTestUtils.setField(buffer, "maxAttempts", 3);
+    }
+
+    @Test
+    void theLastTapPerClientWinsBeforeAFlush() {
+        buffer.submit(1, "a", "support", null).block();
+        buffer.submit(1, "a", "angry", null).block();
+        buffer.submit(1, "b", "watch", null).block();
+        buffer.submit(2, "c", "support", 7L).block();
+        // An anonymous tap later must not clear the user already on the row
+        buffer.submit(2, "c", "watch", null).block();
+
+        // Pending taps already show in the counts
+        Map<String, Object> counts = buffer.counts(1L, "a").block();
+        assertEquals("angry", counts.get("myReaction"));
+
+        buffer.flush().block();
+
+        List<Map<String, Object>> written = upserted();
+        assertEquals(3, written.size());
+        assertEquals("angry", reactionOf(written, 1, "a").get("reaction_type"));
+        assertEquals("watch", reactionOf(written, 2, "c").get("reaction_type"));
+        assertEquals(7L, reactionOf(written, 2, "c").get("user_id"));
+        assertEquals(2.0, meters.counter("reactions.buffer.coalesced").count());
+        assertEquals(0.0, pending());
+    }
+
+    @Test
+    void aFailedBatchIsRetriedRowByRow() {
+        buffer.submit(1, "a", "support", null).block();
+        buffer.submit(DELETED, "b", "angry", null).block();
+        buffer.submit(2, "c", "watch", null).block();
+
+        buffer.flush().block();
+
+        // One batch of three, then each row on its own
+        assertEquals(List.of(3, 1, 1, 1), tables.writes.stream().map(write -> write.rows().size()).toList());
+        assertEquals(2.0, meters.counter("reactions.buffer.written").count());
+        assertEquals(1.0, pending());
+    }
+
+    @Test
+    void aRowThatKeepsFailingIsDroppedAfterMaxAttempts() {
+        buffer.submit(DELETED, "b", "angry", null).block();
+
+        buffer.flush().block();
+        buffer.flush().block();
+        assertEquals(1.0, pending());
+        buffer.flush().block();
+
+        assertEquals(0.0, pending());
+        assertEquals(1.0, meters.counter("reactions.buffer.dropped").count());
+        assertEquals(3, tables.writes.size());
+    }
+
+    @Test
+    void pendingTapsAreFlushedOnShutdown() {
+        buffer.start();
+        buffer.submit(1, "a", "support", null).block();
+        buffer.submit(2, "b", "angry", null).block();
+
+        buffer.stop();
+
+        assertEquals(2, upserted().size());
+        assertEquals(0.0, pending());
+    }
+
+    @Test
+    void aFullBufferAsksTheClientToRetry() {
+        ReflectionTestUtils.setField(buffer, "maxPending", 2);
+
+        buffer.submit(1, "a", "support", null).block();
+        buffer.submit(1, "b", "angry", null).block();
+
+        ReactionWriteBuffer.BufferFullException full = assertThrows(ReactionWriteBuffer.BufferFullException.class,
+                () -> buffer.submit(2, "c", "support", null).block());
+        assertEquals(1, full.retryAfterSeconds());
+    }
+
+    private List<Map<String, Object>> upserted() {
+        return tables.writes.stream().flatMap(write -> write.rows().stream()).toList();
+    }
+
+    private static Map<String, Object> reactionOf(List<Map<String, Object>> rows, long complaintId, String clientId) {
+        return rows.stream()
+                .filter(row -> row.get("complaint_id").equals(complaintId) && row.get("client_id").equals(clientId))
+                .findFirst().orElseThrow();
+    }
+
+    private double pending() {
+        return meters.get("reactions.buffer.pending").gauge().value();
+    }
+}
@@ -0,0 +1,95 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.config.BlockingCalls;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResolutionReportServiceTest {
+
+    private final List<String> prompts = new ArrayList<>();
+    private String reply = "Bus {{bus}} on Route 7A: {{action}}. Thank you, A. Rahman";
+
+    private final AiAnalysisService ai = new AiAnalysisService(new RestTemplateBuilder(), ObservationRegistry.NOOP,
+            new SimpleMeterRegistry(), CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(),
+            Duration.ofSeconds(1), Duration.ofSeconds(1)) {
+        @Override
+        public String requestActionReportTemplate(String category, String actionKind, String busPlaceholder,
+                String actionPlaceholder) {
+            prompts.add("template " + category + "/" + actionKind);
+            return reply;
+        }
+
+        @Override
+        public String requestActionReport(String category, String busName, String actionTaken) {
+            prompts.add("report " + busName);
+            return "Drafted for " + busName + ": " + actionTaken;
+        }
+    };
+
+    private final ResolutionReportService service = new ResolutionReportService(ai, null,
+            new BlockingCalls(new MockEnvironment()), 1, 1, 8);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.shutdown();
+    }
+
+    @Test
+    void templatesRoundTripWithoutTouchingTheRestOfTheText() {
+        // Short bus names that also occur inside other words and numbers
+        assertEquals("Bus 7 on Route 7A: Driver fined 500 Tk. Thank you, A. Rahman",
+                service.renderReport("Harassment", "7", "Driver fined 500 Tk"));
+        assertEquals("Bus A on Route 7A: Conductor was penalised. Thank you, A. Rahman",
+                service.renderReport("Harassment", "A", "Conductor was penalised"));
+
+        assertEquals(List.of("template Harassment/fine"), prompts);
+    }
+
+    @Test
+    void differentKindsOfActionGetTheirOwnTemplates() {
+        service.renderReport("Harassment", "7", "Driver fined");
+        service.renderReport("Harassment", "7", "Driver arrested at Gabtoli");
+        service.renderReport("Fare Dispute", "7", "Driver arrested");
+
+        assertEquals(List.of("template Harassment/fine", "template Harassment/arrest",
+                "template Fare Dispute/arrest"), prompts);
+    }
+
+    @Test
+    void aReplyWithoutThePlaceholdersIsNotCached() {
+        reply = "Dear Citizen, the matter has been resolved.";
+
+        assertEquals("Drafted for 7: Driver warned", service.renderReport("Harassment", "7", "Driver warned"));
+        service.renderReport("Harassment", "7", "Driver warned");
+
+        assertEquals(List.of("template Harassment/warning", "report 7",
+                "template Harassment/warning", "report 7"), prompts);
+    }
+
+    @Test
+    void placeholdersInTheDetailsAreNotExpandedAgain() {
+        assertEquals("Bus {{action}} on Route 7A: Driver fined. Thank you, A. Rahman",
+                service.renderReport("Harassment", "{{action}}", "Driver fined"));
+    }
+
+    @Test
+    void actionKindsMatchWordStemsInEitherLanguage() {
+        assertEquals("fine", ResolutionReportService.actionKind("Driver FINED 500 Tk"));
+        assertEquals("arrest", ResolutionReportService.actionKind("চালককে গ্রেফতার করা হয়েছে"));
+        assertEquals("warning", ResolutionReportService.actionKind("Conductor was given a warning"));
+        assertEquals("other", ResolutionReportService.actionKind("Finished the inquiry"));
+        assertEquals("other", ResolutionReportService.actionKind(null));
+    }
+}
@@ -0,0 +1,115 @@
+package com.jatriovijog.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jatriovijog.repository.TableQuery;
+import com.jatriovijog.repository.TableRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * {@link TableRepository} for service tests: selects (and counts) are
+ * answered by a function of table and query, writes by an optional function
+ * of the {@link Write}; both are recorded. Without a write function, writes
+ * are not supported.
+ */
+class StubTables implements TableRepository {
+
+    record Select(String table, String columns, TableQuery query) {
+    }
+
+    /** {@code op} is insert, upsert, update or delete; {@code query} is null for inserts and upserts. */
+    record Write(String op, String table, List<Map<String, Object>> rows, TableQuery query) {
+    }
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final BiFunction<String, TableQuery, Mono<List<Map<String, Object>>>> rows;
+    private final Function<Write, Mono<List<Map<String, Object>>>> writer;
+    final List<Select> selects = new ArrayList<>();
+    final List<Write> writes = new ArrayList<>();
+
+    StubTables(BiFunction<String, TableQuery, Mono<List<Map<String, Object>>>> rows) {
+        this(rows, write -> {
+            throw new UnsupportedOperationException();
+        });
+    }
+
+    StubTables(BiFunction<String, TableQuery, Mono<List<Map<String, Object>>>> rows,
+            Function<Write, Mono<List<Map<String, Object>>>> writer) {
+        this.rows = rows;
+        this.writer = writer;
+    }
+
+    /** A SupabaseService over these tables, with coalescing and hedging off. */
+    SupabaseService service() {
+        return service(event -> {
+        });
+    }
+
+    SupabaseService service(ApplicationEventPublisher events) {
+        return new SupabaseService(this, events, ObservationRegistry.NOOP, new SimpleMeterRegistry(),
+                false, false, 0.95, Duration.ofMillis(50), 0.1);
+    }
+
+    @Override
+    public synchronized Mono<List<Map<String, Object>>> select(String table, String columns, TableQuery query) {
+        selects.add(new Select(table, columns, query));
+        return rows.apply(table, query);
+    }
+
+    @Override
+    public <T> Mono<List<T>> select(String table, String columns, TableQuery query, Class<T> type) {
+        return select(table, columns, query).map(list -> list.stream()
+                .map(row -> objectMapper.convertValue(row, type))
+                .toList());
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> insert(String table, Map<String, Object> row) {
+        return write(new Write("insert", table, List.of(row), null));
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> upsert(String table, Map<String, Object> row, String conflictColumns) {
+        return write(new Write("upsert", table, List.of(row), null));
+    }
+
+    @Override
+    public Mono<Void> upsertAll(String table, List<Map<String, Object>> rows, String conflictColumns) {
+        return write(new Write("upsert", table, List.copyOf(rows), null)).then();
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> update(String table, Map<String, Object> changes, TableQuery query) {
+        return write(new Write("update", table, List.of(changes), query));
+    }
+
+    @Override
+    public Mono<Void> delete(String table, TableQuery query) {
+        return write(new Write("delete", table, List.of(), query)).then();
+    }
+
+    @Override
+    public Mono<Long> count(String table, TableQuery query) {
+        return select(table, "id", query).map(list -> (long) list.size());
+    }
+
+    // Recorded when the write is subscribed, like a real call
+    private Mono<List<Map<String, Object>>> write(Write write) {
+        return Mono.defer(() -> {
+            synchronized (this) {
+                writes.add(write);
+            }
+            return writer.apply(write);
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.event.ComplaintChangedEvent;
+import com.jatriovijog.event.ComplaintReportedEvent;
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.repository.TableQuery;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SupabaseServiceTest {
+
+    @Test
+    void lookupsByIdAreSplitIntoBoundedInFilters() {
+        StubTables tables = new StubTables((table, query) -> Mono.just(((Collection<?>) query.filters().get(0).value())
+                .stream().map(id -> Map.<String, Object>of("id", id)).toList()));
+        List<Long> ids = LongStream.rangeClosed(1, 450).boxed().toList();
+
+        List<Complaint> rows = tables.service().getComplaintsByIds(ids).block();
+
+        assertEquals(ids, rows.stream().map(Complaint::id).toList());
+        assertEquals(3, tables.selects.size());
+        for (StubTables.Select select : tables.selects) {
+            TableQuery.Filter filter = select.query().filters().get(0);
+            assertEquals(TableQuery.Op.IN, filter.op());
+            assertTrue(((Collection<?>) filter.value()).size() <= 200);
+        }
+    }
+
+    @Test
+    void aDuplicateIsLinkedWithoutRewritingItsParent() {
+        Map<String, Object> parent = Map.of("id", 42L, "description", "Conductor pushed me", "report_count", 2);
+        StubTables tables = new StubTables((table, query) -> Mono.just(List.of(parent)),
+                write -> Mono.just(write.rows()));
+        List<Object> events = new ArrayList<>();
+
+        Map<String, Object> result = tables.service(events::add)
+                .linkDuplicateReport(42L, Map.of("description", "Same conductor again", "reporter_type", "passenger"))
+                .block();
+
+        // One append-only insert; report_count is the trigger's job
+        assertEquals(1, tables.writes.size());
+        StubTables.Write link = tables.writes.get(0);
+        assertEquals("insert", link.op());
+        assertEquals("complaint_duplicates", link.table());
+        assertEquals(Map.of("parent_id", 42L, "description", "Same conductor again", "reporter_type", "passenger"),
+                link.rows().get(0));
+
+        // The parent is re-read after the insert and handed on as it is now
+        assertEquals(parent, result);
+        assertEquals("complaints", tables.selects.get(0).table());
+        assertEquals(List.of(new ComplaintChangedEvent(ComplaintChangedEvent.Type.UPDATED, 42L, parent),
+                new ComplaintReportedEvent(42L, true, parent)), events);
+    }
+
+    @Test
+    void aLinkToAMissingParentFailsWithoutPublishing() {
+        StubTables tables = new StubTables((table, query) -> Mono.just(List.of()), write -> Mono.just(write.rows()));
+        List<Object> events = new ArrayList<>();
+
+        assertThrows(RuntimeException.class, () -> tables.service(events::add)
+                .linkDuplicateReport(42L, Map.of("description", "Same conductor again")).block());
+        assertTrue(events.isEmpty());
+    }
+}
@@ -0,0 +1,78 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.event.ComplaintReportedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SurgeDetectorTest {
+
+    private static final Map<String, Object> PARENT = Map.of("id", 1, "thana", "Mirpur", "route", "Route 1",
+            "category", "Harassment", "status", "new");
+
+    @Test
+    void duplicateReportsCountAsArrivalsUnderTheParentsKeys() {
+        StubTables tables = new StubTables((table, query) -> switch (table) {
+            case "complaint_duplicates" -> Mono.just(List.of(Map.of("id", 7, "parent_id", 1),
+                    Map.of("id", 8, "parent_id", 1), Map.of("id", 9, "parent_id", 2)));
+            case "complaints" -> Mono.just(List.of(PARENT));
+            default -> Mono.just(List.of());
+        });
+        SupabaseService service = tables.service();
+        SurgeDetector detector = detector(service);
+
+        // Each link stands for the parent's keys, once per report, under its own id
+        List<Map<String, Object>> arrivals = service.getDuplicateArrivalsSince("2026-01-01T00:00:00Z", 0L, 1000)
+                .block();
+        assertEquals(List.of(7, 8, 9), arrivals.stream().map(arrival -> arrival.get("id")).toList());
+        assertEquals("Route 1", arrivals.get(1).get("route"));
+        assertEquals(Map.of("id", 9), arrivals.get(2));
+
+        detector.onComplaintReported(new ComplaintReportedEvent(1, false, PARENT));
+        detector.onComplaintReported(new ComplaintReportedEvent(1, true, PARENT));
+        detector.onComplaintReported(new ComplaintReportedEvent(1, true, PARENT));
+
+        assertEquals(3L, detector.estimate("route", "Route 1").get("count"));
+        assertEquals(1, detector.recent(10).stream().filter(surge -> surge.get("key").equals("Route 1")).count());
+    }
+
+    @Test
+    void theSeedReadsEveryPageOfTheWeek() {
+        List<Map<String, Object>> complaints = new ArrayList<>();
+        for (long id = 1; id <= 2500; id++) {
+            Map<String, Object> row = new HashMap<>(PARENT);
+            row.put("id", id);
+            complaints.add(row);
+        }
+        StubTables tables = new StubTables((table, query) -> {
+            if (!table.equals("complaints")) {
+                return Mono.just(List.of());
+            }
+            long afterId = ((Number) query.filters().get(1).value()).longValue();
+            return Mono.just(complaints.stream()
+                    .filter(row -> ((Number) row.get("id")).longValue() > afterId)
+                    .limit(query.limit())
+                    .toList());
+        });
+        SurgeDetector detector = detector(tables.service());
+
+        detector.seedBaseline();
+
+        // 2500 reports over a week of 5-minute slices, times the 6 slices of a window
+        assertEquals(7.4, detector.estimate("route", "Route 1").get("expected"));
+        assertEquals(3, tables.selects.stream().filter(select -> select.table().equals("complaints")).count());
+    }
+
+    private static SurgeDetector detector(SupabaseService service) {
+        return new SurgeDetector(service, new SimpleMeterRegistry(), Duration.ofMinutes(30), 6,
+                Duration.ofHours(24), Duration.ofDays(7), 3, 3, Duration.ofMinutes(30), 10, 4, 256);
+    }
+}
@@ -0,0 +1,100 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.event.ComplaintChangedEvent;
+import com.jatriovijog.event.ComplaintReactedEvent;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TriageQueueTest {
+
+    private static final String CREATED_AT = OffsetDateTime.now().minusHours(1).toString();
+
+    private final List<Map<String, Object>> complaints = new ArrayList<>();
+    private final List<Map<String, Object>> reactions = new ArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private Runnable duringReactionLoad = () -> {
+    };
+
+    private final StubTables tables = new StubTables((table, query) -> {
+        if (failuresLeft.getAndDecrement() > 0) {
+            return Mono.error(new IllegalStateException("table store down"));
+        }
+        if (table.equals("complaint_reactions")) {
+            duringReactionLoad.run();
+        }
+        List<Map<String, Object>> source = table.equals("complaints") ? complaints : reactions;
+        long afterId = ((Number) query.filters().get(0).value()).longValue();
+        return Mono.just(source.stream()
+                .filter(row -> ((Number) row.get("id")).longValue() > afterId)
+                .limit(query.limit())
+                .toList());
+    });
+
+    private final TriageQueue queue = new TriageQueue(tables.service(), 48, 12, 0, 4, 6, Duration.ofMillis(1));
+
+    @Test
+    void loadsInKeysetPagesAndSkipsClosedComplaints() {
+        for (long id = 1; id <= 2500; id++) {
+            complaints.add(complaint(id, id % 2 == 0 ? "new" : "resolved"));
+        }
+
+        assertEquals(1250, queue.rebuild().block(Duration.ofSeconds(5)));
+        assertTrue(queue.isReady());
+        // three pages of complaints, one (empty) of reactions
+        assertEquals(4, tables.selects.size());
+        assertTrue(tables.selects.stream().allMatch(select -> select.query().limit() != null));
+    }
+
+    @Test
+    void changesDuringTheBuildSurviveTheSwap() {
+        complaints.add(complaint(1, "new"));
+        complaints.add(complaint(2, "working"));
+        duringReactionLoad = () -> {
+            duringReactionLoad = () -> {
+            };
+            // Seen after complaints were read, before the queue goes live
+            queue.onComplaintChanged(new ComplaintChangedEvent(ComplaintChangedEvent.Type.CREATED, 3,
+                    complaint(3, "new")));
+            queue.onComplaintChanged(new ComplaintChangedEvent(ComplaintChangedEvent.Type.UPDATED, 2,
+                    Map.of("id", 2, "status", "resolved")));
+            queue.onComplaintReacted(new ComplaintReactedEvent(1, "client-a"));
+        };
+
+        queue.rebuild().block(Duration.ofSeconds(5));
+
+        List<Map<String, Object>> items = items();
+        assertEquals(List.of(1L, 3L), items.stream().map(item -> ((Number) item.get("id")).longValue()).toList());
+        assertEquals(1, items.get(0).get("reactions"));
+    }
+
+    @Test
+    void aFailedBuildIsRetried() {
+        complaints.add(complaint(1, "new"));
+        failuresLeft.set(2);
+
+        assertFalse(queue.isReady());
+        assertEquals(1, queue.rebuild().block(Duration.ofSeconds(5)));
+        assertTrue(queue.isReady());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> items() {
+        return (List<Map<String, Object>>) queue.top(null, 10).get("items");
+    }
+
+    private static Map<String, Object> complaint(long id, String status) {
+        return Map.of("id", id, "thana", "Mirpur", "status", status, "priority", "low",
+                "created_at", CREATED_AT, "report_count", 1);
+    }
+}
@@ -0,0 +1,117 @@
+package com.jatriovijog.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientLimitTest {
+
+    private static final long MS = 1_000_000L;
+
+    private long now;
+
+    @Test
+    void theFirstWindowOnlySetsTheBaseline() {
+        GradientLimit limit = new GradientLimit(40, 5, 200, 2.0);
+
+        window(limit, 10 * MS, 40);
+
+        assertEquals(40, limit.limit());
+    }
+
+    @Test
+    void aBusyServerAtItsUsualLatencyGrowsTheLimitUpToTheMaximum() {
+        GradientLimit limit = new GradientLimit(40, 5, 200, 2.0);
+
+        window(limit, 10 * MS, 40);
+        window(limit, 10 * MS, limit.limit());
+        assertTrue(limit.limit() > 40, "limit " + limit.limit());
+
+        for (int i = 0; i < 500; i++) {
+            window(limit, 10 * MS, limit.limit());
+        }
+        assertEquals(200, limit.limit());
+    }
+
+    @Test
+    void risingLatencyShrinksTheLimitByAtMostHalfAWindow() {
+        GradientLimit limit = new GradientLimit(100, 5, 200, 2.0);
+        window(limit, 10 * MS, 100);
+
+        int before = limit.limit();
+        window(limit, 80 * MS, before);
+        int after = limit.limit();
+        assertTrue(after < before && after >= before / 2, before + " -> " + after);
+
+        // Ten seconds of it; kept up for minutes, it would become the new usual latency
+        for (int i = 0; i < 20; i++) {
+            window(limit, 80 * MS, limit.limit());
+        }
+        assertTrue(limit.limit() < 30, "limit " + limit.limit());
+    }
+
+    @Test
+    void theLimitNeverDropsBelowTheMinimum() {
+        GradientLimit limit = new GradientLimit(20, 15, 200, 2.0);
+        window(limit, 10 * MS, 20);
+
+        for (int i = 0; i < 20; i++) {
+            window(limit, 500 * MS, limit.limit());
+        }
+        assertEquals(15, limit.limit());
+    }
+
+    @Test
+    void latencyWithinTheToleranceLeavesRoomToGrow() {
+        GradientLimit limit = new GradientLimit(40, 5, 200, 2.0);
+        window(limit, 10 * MS, 40);
+
+        window(limit, 19 * MS, 40);
+
+        assertTrue(limit.limit() > 40, "limit " + limit.limit());
+    }
+
+    @Test
+    void aQuietWindowLeavesTheLimitAlone() {
+        GradientLimit limit = new GradientLimit(40, 5, 200, 2.0);
+        window(limit, 10 * MS, 40);
+
+        // Fewer than half the allowed requests in flight: nothing learned about the limit
+        for (int i = 0; i < 20; i++) {
+            window(limit, 10 * MS, 19);
+        }
+        assertEquals(40, limit.limit());
+
+        window(limit, 100 * MS, 19);
+        assertEquals(40, limit.limit());
+    }
+
+    @Test
+    void aWindowNeedsEnoughSamplesAndEnoughTime() {
+        GradientLimit limit = new GradientLimit(40, 5, 200, 2.0);
+        window(limit, 10 * MS, 40);
+
+        // Nine samples spread over a second, then ten within 90 ms: neither closes a window
+        for (int i = 0; i < 9; i++) {
+            now += 120 * MS;
+            limit.onSample(now, 80 * MS, 40);
+        }
+        assertEquals(40, limit.limit());
+        GradientLimit fresh = new GradientLimit(40, 5, 200, 2.0);
+        window(fresh, 10 * MS, 40);
+        for (int i = 0; i < 10; i++) {
+            now += 9 * MS;
+            fresh.onSample(now, 80 * MS, 40);
+        }
+        assertEquals(40, fresh.limit());
+    }
+
+    /** Ten samples 60 ms apart: enough of both to close one window. */
+    private void window(GradientLimit limit, long rttNanos, int inFlight) {
+        for (int i = 0; i < 10; i++) {
+            now += 60 * MS;
+            limit.onSample(now, rttNanos, inFlight);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.jatriovijog.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Times are passed in, so each test runs on its own clock. */
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final TokenBucket bucket = new TokenBucket();
+
+    @Test
+    void aFullBucketAllowsABurstOfExactlyCapacity() {
+        long now = 5 * SECOND;
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, bucket.tryTake(10, SECOND, now));
+        }
+        assertTrue(bucket.tryTake(10, SECOND, now) > 0);
+    }
+
+    @Test
+    void theBurstStaysAtCapacityWhenThePeriodDoesNotDivideEvenly() {
+        // 11ns / 4 = 2ns intervals; measured against the period this allowed 5
+        int taken = 0;
+        while (bucket.tryTake(4, 11, 100) == 0) {
+            taken++;
+        }
+        assertEquals(4, taken);
+    }
+
+    @Test
+    void theWaitIsTheTimeUntilTheNextToken() {
+        long now = SECOND;
+        for (int i = 0; i < 10; i++) {
+            bucket.tryTake(10, SECOND, now);
+        }
+
+        assertEquals(SECOND / 10, bucket.tryTake(10, SECOND, now));
+        assertEquals(SECOND / 10 - 30, bucket.tryTake(10, SECOND, now + 30));
+        assertEquals(0, bucket.tryTake(10, SECOND, now + SECOND / 10));
+        assertTrue(bucket.tryTake(10, SECOND, now + SECOND / 10) > 0);
+    }
+
+    @Test
+    void tokensComeBackOnePerInterval() {
+        long now = SECOND;
+        for (int i = 0; i < 10; i++) {
+            bucket.tryTake(10, SECOND, now);
+        }
+        for (int i = 1; i <= 30; i++) {
+            assertEquals(0, bucket.tryTake(10, SECOND, now + i * SECOND / 10));
+            assertTrue(bucket.tryTake(10, SECOND, now + i * SECOND / 10) > 0);
+        }
+    }
+
+    @Test
+    void isFullOnceAWholePeriodHasRefilled() {
+        assertTrue(bucket.isFull(0));
+        bucket.tryTake(10, SECOND, SECOND);
+        assertFalse(bucket.isFull(SECOND));
+        assertFalse(bucket.isFull(SECOND + SECOND / 10 - 1));
+        assertTrue(bucket.isFull(SECOND + SECOND / 10));
+    }
+
+    @Test
+    void moreTokensThanNanosecondsIsStillALimit() {
+        // periodNanos / capacity is 0 here; unguarded that meant no limit at all
+        int taken = 0;
+        for (int i = 0; i < 5000; i++) {
+            if (bucket.tryTake(1000, 10, 100) == 0) {
+                taken++;
+            }
+        }
+        assertEquals(1000, taken);
+    }
+
+    @Test
+    void concurrentTakesNeverExceedCapacity() {
+        AtomicInteger taken = new AtomicInteger();
+        List<CompletableFuture<Void>> takers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            takers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (bucket.tryTake(500, SECOND, SECOND) == 0) {
+                        taken.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        takers.forEach(CompletableFuture::join);
+
+        assertEquals(500, taken.get());
+    }
+}